@@ -63,12 +63,49 @@ tasks.test {
     }
 }
 
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.testRuntimeOnly.get())
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.27")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.27")
+}
+
+/**
+ * Runs the JMH benchmarks with the GC profiler, so allocation rates are recorded next to the timings.
+ * Narrow down the benchmarks with `-PjmhInclude=<regex>`.
+ */
+task<JavaExec>("jmh") {
+    description = "Runs JMH benchmarks"
+    group = "verification"
+    val results = buildDir.resolve("reports/jmh/results.json")
+    classpath = jmh.runtimeClasspath
+    main = "org.openjdk.jmh.Main"
+    args = listOfNotNull(
+        project.findProperty("jmhInclude")?.toString(),
+        "-prof", "gc",
+        "-rf", "json",
+        "-rff", results.absolutePath
+    )
+    doFirst {
+        results.parentFile.mkdirs()
+    }
+}
+
 val testIntegration = task<Test>("testIntegration") {
     filter {
         include("**/*IT.class")
     }
     setForkEvery(1)
     maxParallelForks = 1
+    findProperty("soakDuration")?.let { systemProperty("soak.duration", it) }
+    findProperty("integrationJavaHome")?.let { executable = "$it/bin/java" }
+    systemProperty("jdk.tracePinnedThreads", "short")
 }
 
 tasks["check"].dependsOn(testIntegration)
@@ -0,0 +1,81 @@
+package com.atlassian.db.replica.benchmark;
+
+import com.atlassian.db.replica.api.DualConnection;
+import com.atlassian.db.replica.api.PessimisticPropagationConsistency;
+import com.atlassian.db.replica.api.mocks.NoOpConnectionProvider;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.atlassian.db.replica.api.Queries.LARGE_SQL_QUERY;
+
+/**
+ * Many connections share a single {@link ReplicaConsistency}, which is a point of contention.
+ * Readers check the consistency for every query, while writers keep moving the last write forward.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ConsistencyContentionBenchmark {
+    private static final String UPDATE = "UPDATE jiraissue SET summary = ? WHERE id = ?";
+
+    private ReplicaConsistency consistency;
+
+    @Setup
+    public void setUp() {
+        consistency = new PessimisticPropagationConsistency.Builder()
+            .assumeMaxPropagation(Duration.ofMillis(1))
+            .build();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadConnection {
+        private Connection connection;
+
+        @Setup
+        public void setUp(ConsistencyContentionBenchmark benchmark) throws SQLException {
+            connection = DualConnection.builder(new NoOpConnectionProvider(), benchmark.consistency)
+                .circuitBreaker(null)
+                .build();
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    @Group("sharedConsistency")
+    @GroupThreads(3)
+    public ResultSet read(ThreadConnection reader) throws SQLException {
+        return reader.connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+    }
+
+    @Benchmark
+    @Group("sharedConsistency")
+    @GroupThreads(1)
+    public int write(ThreadConnection writer) throws SQLException {
+        return writer.connection.prepareStatement(UPDATE).executeUpdate();
+    }
+}
@@ -0,0 +1,143 @@
+package com.atlassian.db.replica.benchmark;
+
+import com.atlassian.db.replica.api.DualConnection;
+import com.atlassian.db.replica.api.RoutingRule;
+import com.atlassian.db.replica.api.RoutingRules;
+import com.atlassian.db.replica.api.mocks.NoOpConnectionProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.atlassian.db.replica.api.Queries.LARGE_SQL_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentInconsistency;
+
+/**
+ * Measures the cost of routing a single query through {@link DualConnection}.
+ * The underlying connections are no-ops, so the results show the overhead added by the library.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DualConnectionBenchmark {
+    private static final String UPDATE = "UPDATE jiraissue SET summary = ? WHERE id = ?";
+    /**
+     * More than the remembered classifications and rule matches, so every query misses them.
+     */
+    private static final int DISTINCT_QUERIES = 8192;
+
+    private Connection onReplica;
+    private Connection onMain;
+    private Connection afterWrite;
+    private Connection withCircuitBreaker;
+    private Connection withRules;
+    private final String[] distinctQueries = new String[DISTINCT_QUERIES];
+    private int nextQuery = 0;
+
+    @Setup
+    public void setUp() throws SQLException {
+        onReplica = DualConnection.builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .circuitBreaker(null)
+            .build();
+        onMain = DualConnection.builder(
+            new NoOpConnectionProvider(),
+            permanentInconsistency().ignoreSupplier(true).build()
+        ).circuitBreaker(null)
+            .build();
+        afterWrite = DualConnection.builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .circuitBreaker(null)
+            .build();
+        afterWrite.prepareStatement(UPDATE).executeUpdate();
+        withCircuitBreaker = DualConnection.builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .build();
+        withRules = DualConnection.builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .circuitBreaker(null)
+            .routingRules(new RoutingRules.Builder()
+                .rule(new RoutingRule.Builder("projects")
+                    .readingTables(Collections.singleton("project"))
+                    .routeToMain()
+                    .build())
+                .build())
+            .build();
+        for (int i = 0; i < DISTINCT_QUERIES; i++) {
+            distinctQueries[i] = "SELECT * FROM jiraissue WHERE id = " + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        onReplica.close();
+        onMain.close();
+        afterWrite.close();
+        withCircuitBreaker.close();
+        withRules.close();
+    }
+
+    @Benchmark
+    public ResultSet queryReplica() throws SQLException {
+        return onReplica.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+    }
+
+    @Benchmark
+    public ResultSet queryMainWhenReplicaIsInconsistent() throws SQLException {
+        return onMain.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+    }
+
+    @Benchmark
+    public ResultSet queryMainAfterWrite() throws SQLException {
+        return afterWrite.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+    }
+
+    @Benchmark
+    public ResultSet queryThroughCircuitBreaker() throws SQLException {
+        return withCircuitBreaker.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+    }
+
+    @Benchmark
+    public ResultSet queryUnseenSql() throws SQLException {
+        final String sql = distinctQueries[nextQuery];
+        nextQuery = (nextQuery + 1) % DISTINCT_QUERIES;
+        return withRules.prepareStatement(sql).executeQuery();
+    }
+
+    @Benchmark
+    public ResultSet queryWithParameters() throws SQLException {
+        final PreparedStatement statement = onReplica.prepareStatement(LARGE_SQL_QUERY);
+        statement.setInt(1, 10000);
+        statement.setLong(2, 10001L);
+        statement.setString(3, "customfield_10013");
+        statement.setNull(4, java.sql.Types.BIGINT);
+        return statement.executeQuery();
+    }
+
+    @Benchmark
+    public int writeThenRead() throws SQLException {
+        try (Connection connection = DualConnection
+            .builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .circuitBreaker(null)
+            .build()) {
+            connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+            final int updated = connection.prepareStatement(UPDATE).executeUpdate();
+            connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.atlassian.db.replica.benchmark;
+
+import com.atlassian.db.replica.api.DualConnection;
+import com.atlassian.db.replica.api.SqlCall;
+import com.atlassian.db.replica.api.mocks.NoOpConnectionProvider;
+import com.atlassian.db.replica.api.mocks.NoOpResultSet;
+import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.spi.DatabaseCall;
+import com.atlassian.db.replica.spi.ResultSetObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static com.atlassian.db.replica.api.Queries.LARGE_SQL_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+
+/**
+ * Measures the cost of reading a row of results, with and without a {@link ResultSetObserver}.
+ * The difference between the two is the per-row overhead of observing results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetObserverBenchmark {
+    private static final int ROWS = 10_000;
+
+    private Connection plain;
+    private Connection observed;
+
+    @Setup
+    public void setUp() throws SQLException {
+        plain = DualConnection.builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .circuitBreaker(null)
+            .databaseCall(new RowsCall(null))
+            .build();
+        observed = DualConnection.builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .circuitBreaker(null)
+            .databaseCall(new RowsCall((rows, timeToFirstRow, timeToLastRow) -> {
+            }))
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        plain.close();
+        observed.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void readRows(Blackhole blackhole) throws SQLException {
+        read(plain, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void readObservedRows(Blackhole blackhole) throws SQLException {
+        read(observed, blackhole);
+    }
+
+    private static void read(Connection connection, Blackhole blackhole) throws SQLException {
+        try (ResultSet results = connection.prepareStatement(LARGE_SQL_QUERY).executeQuery()) {
+            while (results.next()) {
+                blackhole.consume(results.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Replaces query results with {@link #ROWS} rows.
+     */
+    private static final class RowsCall implements DatabaseCall {
+        private final ResultSetObserver observer;
+
+        private RowsCall(ResultSetObserver observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T call(SqlCall<T> call, RouteDecision decision) throws SQLException {
+            final T result = call.call();
+            return result instanceof ResultSet ? (T) new Rows() : result;
+        }
+
+        @Override
+        public ResultSetObserver observeResults(RouteDecision decision) {
+            return observer;
+        }
+    }
+
+    private static final class Rows extends NoOpResultSet {
+        private int row = 0;
+
+        @Override
+        public boolean next() {
+            return row++ < ROWS;
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            return row;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.internal.RuleMatcher;
+import com.atlassian.db.replica.internal.SqlFunction;
+import com.atlassian.db.replica.internal.SqlQuery;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.atlassian.db.replica.api.state.State.NOT_INITIALISED;
+
+/**
+ * Runs queries asynchronously, each on its own {@link DualConnection}, so they are routed exactly like blocking calls.
+ * <p>
+ * Queries, which can run on a replica, use the replica executor. Writes and reads, which must run on main, use
+ * the main executor. A read is routed to main by its SQL, hints and rules up front. A read, which the consistency
+ * sends to main, moves to the main executor, once its connection has decided so. Bound both executors, so a slow
+ * replica can't take the threads needed for the main database. A query rejected by its executor fails.
+ */
+@ThreadSafe
+public final class AsyncQueries {
+    private final DualConnection.Builder connections;
+    private final SqlFunction sqlFunction;
+    private final RuleMatcher ruleMatcher;
+    private final Executor mainExecutor;
+    private final Executor replicaExecutor;
+
+    private AsyncQueries(DualConnection.Builder connections, Executor mainExecutor, Executor replicaExecutor) {
+        this.connections = connections;
+        this.sqlFunction = connections.getSqlFunction();
+        this.ruleMatcher = connections.getRuleMatcher();
+        this.mainExecutor = mainExecutor;
+        this.replicaExecutor = replicaExecutor;
+    }
+
+    /**
+     * @param connections     configures the connections, don't change it afterwards
+     * @param mainExecutor    runs queries, which must run on main
+     * @param replicaExecutor runs queries, which can run on a replica
+     */
+    public static AsyncQueries create(
+        DualConnection.Builder connections,
+        Executor mainExecutor,
+        Executor replicaExecutor
+    ) {
+        return new AsyncQueries(connections, mainExecutor, replicaExecutor);
+    }
+
+    /**
+     * @param sql        runs via {@link PreparedStatement#executeQuery()}
+     * @param parameters sets parameters of the statement
+     * @param results    reads the results, before they are closed
+     */
+    public <T> CompletableFuture<T> query(String sql, Parameters parameters, Results<T> results) {
+        if (mustRunOnMain(sql)) {
+            return submit(mainExecutor, () -> {
+                try (Connection connection = connections.build()) {
+                    return read(connection, sql, parameters, results);
+                }
+            });
+        }
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        execute(replicaExecutor, future, () -> readOnReplica(future, sql, parameters, results));
+        return future;
+    }
+
+    private boolean mustRunOnMain(String sql) {
+        final SqlQuery query = new SqlQuery(sql);
+        if (query.mustRunOnMain(sqlFunction)) {
+            return true;
+        }
+        if (ruleMatcher == null) {
+            return false;
+        }
+        final RoutingRule rule = ruleMatcher.match(query, NOT_INITIALISED);
+        return rule != null && rule.isRunOnMain();
+    }
+
+    /**
+     * Runs the read on the replica executor, unless its connection routes it to main. Then the read moves to
+     * the main executor, which closes the connection.
+     */
+    private <T> void readOnReplica(CompletableFuture<T> future, String sql, Parameters parameters, Results<T> results) {
+        Connection built = null;
+        final boolean onMain;
+        try {
+            built = connections.build();
+            onMain = isReadOnMain(built, sql);
+        } catch (Throwable e) {
+            closeQuietly(built, e);
+            future.completeExceptionally(e);
+            return;
+        }
+        final Connection connection = built;
+        final SqlCall<T> read = () -> {
+            try (Connection routed = connection) {
+                return read(routed, sql, parameters, results);
+            }
+        };
+        if (!onMain) {
+            complete(future, read);
+        } else if (!execute(mainExecutor, future, () -> complete(future, read))) {
+            closeQuietly(connection, null);
+        }
+    }
+
+    /**
+     * Lets the connection route the read, e.g. check the consistency of the replica.
+     * A connection, which isn't dual, e.g. when the circuit breaker is open, runs on main.
+     */
+    private static boolean isReadOnMain(Connection connection, String sql) throws SQLException {
+        if (!connection.isWrapperFor(DualConnection.class)) {
+            return true;
+        }
+        return connection.unwrap(DualConnection.class).routeRead(sql);
+    }
+
+    private static <T> T read(
+        Connection connection,
+        String sql,
+        Parameters parameters,
+        Results<T> results
+    ) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            parameters.set(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return results.read(resultSet);
+            }
+        }
+    }
+
+    /**
+     * @param sql        runs via {@link PreparedStatement#executeLargeUpdate()}
+     * @param parameters sets parameters of the statement
+     * @return the number of updated rows
+     */
+    public CompletableFuture<Long> update(String sql, Parameters parameters) {
+        return submit(mainExecutor, () -> {
+            try (Connection connection = connections.build();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                parameters.set(statement);
+                return statement.executeLargeUpdate();
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> submit(Executor executor, SqlCall<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        execute(executor, future, () -> complete(future, call));
+        return future;
+    }
+
+    /**
+     * @return false if the executor rejected the task, which fails the future
+     */
+    private static boolean execute(Executor executor, CompletableFuture<?> future, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, SqlCall<T> call) {
+        try {
+            future.complete(call.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection, Throwable failure) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (Throwable e) {
+            if (failure != null) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    public interface Parameters {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+
+    public interface Results<T> {
+        T read(ResultSet resultSet) throws SQLException;
+    }
+}
@@ -0,0 +1,111 @@
+package com.atlassian.db.replica.api;
+
+import java.sql.Connection;
+import java.util.Optional;
+
+/**
+ * Describes connections provided by a connection pool, before they are configured.
+ * Connection parameters equal to the defaults aren't set at all. Parameters without a declared default are always set,
+ * because reading them from the connection can cost a round trip to the database.
+ */
+public final class ConnectionDefaults {
+    private final Boolean autoCommit;
+    private final Integer transactionIsolation;
+    private final String catalog;
+    private final Integer holdability;
+    private final Boolean readOnly;
+
+    private ConnectionDefaults(
+        Boolean autoCommit,
+        Integer transactionIsolation,
+        String catalog,
+        Integer holdability,
+        Boolean readOnly
+    ) {
+        this.autoCommit = autoCommit;
+        this.transactionIsolation = transactionIsolation;
+        this.catalog = catalog;
+        this.holdability = holdability;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @return defaults, which aren't known, so every parameter set on the {@link DualConnection} is set on each
+     * connection
+     */
+    public static ConnectionDefaults unknown() {
+        return new Builder().build();
+    }
+
+    public Optional<Boolean> getAutoCommit() {
+        return Optional.ofNullable(autoCommit);
+    }
+
+    public Optional<Integer> getTransactionIsolation() {
+        return Optional.ofNullable(transactionIsolation);
+    }
+
+    public Optional<String> getCatalog() {
+        return Optional.ofNullable(catalog);
+    }
+
+    public Optional<Integer> getHoldability() {
+        return Optional.ofNullable(holdability);
+    }
+
+    public Optional<Boolean> getReadOnly() {
+        return Optional.ofNullable(readOnly);
+    }
+
+    public static class Builder {
+        private Boolean autoCommit;
+        private Integer transactionIsolation;
+        private String catalog;
+        private Integer holdability;
+        private Boolean readOnly;
+
+        /**
+         * @param autoCommit as in {@link Connection#getAutoCommit()}
+         */
+        public Builder autoCommit(boolean autoCommit) {
+            this.autoCommit = autoCommit;
+            return this;
+        }
+
+        /**
+         * @param transactionIsolation as in {@link Connection#getTransactionIsolation()}
+         */
+        public Builder transactionIsolation(int transactionIsolation) {
+            this.transactionIsolation = transactionIsolation;
+            return this;
+        }
+
+        /**
+         * @param catalog as in {@link Connection#getCatalog()}
+         */
+        public Builder catalog(String catalog) {
+            this.catalog = catalog;
+            return this;
+        }
+
+        /**
+         * @param holdability as in {@link Connection#getHoldability()}
+         */
+        public Builder holdability(int holdability) {
+            this.holdability = holdability;
+            return this;
+        }
+
+        /**
+         * @param readOnly as in {@link Connection#isReadOnly()}
+         */
+        public Builder readOnly(boolean readOnly) {
+            this.readOnly = readOnly;
+            return this;
+        }
+
+        public ConnectionDefaults build() {
+            return new ConnectionDefaults(autoCommit, transactionIsolation, catalog, holdability, readOnly);
+        }
+    }
+}
@@ -3,13 +3,19 @@ package com.atlassian.db.replica.api;
 import com.atlassian.db.replica.api.circuitbreaker.BreakerState;
 import com.atlassian.db.replica.api.reason.Reason;
 import com.atlassian.db.replica.api.state.NoOpStateListener;
+import com.atlassian.db.replica.internal.BatchChunking;
 import com.atlassian.db.replica.internal.ForwardCall;
 import com.atlassian.db.replica.internal.ReadReplicaUnsupportedOperationException;
+import com.atlassian.db.replica.internal.RecyclingPool;
 import com.atlassian.db.replica.internal.ReplicaCallableStatement;
 import com.atlassian.db.replica.internal.ReplicaConnectionProvider;
 import com.atlassian.db.replica.internal.ReplicaPreparedStatement;
 import com.atlassian.db.replica.internal.ReplicaStatement;
 import com.atlassian.db.replica.internal.RouteDecisionBuilder;
+import com.atlassian.db.replica.internal.RuleMatcher;
+import com.atlassian.db.replica.internal.SqlFunction;
+import com.atlassian.db.replica.internal.WriteTracker;
+import com.atlassian.db.replica.internal.cache.CacheSession;
 import com.atlassian.db.replica.internal.circuitbreaker.BreakOnNotSupportedOperations;
 import com.atlassian.db.replica.internal.circuitbreaker.BreakerConnection;
 import com.atlassian.db.replica.internal.circuitbreaker.BreakerHandler;
@@ -40,7 +46,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 import java.util.concurrent.Executor;
 
 /**
@@ -53,28 +58,70 @@ public final class DualConnection implements Connection {
     private final ReplicaConnectionProvider connectionProvider;
     private final ReplicaConsistency consistency;
     private final DatabaseCall databaseCall;
-    private final Set<String> readOnlyFunctions;
+    private final SqlFunction sqlFunction;
     private final boolean compatibleWithPreviousVersion;
+    private final CacheSession cacheSession;
+    private final RecyclingPool<DualConnection> pool;
+    private boolean closed = false;
 
     private DualConnection(
         ConnectionProvider connectionProvider,
         ReplicaConsistency consistency,
         DatabaseCall databaseCall,
         StateListener stateListener,
-        Set<String> readOnlyFunctions,
-        boolean compatibleWithPreviousVersion
+        SqlFunction sqlFunction,
+        boolean compatibleWithPreviousVersion,
+        ResultCache resultCache,
+        boolean parkReplicaConnection,
+        ConnectionDefaults connectionDefaults,
+        Executor prefetchExecutor,
+        HedgedReads hedgedReads,
+        BatchChunking batchChunking,
+        RoutingRules routingRules,
+        RecyclingPool<DualConnection> pool
     ) {
-        this.connectionProvider = new ReplicaConnectionProvider(connectionProvider, consistency, stateListener);
-        this.consistency = consistency;
+        this.cacheSession = resultCache == null
+            ? CacheSession.disabled()
+            : new CacheSession(resultCache.getQueryCache());
+        final WriteTracker writeTracker = new WriteTracker(cacheSession.bypassInvalidation(consistency), cacheSession);
+        this.consistency = writeTracker.getConsistency();
+        this.connectionProvider = new ReplicaConnectionProvider(
+            connectionProvider,
+            this.consistency,
+            stateListener,
+            writeTracker,
+            parkReplicaConnection,
+            connectionDefaults,
+            prefetchExecutor,
+            hedgedReads == null ? null : hedgedReads.getReadHedging(),
+            batchChunking,
+            routingRules == null ? null : routingRules.getRuleMatcher()
+        );
         this.databaseCall = databaseCall;
-        this.readOnlyFunctions = readOnlyFunctions;
+        this.sqlFunction = sqlFunction;
         this.compatibleWithPreviousVersion = compatibleWithPreviousVersion;
+        this.pool = pool;
+    }
+
+    /**
+     * Hands out the state of a closed connection to a new client. The closed handle stays closed, so its client
+     * can't reach the connections of the new one.
+     */
+    private DualConnection(DualConnection recycled) {
+        this.connectionProvider = recycled.connectionProvider;
+        this.consistency = recycled.consistency;
+        this.databaseCall = recycled.databaseCall;
+        this.sqlFunction = recycled.sqlFunction;
+        this.compatibleWithPreviousVersion = recycled.compatibleWithPreviousVersion;
+        this.cacheSession = recycled.cacheSession;
+        this.pool = recycled.pool;
+        connectionProvider.reopen();
     }
 
     @Override
     public Statement createStatement() throws SQLException {
         checkClosed();
-        return ReplicaStatement.builder(connectionProvider, consistency, databaseCall, readOnlyFunctions, compatibleWithPreviousVersion).build();
+        return ReplicaStatement.builder(connectionProvider, consistency, databaseCall, sqlFunction, compatibleWithPreviousVersion).build();
     }
 
     @Override
@@ -85,8 +132,9 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).build();
     }
 
@@ -98,8 +146,9 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).build();
     }
 
@@ -136,12 +185,19 @@ public final class DualConnection implements Connection {
 
     @Override
     public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
         connectionProvider.close();
+        if (pool != null) {
+            pool.release(this);
+        }
     }
 
     @Override
     public boolean isClosed() {
-        return connectionProvider.isClosed();
+        return closed;
     }
 
     @Override
@@ -203,7 +259,7 @@ public final class DualConnection implements Connection {
     public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
         checkClosed();
         return ReplicaStatement
-            .builder(connectionProvider, consistency, databaseCall, readOnlyFunctions, compatibleWithPreviousVersion)
+            .builder(connectionProvider, consistency, databaseCall, sqlFunction, compatibleWithPreviousVersion)
             .resultSetType(resultSetType)
             .resultSetConcurrency(resultSetConcurrency)
             .build();
@@ -221,8 +277,9 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).resultSetType(resultSetType)
             .resultSetConcurrency(resultSetConcurrency)
             .build();
@@ -232,7 +289,7 @@ public final class DualConnection implements Connection {
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
         checkClosed();
         return new ReplicaCallableStatement
-            .Builder(connectionProvider, consistency, databaseCall, sql, readOnlyFunctions, compatibleWithPreviousVersion)
+            .Builder(connectionProvider, consistency, databaseCall, sql, sqlFunction, compatibleWithPreviousVersion, cacheSession)
             .resultSetType(resultSetType)
             .resultSetConcurrency(resultSetConcurrency)
             .build();
@@ -293,7 +350,7 @@ public final class DualConnection implements Connection {
         int resultSetHoldability
     ) throws SQLException {
         checkClosed();
-        return ReplicaStatement.builder(connectionProvider, consistency, databaseCall, readOnlyFunctions, compatibleWithPreviousVersion)
+        return ReplicaStatement.builder(connectionProvider, consistency, databaseCall, sqlFunction, compatibleWithPreviousVersion)
             .resultSetType(resultSetType)
             .resultSetConcurrency(resultSetConcurrency)
             .resultSetHoldability(resultSetHoldability)
@@ -313,8 +370,9 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).resultSetType(resultSetType)
             .resultSetConcurrency(resultSetConcurrency)
             .resultSetHoldability(resultSetHoldability)
@@ -330,7 +388,7 @@ public final class DualConnection implements Connection {
     ) throws SQLException {
         checkClosed();
         return new ReplicaCallableStatement
-            .Builder(connectionProvider, consistency, databaseCall, sql, readOnlyFunctions, compatibleWithPreviousVersion)
+            .Builder(connectionProvider, consistency, databaseCall, sql, sqlFunction, compatibleWithPreviousVersion, cacheSession)
             .resultSetType(resultSetType)
             .resultSetConcurrency(resultSetConcurrency)
             .resultSetHoldability(resultSetHoldability)
@@ -345,8 +403,9 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).autoGeneratedKeys(autoGeneratedKeys)
             .build();
     }
@@ -359,8 +418,9 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).columnIndexes(columnIndexes)
             .build();
     }
@@ -373,12 +433,47 @@ public final class DualConnection implements Connection {
             consistency,
             databaseCall,
             sql,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
         ).columnNames(columnNames)
             .build();
     }
 
+    /**
+     * Prepares a large read, which streams its results from the replica, so they don't have to fit in memory.
+     * The results can only be read forward. In the auto-commit mode, the replica connection runs a read-only
+     * transaction, which lets drivers fetch with a cursor, e.g. PostgreSQL. The transaction ends when the statement
+     * is closed, the connection moves to the main database or its transaction mode changes.
+     * Streamed reads are neither cached nor hedged.
+     * Reach the method through {@link Connection#unwrap(Class)}.
+     *
+     * @param fetchSize the number of rows fetched at a time
+     */
+    public PreparedStatement prepareStreamingStatement(String sql, int fetchSize) throws SQLException {
+        checkClosed();
+        return new ReplicaPreparedStatement.Builder(
+            connectionProvider,
+            consistency,
+            databaseCall,
+            sql,
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession
+        ).streaming(fetchSize)
+            .build();
+    }
+
+    /**
+     * Routes the next read of the SQL ahead of it, so the caller can run it next to the chosen database.
+     *
+     * @return true if the read runs on main
+     */
+    boolean routeRead(String sql) throws SQLException {
+        checkClosed();
+        return connectionProvider.routeRead(sql);
+    }
+
     @Override
     public Clob createClob() throws SQLException {
         checkClosed();
@@ -520,9 +615,18 @@ public final class DualConnection implements Connection {
         private final ReplicaConsistency consistency;
         private DatabaseCall databaseCall = new ForwardCall();
         private CircuitBreaker circuitBreaker = new BreakOnNotSupportedOperations();
+        private BreakerHandler breakerHandler = new BreakerHandler(circuitBreaker);
         private StateListener stateListener = new NoOpStateListener();
-        private Set<String> readOnlyFunctions = new HashSet<>();
+        private SqlFunction sqlFunction = new SqlFunction(new HashSet<>());
         private boolean compatibleWithPreviousVersion = false;
+        private ResultCache resultCache = null;
+        private boolean parkReplicaConnection = false;
+        private ConnectionDefaults connectionDefaults = ConnectionDefaults.unknown();
+        private Executor prefetchExecutor = null;
+        private HedgedReads hedgedReads = null;
+        private BatchChunking batchChunking = null;
+        private RoutingRules routingRules = null;
+        private RecyclingPool<DualConnection> pool = null;
 
         private Builder(
             ConnectionProvider connectionProvider,
@@ -532,13 +636,36 @@ public final class DualConnection implements Connection {
             this.consistency = consistency;
         }
 
+        /**
+         * @return a builder with the same configuration, which isn't affected by later changes of this builder.
+         * Recycled connections aren't shared with this builder.
+         */
+        Builder copy() {
+            final Builder copy = new Builder(connectionProvider, consistency);
+            copy.databaseCall = databaseCall;
+            copy.circuitBreaker = circuitBreaker;
+            copy.breakerHandler = breakerHandler;
+            copy.stateListener = stateListener;
+            copy.sqlFunction = sqlFunction;
+            copy.compatibleWithPreviousVersion = compatibleWithPreviousVersion;
+            copy.resultCache = resultCache;
+            copy.parkReplicaConnection = parkReplicaConnection;
+            copy.connectionDefaults = connectionDefaults;
+            copy.prefetchExecutor = prefetchExecutor;
+            copy.hedgedReads = hedgedReads;
+            copy.batchChunking = batchChunking;
+            copy.routingRules = routingRules;
+            copy.pool = pool == null ? null : new RecyclingPool<>(pool.getMaxIdle());
+            return copy;
+        }
+
         /**
          * Register SQL functions as read-only. It allows utilising replica if the function is invoked.
          *
          * @param functions a collection of read-only function names.
          */
         public DualConnection.Builder readOnlyFunctions(Collection<String> functions) {
-            this.readOnlyFunctions = new HashSet<>(functions);
+            this.sqlFunction = new SqlFunction(new HashSet<>(functions));
             return this;
         }
 
@@ -549,6 +676,7 @@ public final class DualConnection implements Connection {
 
         public DualConnection.Builder circuitBreaker(CircuitBreaker circuitBreaker) {
             this.circuitBreaker = circuitBreaker;
+            this.breakerHandler = circuitBreaker == null ? null : new BreakerHandler(circuitBreaker);
             return this;
         }
 
@@ -570,30 +698,134 @@ public final class DualConnection implements Connection {
             return this;
         }
 
+        /**
+         * Serves repeated queries from the cache.
+         *
+         * @param resultCache shared by all connections
+         */
+        public DualConnection.Builder resultCache(ResultCache resultCache) {
+            this.resultCache = resultCache;
+            return this;
+        }
+
+        /**
+         * Keeps the replica connection while the main connection is in use, instead of releasing it. Going back to
+         * the replica after a commit doesn't need another connection from the pool then. The cost is holding
+         * two connections for longer.
+         */
+        public DualConnection.Builder parkReplicaConnection() {
+            this.parkReplicaConnection = true;
+            return this;
+        }
+
+        /**
+         * Skips reading the known parameters of provided connections.
+         *
+         * @param connectionDefaults parameters of connections as provided by the {@link ConnectionProvider}
+         */
+        public DualConnection.Builder connectionDefaults(ConnectionDefaults connectionDefaults) {
+            this.connectionDefaults = connectionDefaults;
+            return this;
+        }
+
+        /**
+         * Acquires the main connection in parallel with the replica connection. Use it for connections, which are
+         * going to both read and write, so the first write doesn't wait for the pool. The main connection is
+         * released on close if it's not used.
+         *
+         * @param executor acquires the main connection
+         */
+        public DualConnection.Builder prefetchMainConnection(Executor executor) {
+            this.prefetchExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Runs latency-critical reads on the main database too, if the replica is slow.
+         *
+         * @param hedgedReads shared by all connections
+         */
+        public DualConnection.Builder hedgedReads(HedgedReads hedgedReads) {
+            this.hedgedReads = hedgedReads;
+            return this;
+        }
+
+        /**
+         * Executes large batches in chunks, while the application is still adding rows, so neither the JVM
+         * nor the driver holds the whole batch. {@link Statement#executeBatch()} returns the update counts
+         * of all chunks. Executed chunks are not dropped by {@link Statement#clearBatch()}, so run batches
+         * in a transaction to be able to roll them back.
+         *
+         * @param maxRows  the maximum number of rows in a chunk
+         * @param maxBytes the maximum estimated size of parameters in a chunk
+         */
+        public DualConnection.Builder chunkBatches(int maxRows, long maxBytes) {
+            this.batchChunking = new BatchChunking(maxRows, maxBytes);
+            return this;
+        }
+
+        /**
+         * Routes reads matching the rules according to them.
+         *
+         * @param routingRules shared by all connections
+         */
+        public DualConnection.Builder routingRules(RoutingRules routingRules) {
+            this.routingRules = routingRules;
+            return this;
+        }
+
+        /**
+         * Reuses the state of closed connections instead of creating new ones. Each {@link #build()} returns a new
+         * handle, so a closed connection stays closed. Configure the builder before building connections.
+         *
+         * @param maxIdle the maximum number of closed connections kept for reuse
+         */
+        public DualConnection.Builder recycleConnections(int maxIdle) {
+            this.pool = new RecyclingPool<>(maxIdle);
+            return this;
+        }
+
+        SqlFunction getSqlFunction() {
+            return sqlFunction;
+        }
+
+        RuleMatcher getRuleMatcher() {
+            return routingRules == null ? null : routingRules.getRuleMatcher();
+        }
+
         public Connection build() throws SQLException {
             if (circuitBreaker == null) {
-                return new DualConnection(
-                    connectionProvider,
-                    consistency,
-                    databaseCall,
-                    stateListener,
-                    readOnlyFunctions,
-                    compatibleWithPreviousVersion
-                );
+                return dualConnection();
             }
             if (circuitBreaker.getState().equals(BreakerState.OPEN)) {
                 return connectionProvider.getMainConnection();
             }
-            final BreakerHandler breakerHandler = new BreakerHandler(circuitBreaker);
-            final DualConnection dualConnection = new DualConnection(
+            return new BreakerConnection(dualConnection(), breakerHandler);
+        }
+
+        private DualConnection dualConnection() {
+            if (pool != null) {
+                final DualConnection recycled = pool.acquire();
+                if (recycled != null) {
+                    return new DualConnection(recycled);
+                }
+            }
+            return new DualConnection(
                 connectionProvider,
                 consistency,
                 databaseCall,
                 stateListener,
-                readOnlyFunctions,
-                compatibleWithPreviousVersion
+                sqlFunction,
+                compatibleWithPreviousVersion,
+                resultCache,
+                parkReplicaConnection,
+                connectionDefaults,
+                prefetchExecutor,
+                hedgedReads,
+                batchChunking,
+                routingRules,
+                pool
             );
-            return new BreakerConnection(dualConnection, breakerHandler);
         }
     }
 
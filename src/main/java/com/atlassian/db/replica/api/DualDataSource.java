@@ -0,0 +1,111 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.internal.DataSourceConnectionProvider;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Provides {@link DualConnection}s to the main and replica databases.
+ * The connections share the configuration, which is prepared once, instead of for every connection.
+ */
+@ThreadSafe
+public final class DualDataSource implements DataSource {
+    private final DataSource main;
+    private final DualConnection.Builder connections;
+
+    private DualDataSource(DataSource main, DualConnection.Builder connections) {
+        this.main = main;
+        this.connections = connections;
+    }
+
+    /**
+     * @param main        connects to the main database
+     * @param replica     connects to a replica database or null if there's no replica
+     * @param consistency is shared by all the connections
+     */
+    public static Builder builder(DataSource main, DataSource replica, ReplicaConsistency consistency) {
+        return new Builder(main, replica, consistency);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connections.build();
+    }
+
+    /**
+     * Credentials are a part of the configuration of main and replica data sources.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return main.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        main.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        main.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return main.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return main.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return main.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || main.isWrapperFor(iface);
+    }
+
+    public static class Builder {
+        private final DataSource main;
+        private final DualConnection.Builder connections;
+
+        private Builder(DataSource main, DataSource replica, ReplicaConsistency consistency) {
+            this.main = main;
+            this.connections = DualConnection.builder(new DataSourceConnectionProvider(main, replica), consistency);
+        }
+
+        /**
+         * @param configuration configures all the connections, e.g. registers read-only functions. It doesn't affect
+         *                      data sources, which are already built.
+         */
+        public Builder connections(Consumer<DualConnection.Builder> configuration) {
+            configuration.accept(connections);
+            return this;
+        }
+
+        public DualDataSource build() {
+            return new DualDataSource(main, connections.copy());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.atlassian.db.replica.api;
+
+import java.time.Duration;
+
+/**
+ * Extends statements created by {@link DualConnection}. Reach it via {@link java.sql.Statement#unwrap(Class)}.
+ */
+public interface DualStatement {
+
+    /**
+     * Lets reads of the statement use the replica even if it doesn't see the latest writes yet,
+     * as long as the {@link com.atlassian.db.replica.spi.ReplicaConsistency} can tell the replica is not staler
+     * than the given duration.
+     *
+     * @param maxStaleness how far the replica can fall behind main, or null if reads have to be consistent
+     */
+    void setMaxStaleness(Duration maxStaleness);
+
+    /**
+     * @return how far the replica can fall behind main for reads of the statement, or null if they have to be consistent
+     */
+    Duration getMaxStaleness();
+}
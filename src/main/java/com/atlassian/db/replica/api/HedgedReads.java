@@ -0,0 +1,120 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.internal.hedge.ReadHedging;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs selected latency-critical reads on the main database too, if the replica is slower than usual.
+ * The first results win and the other query is cancelled via {@link java.sql.Statement#cancel()}.
+ * It trades some capacity of the main database for a shorter tail latency.
+ * <p>
+ * Only {@link java.sql.Statement#executeQuery(String)} and {@link java.sql.PreparedStatement#executeQuery()} routed
+ * to the replica in the auto-commit mode are hedged. The hedge uses an additional main connection, which is released
+ * when the statement is closed or executed again.
+ * <p>
+ * Share a single instance between all {@link DualConnection}s.
+ */
+@ThreadSafe
+public final class HedgedReads {
+    private final ReadHedging readHedging;
+
+    private HedgedReads(ReadHedging readHedging) {
+        this.readHedging = readHedging;
+    }
+
+    /**
+     * @return how many queries could be hedged
+     */
+    public long getReads() {
+        return readHedging.getReads();
+    }
+
+    /**
+     * @return how many queries ran on the main database too
+     */
+    public long getHedges() {
+        return readHedging.getHedges();
+    }
+
+    /**
+     * @return how many hedged queries got results from the main database first
+     */
+    public long getMainWins() {
+        return readHedging.getMainWins();
+    }
+
+    /**
+     * @return how many slow queries were not hedged, because of the {@link Builder#maxHedgeRate(double)}
+     */
+    public long getSkippedHedges() {
+        return readHedging.getSkippedHedges();
+    }
+
+    /**
+     * @return how long a replica query runs before it's hedged
+     */
+    public Duration getDelay() {
+        return readHedging.getDelay();
+    }
+
+    ReadHedging getReadHedging() {
+        return readHedging;
+    }
+
+    public static class Builder {
+        private final Executor executor;
+        private Set<String> queries = new HashSet<>();
+        private double percentile = 0.95;
+        private Duration initialDelay = Duration.ofMillis(50);
+        private double maxHedgeRate = 0.05;
+
+        /**
+         * @param executor runs the queries, at least two for every hedged query
+         */
+        public Builder(Executor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * @param queries SQL of latency-critical queries, differences in whitespace are ignored
+         */
+        public Builder hedgeQueries(Collection<String> queries) {
+            this.queries = new HashSet<>(queries);
+            return this;
+        }
+
+        /**
+         * @param percentile of recent replica latencies, which a query has to exceed to be hedged, e.g. 0.95
+         */
+        public Builder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param initialDelay used until enough replica latencies are known
+         */
+        public Builder initialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        /**
+         * @param maxHedgeRate the maximum fraction of queries, which also run on the main database, e.g. 0.05
+         */
+        public Builder maxHedgeRate(double maxHedgeRate) {
+            this.maxHedgeRate = maxHedgeRate;
+            return this;
+        }
+
+        public HedgedReads build() {
+            return new HedgedReads(new ReadHedging(queries, executor, percentile, initialDelay, maxHedgeRate));
+        }
+    }
+}
@@ -75,6 +75,15 @@ public class PessimisticPropagationConsistency implements ReplicaConsistency {
         return assumedRefresh.isAfter(assumedWrite);
     }
 
+    /**
+     * The replica never falls behind by more than the max propagation. Within it, the replica can miss any write
+     * since the last known propagated one, so less staleness is tolerated only if there were no writes in the meantime.
+     */
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica, Duration maxStaleness) {
+        return maxStaleness.compareTo(maxPropagation) >= 0 || isConsistent(replica);
+    }
+
     /**
      * @return assumed time of last replica refresh
      */
@@ -0,0 +1,115 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.internal.cache.InvalidatingConsistency;
+import com.atlassian.db.replica.internal.cache.QueryCache;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps results of selected queries in memory, so repeated reads don't hit the database.
+ * Meant for small tables, which are read often and written rarely, e.g. configuration or permissions.
+ * <p>
+ * Only results of {@link java.sql.PreparedStatement#executeQuery()} routed to the replica are cached.
+ * Writes done via {@link DualConnection}s sharing the cache invalidate the results of tables they write to.
+ * Writes done in other ways, e.g. by other JVMs, invalidate the results once they are reported to the consistency
+ * returned by {@link #invalidateOnWrite(ReplicaConsistency)}.
+ * <p>
+ * Share a single instance between all {@link DualConnection}s.
+ */
+@ThreadSafe
+public final class ResultCache {
+    private final QueryCache queryCache;
+
+    private ResultCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * @return how many queries were served from the cache
+     */
+    public long getHits() {
+        return queryCache.getHits();
+    }
+
+    /**
+     * @return how many cacheable queries had to run on the database
+     */
+    public long getMisses() {
+        return queryCache.getMisses();
+    }
+
+    /**
+     * @return how many results were dropped to fit in the size limit
+     */
+    public long getEvictions() {
+        return queryCache.getEvictions();
+    }
+
+    /**
+     * @return how many results were dropped because of writes
+     */
+    public long getInvalidations() {
+        return queryCache.getInvalidations();
+    }
+
+    /**
+     * @return estimated number of bytes held by the cache
+     */
+    public long getSize() {
+        return queryCache.getSize();
+    }
+
+    /**
+     * Drops all the results, e.g. after the tables were changed outside of {@link DualConnection}s.
+     */
+    public void invalidateAll() {
+        queryCache.invalidateAll();
+    }
+
+    /**
+     * Lets the consistency invalidate the results whenever it's informed about a write.
+     * {@link ReplicaConsistency#write} invalidates all the results and
+     * {@link TableAwareReplicaConsistency#write(java.sql.Connection, Set)} the results of the written tables.
+     * Pass it to the {@link DualConnection}s sharing the cache and report writes done in other ways to it.
+     *
+     * @param consistency informed about writes after the results are invalidated
+     * @return a consistency, which is table-aware if {@code consistency} is
+     */
+    public ReplicaConsistency invalidateOnWrite(ReplicaConsistency consistency) {
+        return InvalidatingConsistency.wrap(queryCache, consistency);
+    }
+
+    QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public static class Builder {
+        private Set<String> queries = new HashSet<>();
+        private long maxSize = 16 * 1024 * 1024;
+
+        /**
+         * @param queries SQL of queries worth caching, differences in whitespace are ignored
+         */
+        public Builder cacheQueries(Collection<String> queries) {
+            this.queries = new HashSet<>(queries);
+            return this;
+        }
+
+        /**
+         * @param maxSize how many bytes of results to keep, estimated
+         */
+        public Builder maxSize(long maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public ResultCache build() {
+            return new ResultCache(new QueryCache(queries, maxSize));
+        }
+    }
+}
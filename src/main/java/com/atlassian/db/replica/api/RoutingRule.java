@@ -0,0 +1,209 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.state.State;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides where reads go, if they read given tables, call given functions or run given queries.
+ * Reads are queries, which could run on the replica. Writes, locks and transactions on main are not affected.
+ * A rule matches a read of one of its tables, functions or queries, if it has any, of one of its statement kinds,
+ * if it has any, in one of its connection states, if it has any. A rule without conditions matches all reads.
+ */
+public final class RoutingRule {
+    private final String name;
+    private final Set<String> tables;
+    private final Set<String> functions;
+    private final Set<String> queries;
+    private final Set<StatementKind> kinds;
+    private final Set<State> states;
+    private final boolean isRunOnMain;
+    private final Duration maxStaleness;
+
+    private RoutingRule(
+        String name,
+        Set<String> tables,
+        Set<String> functions,
+        Set<String> queries,
+        Set<StatementKind> kinds,
+        Set<State> states,
+        boolean isRunOnMain,
+        Duration maxStaleness
+    ) {
+        this.name = name;
+        this.tables = tables;
+        this.functions = functions;
+        this.queries = queries;
+        this.kinds = kinds;
+        this.states = states;
+        this.isRunOnMain = isRunOnMain;
+        this.maxStaleness = maxStaleness;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return lower-cased table names, a name ending with {@code *} matches any table starting with it
+     */
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * @return lower-cased function names
+     */
+    public Set<String> getFunctions() {
+        return functions;
+    }
+
+    /**
+     * @return SQL of matched queries
+     */
+    public Set<String> getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return kinds of matched statements, all kinds if empty
+     */
+    public Set<StatementKind> getStatementKinds() {
+        return kinds;
+    }
+
+    /**
+     * @return states of the connection, in which the rule matches, all states if empty
+     */
+    public Set<State> getStates() {
+        return states;
+    }
+
+    /**
+     * @return true if the matched reads run on main
+     */
+    public boolean isRunOnMain() {
+        return isRunOnMain;
+    }
+
+    /**
+     * @return how far the replica can fall behind main for the matched reads, or null if they have to be consistent
+     */
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingRule{" +
+            "name='" + name + '\'' +
+            ", isRunOnMain=" + isRunOnMain +
+            ", maxStaleness=" + maxStaleness +
+            '}';
+    }
+
+    public static class Builder {
+        private final String name;
+        private Set<String> tables = Collections.emptySet();
+        private Set<String> functions = Collections.emptySet();
+        private Set<String> queries = Collections.emptySet();
+        private Set<StatementKind> kinds = Collections.emptySet();
+        private Set<State> states = Collections.emptySet();
+        private boolean isRunOnMain = false;
+        private Duration maxStaleness = null;
+
+        /**
+         * @param name reported by {@link com.atlassian.db.replica.api.reason.RouteDecision#getRule()}
+         */
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param tables names of read tables without schemas, e.g. {@code jiraissue}, or prefixes followed by
+         *               {@code *}, e.g. {@code audit_*}
+         */
+        public Builder readingTables(Collection<String> tables) {
+            this.tables = lowerCase(tables);
+            return this;
+        }
+
+        /**
+         * @param functions names of read-only functions called via {@code {call fn(?)}} or {@code SELECT fn(?)}
+         */
+        public Builder callingFunctions(Collection<String> functions) {
+            this.functions = lowerCase(functions);
+            return this;
+        }
+
+        /**
+         * @param queries SQL of queries, differences in whitespace are ignored
+         */
+        public Builder runningQueries(Collection<String> queries) {
+            this.queries = new HashSet<>(queries);
+            return this;
+        }
+
+        /**
+         * @param kinds kinds of statements, e.g. {@link StatementKind#QUERY} or {@link StatementKind#SESSION}.
+         *              Read-only function calls with the JDBC escape syntax are {@link StatementKind#UNKNOWN}.
+         */
+        public Builder runningStatements(Collection<StatementKind> kinds) {
+            this.kinds = kinds.isEmpty() ? Collections.emptySet() : EnumSet.copyOf(kinds);
+            return this;
+        }
+
+        /**
+         * @param states states of the connection before the read, e.g. {@link State#NOT_INITIALISED} or
+         *               {@link State#REPLICA}. Reads in {@link State#MAIN} reuse main without consulting rules.
+         */
+        public Builder inStates(Collection<State> states) {
+            this.states = new HashSet<>(states);
+            return this;
+        }
+
+        /**
+         * Runs the matched reads on main.
+         */
+        public Builder routeToMain() {
+            this.isRunOnMain = true;
+            this.maxStaleness = null;
+            return this;
+        }
+
+        /**
+         * Runs the matched reads on the replica only if it's consistent, regardless of the max staleness
+         * of the statement or hints. It's the default.
+         */
+        public Builder requireConsistency() {
+            this.isRunOnMain = false;
+            this.maxStaleness = null;
+            return this;
+        }
+
+        /**
+         * Runs the matched reads on the replica if it's not staler than the given duration, regardless of the max
+         * staleness of the statement or hints.
+         */
+        public Builder tolerateStaleness(Duration maxStaleness) {
+            this.isRunOnMain = false;
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
+        public RoutingRule build() {
+            return new RoutingRule(name, tables, functions, queries, kinds, states, isRunOnMain, maxStaleness);
+        }
+
+        private static Set<String> lowerCase(Collection<String> names) {
+            return names.stream().map(name -> name.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.internal.RuleMatcher;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes reads according to {@link RoutingRule}s, instead of the statement settings and hints.
+ * The first added rule matching a read decides. Rules are compiled into lookup tables once, and the rules matching
+ * a SQL are remembered for the most recently used 4096 SQL strings, so repeated queries don't pay for the matching.
+ * <p>
+ * Share a single instance between all {@link DualConnection}s.
+ */
+@ThreadSafe
+public final class RoutingRules {
+    private final RuleMatcher ruleMatcher;
+
+    private RoutingRules(RuleMatcher ruleMatcher) {
+        this.ruleMatcher = ruleMatcher;
+    }
+
+    RuleMatcher getRuleMatcher() {
+        return ruleMatcher;
+    }
+
+    public static class Builder {
+        private final List<RoutingRule> rules = new ArrayList<>();
+
+        /**
+         * @param rule takes precedence over rules added later
+         */
+        public Builder rule(RoutingRule rule) {
+            rules.add(rule);
+            return this;
+        }
+
+        public RoutingRules build() {
+            return new RoutingRules(new RuleMatcher(rules));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.atlassian.db.replica.api;
+
+/**
+ * What a SQL statement does as far as routing goes. Statements, which aren't known to leave the data intact, write.
+ */
+public enum StatementKind {
+    /**
+     * Reads data, e.g. {@code SELECT}, {@code WITH ... SELECT}, {@code VALUES}, {@code SHOW} or {@code COPY ... TO}.
+     */
+    QUERY(false),
+    /**
+     * Reads data and locks rows, e.g. {@code SELECT ... FOR UPDATE}.
+     */
+    LOCKING_QUERY(false),
+    /**
+     * Changes settings of the session, e.g. {@code SET} or {@code RESET}.
+     */
+    SESSION(false),
+    /**
+     * Changes data, e.g. {@code INSERT}, {@code MERGE}, {@code COPY ... FROM}, {@code SELECT ... INTO} or
+     * {@code WITH x AS (DELETE ... RETURNING ...) SELECT}.
+     */
+    DML(true),
+    /**
+     * Changes the schema or privileges, e.g. {@code CREATE}, {@code ALTER} or {@code GRANT}.
+     */
+    DDL(true),
+    /**
+     * Maintains the database or signals other sessions, e.g. {@code VACUUM}, {@code LOCK} or {@code NOTIFY}.
+     */
+    UTILITY(true),
+    /**
+     * Controls transactions, e.g. {@code BEGIN} or {@code COMMIT}.
+     */
+    TRANSACTION(true),
+    /**
+     * Isn't recognised, e.g. {@code PREPARE}, {@code EXECUTE}, cursor commands or function calls with the JDBC escape
+     * syntax.
+     */
+    UNKNOWN(true);
+
+    private final boolean write;
+
+    StatementKind(boolean write) {
+        this.write = write;
+    }
+
+    /**
+     * @return true if the statement must not run on a replica
+     */
+    public boolean isWrite() {
+        return write;
+    }
+}
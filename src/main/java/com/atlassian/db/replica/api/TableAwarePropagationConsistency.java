@@ -0,0 +1,133 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.internal.MonotonicMemoryCache;
+import com.atlassian.db.replica.internal.util.Comparables;
+import com.atlassian.db.replica.spi.Cache;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Assumes that writes propagate from main to replicas in at most a given amount of time.
+ * Remembers the time of last write per table, so a write to one table doesn't hold back reads of other tables.
+ * Writes of unknown tables hold back reads of all tables. Reads of unknown tables are held back by all writes.
+ * If it cannot remember the time of last write, pessimistically assumes it's going to be inconsistent.
+ */
+public class TableAwarePropagationConsistency implements TableAwareReplicaConsistency {
+
+    private final Clock clock;
+    private final Duration maxPropagation;
+    private final Cache<Instant> lastWrite = new MonotonicMemoryCache<>();
+    private final Cache<Instant> lastUnknownWrite = new MonotonicMemoryCache<>();
+    private final ConcurrentMap<String, Instant> lastTableWrites = new ConcurrentHashMap<>();
+
+    public static class Builder {
+        private Duration maxPropagation = Duration.ofMillis(100);
+        private Clock clock = Clock.systemUTC();
+
+        /**
+         * @param maxPropagation how long do writes propagate from main to replica
+         */
+        public Builder assumeMaxPropagation(Duration maxPropagation) {
+            this.maxPropagation = maxPropagation;
+            return this;
+        }
+
+        /**
+         * @param clock measures flow of time
+         */
+        public Builder measureTime(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @return consistency assuming consistency after max propagation since last write of the read tables
+         */
+        public ReplicaConsistency build() {
+            return new TableAwarePropagationConsistency(clock, maxPropagation);
+        }
+    }
+
+    private TableAwarePropagationConsistency(Clock clock, Duration maxPropagation) {
+        this.clock = clock;
+        this.maxPropagation = maxPropagation;
+    }
+
+    @Override
+    public void write(Connection main) {
+        final Instant now = clock.instant();
+        lastUnknownWrite.put(now);
+        lastWrite.put(now);
+    }
+
+    @Override
+    public void write(Connection main, Set<String> tables) {
+        final Instant now = clock.instant();
+        for (String table : tables) {
+            lastTableWrites.merge(table, now, Comparables::max);
+        }
+        lastWrite.put(now);
+    }
+
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica) {
+        return assumeLastRefresh().isAfter(assumeLastWrite(lastWrite));
+    }
+
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica, Set<String> tables) {
+        Instant assumedWrite = assumeLastWrite(lastUnknownWrite);
+        for (String table : tables) {
+            assumedWrite = Comparables.max(assumedWrite, lastTableWrites.get(table));
+        }
+        return assumeLastRefresh().isAfter(assumedWrite);
+    }
+
+    /**
+     * The replica never falls behind by more than the max propagation.
+     */
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica, Duration maxStaleness) {
+        return maxStaleness.compareTo(maxPropagation) >= 0 || isConsistent(replica);
+    }
+
+    /**
+     * The tables on the replica never fall behind by more than the max propagation.
+     */
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica, Set<String> tables, Duration maxStaleness) {
+        return maxStaleness.compareTo(maxPropagation) >= 0 || isConsistent(replica, tables);
+    }
+
+    /**
+     * @return assumed time of last replica refresh
+     */
+    private Instant assumeLastRefresh() {
+        return clock.instant().minus(maxPropagation);
+    }
+
+    /**
+     * If the write is unknown, assume it just happened, e.g. it didn't propagate yet.
+     * Propagates the assumption to the cache. This prevents from assuming write just happened until the next write.
+     *
+     * @return known or assumed time of last write
+     */
+    private Instant assumeLastWrite(Cache<Instant> write) {
+        return write
+            .get()
+            .orElseGet(() -> {
+                final Instant now = clock.instant();
+                write.put(now);
+                return now;
+            });
+    }
+}
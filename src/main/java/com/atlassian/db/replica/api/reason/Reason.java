@@ -32,6 +32,14 @@ public final class Reason {
             new ReasonBuilder("HIGH_TRANSACTION_ISOLATION_LEVEL").isRunOnMain(true).isWrite(false).build();
     public static final Reason RO_API_CALL =
             new ReasonBuilder("RO_API_CALL").isRunOnMain(false).isWrite(false).build();
+    public static final Reason READ_VIA_EXECUTE =
+            new ReasonBuilder("READ_VIA_EXECUTE").isRunOnMain(false).isWrite(false).build();
+    public static final Reason MAIN_HINT =
+            new ReasonBuilder("MAIN_HINT").isRunOnMain(true).isWrite(false).build();
+    public static final Reason REPLICA_HINT =
+            new ReasonBuilder("REPLICA_HINT").isRunOnMain(false).isWrite(false).build();
+    public static final Reason MAIN_RULE =
+            new ReasonBuilder("MAIN_RULE").isRunOnMain(true).isWrite(false).build();
 
     public String getName() {
         return name;
@@ -10,11 +10,17 @@ public final class RouteDecision {
     private final Reason reason;
     private final String sql;
     private final RouteDecision cause;
+    private final String rule;
 
     public RouteDecision(String sql, Reason reason, RouteDecision cause) {
+        this(sql, reason, cause, null);
+    }
+
+    public RouteDecision(String sql, Reason reason, RouteDecision cause, String rule) {
         this.sql = sql;
         this.reason = reason;
         this.cause = cause;
+        this.rule = rule;
     }
 
     /**
@@ -38,6 +44,13 @@ public final class RouteDecision {
         return Optional.ofNullable(cause);
     }
 
+    /**
+     * @return The name of the {@link com.atlassian.db.replica.api.RoutingRule} matching the SQL, if any.
+     */
+    public Optional<String> getRule() {
+        return Optional.ofNullable(rule);
+    }
+
     /**
      * @return true if the accompanying {@link com.atlassian.db.replica.api.SqlCall#call()} would fail when run on replica.
      */
@@ -60,12 +73,12 @@ public final class RouteDecision {
         return Objects.equals(reason, that.reason) && Objects.equals(
             sql,
             that.sql
-        ) && Objects.equals(cause, that.cause);
+        ) && Objects.equals(cause, that.cause) && Objects.equals(rule, that.rule);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(reason, sql, cause);
+        return Objects.hash(reason, sql, cause, rule);
     }
 
     @Override
@@ -74,6 +87,7 @@ public final class RouteDecision {
             "reason=" + reason +
             ", sql='" + sql + '\'' +
             ", cause=" + cause +
+            ", rule=" + rule +
             '}';
     }
 }
@@ -0,0 +1,385 @@
+package com.atlassian.db.replica.internal;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffers batch rows until the statement, which runs the batch, is known.
+ * Rows are stored one after another as typed entries in chunks of parallel arrays,
+ * so a parameter costs a few array slots instead of an operation.
+ */
+final class BatchBuffer {
+    private static final int FIRST_CHUNK_SIZE = 16;
+    private static final int MAX_CHUNK_SIZE = 1024;
+    private List<Chunk> chunks = new ArrayList<>();
+    private Chunk last;
+    private int rowEnd = 0;
+    private long rowBytes = 0;
+    private boolean replayed = false;
+
+    void add(Kind kind, int index, long primitive, Object reference) {
+        if (last == null || last.isFull()) {
+            last = last == null
+                ? new Chunk(0, FIRST_CHUNK_SIZE)
+                : new Chunk(last.end(), Math.min(last.kinds.length * 2, MAX_CHUNK_SIZE));
+            chunks.add(last);
+        }
+        last.add(kind, index, primitive, reference);
+        rowBytes += kind.estimateBytes(primitive, reference);
+    }
+
+    /**
+     * Ends the row of parameters, i.e. {@link PreparedStatement#addBatch()}.
+     *
+     * @return the estimated size of the row in bytes
+     */
+    long addRow() {
+        add(Kind.ROW, 0, 0, null);
+        return endRow();
+    }
+
+    /**
+     * @return the estimated size of the SQL in bytes
+     * @see Statement#addBatch(String)
+     */
+    long addSql(String sql) {
+        add(Kind.SQL, 0, 0, sql);
+        return endRow();
+    }
+
+    private long endRow() {
+        final long bytes = rowBytes;
+        rowEnd = last.end();
+        rowBytes = 0;
+        return bytes;
+    }
+
+    /**
+     * Drops the parameters set since the last row.
+     */
+    void clearParameters() {
+        truncate(rowEnd);
+    }
+
+    /**
+     * Drops the rows, but keeps the parameters set since the last row.
+     * Takes time proportional to those parameters, regardless of the number of rows.
+     */
+    void clear() {
+        final int end = last == null ? 0 : last.end();
+        if (rowEnd == end) {
+            truncate(0);
+        } else {
+            final Chunk parameters = new Chunk(0, Math.max(end - rowEnd, FIRST_CHUNK_SIZE));
+            int first = chunks.size() - 1;
+            while (chunks.get(first).start > rowEnd) {
+                first--;
+            }
+            for (int i = first; i < chunks.size(); i++) {
+                chunks.get(i).copy(rowEnd, parameters);
+            }
+            chunks = new ArrayList<>();
+            chunks.add(parameters);
+            last = parameters;
+            rowEnd = 0;
+        }
+        replayed = false;
+    }
+
+    boolean isEmpty() {
+        return last == null || last.end() == 0;
+    }
+
+    /**
+     * @return true if rows were passed to a statement since the last {@link #clear()}
+     */
+    boolean wasReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Passes the buffered entries to the statement and drops them.
+     */
+    void replay(Statement statement) throws SQLException {
+        if (isEmpty()) {
+            return;
+        }
+        for (Chunk chunk : chunks) {
+            chunk.replay(statement);
+        }
+        replayed |= rowEnd > 0;
+        truncate(0);
+    }
+
+    private void truncate(int size) {
+        if (last == null) {
+            return;
+        }
+        if (size == 0 && chunks.size() > 1) {
+            final Chunk first = chunks.get(0);
+            chunks = new ArrayList<>();
+            chunks.add(first);
+            last = first;
+        }
+        while (last.start >= size && chunks.size() > 1) {
+            chunks.remove(chunks.size() - 1);
+            last = chunks.get(chunks.size() - 1);
+        }
+        last.truncate(size - last.start);
+        rowEnd = Math.min(rowEnd, size);
+        if (size == rowEnd) {
+            rowBytes = 0;
+        }
+    }
+
+    private static final class Chunk {
+        private final int start;
+        private final Kind[] kinds;
+        private final int[] indexes;
+        private final long[] primitives;
+        private final Object[] references;
+        private int size = 0;
+
+        private Chunk(int start, int capacity) {
+            this.start = start;
+            this.kinds = new Kind[capacity];
+            this.indexes = new int[capacity];
+            this.primitives = new long[capacity];
+            this.references = new Object[capacity];
+        }
+
+        private boolean isFull() {
+            return size == kinds.length;
+        }
+
+        private int end() {
+            return start + size;
+        }
+
+        private void add(Kind kind, int index, long primitive, Object reference) {
+            kinds[size] = kind;
+            indexes[size] = index;
+            primitives[size] = primitive;
+            references[size] = reference;
+            size++;
+        }
+
+        /**
+         * Copies the entries from the position onwards.
+         */
+        private void copy(int from, Chunk target) {
+            for (int i = Math.max(from - start, 0); i < size; i++) {
+                target.add(kinds[i], indexes[i], primitives[i], references[i]);
+            }
+        }
+
+        private void truncate(int newSize) {
+            final int from = Math.max(newSize, 0);
+            if (from < size) {
+                Arrays.fill(kinds, from, size, null);
+                Arrays.fill(references, from, size, null);
+                size = from;
+            }
+        }
+
+        private void replay(Statement statement) throws SQLException {
+            for (int i = 0; i < size; i++) {
+                kinds[i].apply(statement, indexes[i], primitives[i], references[i]);
+            }
+        }
+    }
+
+    /**
+     * A kind of entry. Primitive parameters are kept in a {@code long}, references in an {@code Object}.
+     */
+    enum Kind {
+        NULL {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setNull(index, (int) primitive);
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return null;
+            }
+        },
+        BOOLEAN {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setBoolean(index, primitive != 0);
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return primitive != 0;
+            }
+        },
+        BYTE {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setByte(index, (byte) primitive);
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return (byte) primitive;
+            }
+        },
+        SHORT {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setShort(index, (short) primitive);
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return (short) primitive;
+            }
+        },
+        INT {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setInt(index, (int) primitive);
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return (int) primitive;
+            }
+        },
+        LONG {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setLong(index, primitive);
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return primitive;
+            }
+        },
+        FLOAT {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setFloat(index, Float.intBitsToFloat((int) primitive));
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return Float.intBitsToFloat((int) primitive);
+            }
+        },
+        DOUBLE {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setDouble(index, Double.longBitsToDouble(primitive));
+            }
+
+            @Override
+            Object value(long primitive, Object reference) {
+                return Double.longBitsToDouble(primitive);
+            }
+        },
+        BIG_DECIMAL {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setBigDecimal(index, (BigDecimal) reference);
+            }
+        },
+        STRING {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setString(index, (String) reference);
+            }
+        },
+        NSTRING {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setNString(index, (String) reference);
+            }
+        },
+        BYTES {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setBytes(index, (byte[]) reference);
+            }
+        },
+        DATE {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setDate(index, (Date) reference);
+            }
+        },
+        TIME {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setTime(index, (Time) reference);
+            }
+        },
+        TIMESTAMP {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setTimestamp(index, (Timestamp) reference);
+            }
+        },
+        OBJECT {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).setObject(index, reference);
+            }
+        },
+        /**
+         * Any other operation, e.g. a stream parameter or a setting.
+         */
+        OPERATION {
+            @Override
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((StatementOperation) reference).accept(statement);
+            }
+        },
+        ROW {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                ((PreparedStatement) statement).addBatch();
+            }
+        },
+        SQL {
+            @Override
+            void apply(Statement statement, int index, long primitive, Object reference) throws SQLException {
+                statement.addBatch((String) reference);
+            }
+        };
+
+        abstract void apply(Statement statement, int index, long primitive, Object reference) throws SQLException;
+
+        /**
+         * @return the parameter value as passed to the setter
+         */
+        Object value(long primitive, Object reference) {
+            return reference;
+        }
+
+        /**
+         * @return roughly how much memory the entry takes in the driver
+         */
+        long estimateBytes(long primitive, Object reference) {
+            if (reference instanceof String) {
+                return 2L * ((String) reference).length();
+            } else if (reference instanceof byte[]) {
+                return ((byte[]) reference).length;
+            } else {
+                return Long.BYTES;
+            }
+        }
+    }
+}
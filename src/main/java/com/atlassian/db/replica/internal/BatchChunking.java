@@ -0,0 +1,25 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+/**
+ * Limits the size of batches passed to the driver at once.
+ */
+@ThreadSafe
+public final class BatchChunking {
+    private final int maxRows;
+    private final long maxBytes;
+
+    /**
+     * @param maxRows  rows in a chunk
+     * @param maxBytes estimated size of parameters in a chunk
+     */
+    public BatchChunking(int maxRows, long maxBytes) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+    }
+
+    ChunkedBatch start() {
+        return new ChunkedBatch(maxRows, maxBytes);
+    }
+}
@@ -0,0 +1,93 @@
+package com.atlassian.db.replica.internal;
+
+import java.sql.BatchUpdateException;
+import java.util.Arrays;
+
+/**
+ * Counts rows of a batch, which is executed in chunks, and collects the update counts of executed chunks.
+ */
+final class ChunkedBatch {
+    private final int maxRows;
+    private final long maxBytes;
+    private int rows = 0;
+    private long bytes = 0;
+    private long[] counts = new long[0];
+    private int executed = 0;
+
+    ChunkedBatch(int maxRows, long maxBytes) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return true if the chunk is full and should be executed
+     */
+    boolean add(long rowBytes) {
+        rows++;
+        bytes += rowBytes;
+        return rows >= maxRows || bytes >= maxBytes;
+    }
+
+    void executed(int[] chunkCounts) {
+        if (executed + chunkCounts.length > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, executed + chunkCounts.length));
+        }
+        for (int count : chunkCounts) {
+            counts[executed++] = count;
+        }
+        rows = 0;
+        bytes = 0;
+    }
+
+    /**
+     * @return update counts of all chunks, including the last one
+     */
+    int[] complete(int[] lastCounts) {
+        final int[] all = new int[executed + lastCounts.length];
+        for (int i = 0; i < executed; i++) {
+            all[i] = (int) counts[i];
+        }
+        System.arraycopy(lastCounts, 0, all, executed, lastCounts.length);
+        clear();
+        return all;
+    }
+
+    /**
+     * @return update counts of all chunks, including the last one
+     */
+    long[] complete(long[] lastCounts) {
+        final long[] all = Arrays.copyOf(counts, executed + lastCounts.length);
+        System.arraycopy(lastCounts, 0, all, executed, lastCounts.length);
+        clear();
+        return all;
+    }
+
+    /**
+     * @return the failure with update counts of all chunks, including the failed one
+     */
+    BatchUpdateException fail(BatchUpdateException failure) {
+        if (executed == 0) {
+            clear();
+            return failure;
+        }
+        final long[] failed = failure.getLargeUpdateCounts() != null
+            ? failure.getLargeUpdateCounts()
+            : new long[0];
+        return new BatchUpdateException(
+            failure.getMessage(),
+            failure.getSQLState(),
+            failure.getErrorCode(),
+            complete(failed),
+            failure
+        );
+    }
+
+    /**
+     * Forgets the executed chunks, e.g. on {@link java.sql.Statement#clearBatch()}.
+     */
+    void clear() {
+        rows = 0;
+        bytes = 0;
+        executed = 0;
+    }
+}
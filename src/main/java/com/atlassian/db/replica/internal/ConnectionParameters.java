@@ -1,5 +1,7 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.api.ConnectionDefaults;
+
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collections;
@@ -9,6 +11,7 @@ import java.util.Optional;
 import java.util.function.Supplier;
 
 public final class ConnectionParameters {
+    private static final ConnectionDefaults UNKNOWN_DEFAULTS = ConnectionDefaults.unknown();
 
     private Boolean isAutoCommit;
     private Boolean readOnly;
@@ -16,28 +19,55 @@ public final class ConnectionParameters {
     private String catalog;
     private Map<String, Class<?>> typeMap;
     private Integer holdability;
+    private int version = 0;
+    private final ConnectionDefaults defaults;
+
+    public ConnectionParameters(ConnectionDefaults defaults) {
+        this.defaults = defaults;
+    }
 
+    /**
+     * Sets the parameters on a fresh connection, except the ones equal to the declared defaults of the connection.
+     */
     public void initialize(Connection connection) throws SQLException {
-        if (isAutoCommit != null) {
+        apply(connection, defaults);
+    }
+
+    /**
+     * Sets all the parameters on a connection, which was used before, so it may no longer have the defaults.
+     */
+    public void reapply(Connection connection) throws SQLException {
+        apply(connection, UNKNOWN_DEFAULTS);
+    }
+
+    private void apply(Connection connection, ConnectionDefaults defaults) throws SQLException {
+        if (isAutoCommit != null && differs(isAutoCommit, defaults.getAutoCommit())) {
             connection.setAutoCommit(isAutoCommit);
         }
-        if (transactionIsolation != null) {
+        if (transactionIsolation != null && differs(transactionIsolation, defaults.getTransactionIsolation())) {
             connection.setTransactionIsolation(transactionIsolation);
         }
-        if (catalog != null) {
+        if (catalog != null && differs(catalog, defaults.getCatalog())) {
             connection.setCatalog(catalog);
         }
         if (typeMap != null) {
             connection.setTypeMap(typeMap);
         }
-        if (holdability != null) {
+        if (holdability != null && differs(holdability, defaults.getHoldability())) {
             connection.setHoldability(holdability);
         }
-        if (readOnly != null) {
+        if (readOnly != null && differs(readOnly, defaults.getReadOnly())) {
             connection.setReadOnly(readOnly);
         }
     }
 
+    /**
+     * Doesn't read the connection, because getters can cost a round trip. Unknown defaults always differ.
+     */
+    private static <T> boolean differs(T value, Optional<T> knownDefault) {
+        return !knownDefault.isPresent() || !value.equals(knownDefault.get());
+    }
+
     public void setTransactionIsolation(
         Supplier<Optional<Connection>> currentConnection,
         Integer transactionIsolation
@@ -104,6 +134,19 @@ public final class ConnectionParameters {
         this.readOnly = readOnly;
     }
 
+    /**
+     * Forgets all the parameters, as if no parameter was ever set.
+     */
+    public void reset() {
+        isAutoCommit = null;
+        readOnly = null;
+        transactionIsolation = null;
+        catalog = null;
+        typeMap = null;
+        holdability = null;
+        version++;
+    }
+
     private void executeIfPresent(
         Supplier<Optional<Connection>> currentConnection,
         ConnectionOperation operation
@@ -112,6 +155,14 @@ public final class ConnectionParameters {
         if (connection.isPresent()) {
             operation.accept(connection.get());
         }
+        version++;
+    }
+
+    /**
+     * @return a number, which changes whenever any parameter is set
+     */
+    public int getVersion() {
+        return version;
     }
 
     @Override
@@ -0,0 +1,78 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.spi.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Acquires a main connection in the background, so a later write doesn't wait for the pool.
+ * The connection is released if it's not claimed, even if it's acquired after the prefetch is cancelled.
+ */
+public final class ConnectionPrefetch {
+    private final ConnectionProvider connectionProvider;
+    private final CompletableFuture<Connection> connection = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private ConnectionPrefetch(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    public static ConnectionPrefetch start(ConnectionProvider connectionProvider, Executor executor) {
+        final ConnectionPrefetch prefetch = new ConnectionPrefetch(connectionProvider);
+        executor.execute(prefetch::acquire);
+        return prefetch;
+    }
+
+    private void acquire() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final Connection main = connectionProvider.getMainConnection();
+            if (!connection.complete(main)) {
+                main.close();
+            }
+        } catch (Throwable e) {
+            connection.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Waits for the connection. Acquires it directly if the executor didn't start acquiring it yet.
+     *
+     * @return the main connection, which is no longer managed by the prefetch
+     */
+    public Connection claim() throws SQLException {
+        if (started.compareAndSet(false, true)) {
+            return connectionProvider.getMainConnection();
+        }
+        try {
+            return connection.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    /**
+     * Releases the unclaimed connection, now or as soon as it's acquired.
+     */
+    public void cancel() throws SQLException {
+        if (started.compareAndSet(false, true)) {
+            return;
+        }
+        if (!connection.cancel(false) && !connection.isCompletedExceptionally()) {
+            connection.getNow(null).close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.spi.ConnectionProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public final class DataSourceConnectionProvider implements ConnectionProvider {
+    private final DataSource main;
+    private final DataSource replica;
+
+    public DataSourceConnectionProvider(DataSource main, DataSource replica) {
+        this.main = main;
+        this.replica = replica;
+    }
+
+    @Override
+    public boolean isReplicaAvailable() {
+        return replica != null;
+    }
+
+    @Override
+    public Connection getMainConnection() throws SQLException {
+        return main.getConnection();
+    }
+
+    @Override
+    public Connection getReplicaConnection() throws SQLException {
+        return replica.getConnection();
+    }
+}
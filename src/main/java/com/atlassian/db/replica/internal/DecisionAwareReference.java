@@ -1,25 +1,30 @@
 package com.atlassian.db.replica.internal;
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public abstract class DecisionAwareReference<T> extends LazyReference<T> {
-    private final AtomicReference<RouteDecisionBuilder> firstCause = new AtomicReference<>();
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DecisionAwareReference, RouteDecisionBuilder> FIRST_CAUSE =
+        AtomicReferenceFieldUpdater.newUpdater(DecisionAwareReference.class, RouteDecisionBuilder.class, "firstCause");
+    private volatile RouteDecisionBuilder firstCause;
 
     public T get(RouteDecisionBuilder currentCause) {
-        firstCause.compareAndSet(null, currentCause);
+        if (firstCause == null) {
+            FIRST_CAUSE.compareAndSet(this, null, currentCause);
+        }
         return super.get();
     }
 
     @Override
     public void reset() {
         super.reset();
-        firstCause.set(null);
+        firstCause = null;
     }
 
     public RouteDecisionBuilder getFirstCause() {
-        if (firstCause.get() == null) {
+        if (firstCause == null) {
             throw new IllegalStateException("The decision builder is not initialized");
         }
-        return firstCause.get();
+        return firstCause;
     }
 }
@@ -1,31 +1,34 @@
 package com.atlassian.db.replica.internal;
 
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Supplier;
 
 public abstract class LazyReference<T> implements Supplier<T> {
-    private final AtomicReference<T> reference = new AtomicReference<>();
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LazyReference, Object> REFERENCE =
+        AtomicReferenceFieldUpdater.newUpdater(LazyReference.class, Object.class, "reference");
+    private volatile T reference;
 
     protected abstract T create() throws Exception;
 
     public boolean isInitialized() {
-        return reference.get() != null;
+        return reference != null;
     }
 
     @Override
     public T get() {
         if (!isInitialized()) {
             try {
-                reference.compareAndSet(null, create());
+                REFERENCE.compareAndSet(this, null, create());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         }
-        return reference.get();
+        return reference;
     }
 
     public void reset() {
-        reference.set(null);
+        reference = null;
     }
 }
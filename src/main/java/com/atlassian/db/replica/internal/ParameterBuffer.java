@@ -0,0 +1,68 @@
+package com.atlassian.db.replica.internal;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffers operations setting parameters, at most one per parameter index. Setting a parameter again replaces
+ * the buffered operation, so a statement, which is executed without a database statement, e.g. from the cache,
+ * doesn't accumulate operations.
+ */
+final class ParameterBuffer {
+    /**
+     * PostgreSQL doesn't bind more parameters. Indexes out of range share a slot, the driver rejects them anyway.
+     */
+    private static final int MAX_INDEX = 65_535;
+    private static final int FIRST_SIZE = 4;
+    @SuppressWarnings("rawtypes")
+    private StatementOperation[] operations;
+    private int end = 0;
+
+    void set(int index, @SuppressWarnings("rawtypes") StatementOperation operation) {
+        final int slot = index < 1 || index > MAX_INDEX ? 0 : index;
+        if (operations == null) {
+            operations = new StatementOperation[Math.max(FIRST_SIZE, slot + 1)];
+        } else if (slot >= operations.length) {
+            operations = Arrays.copyOf(operations, Math.max(operations.length * 2, slot + 1));
+        }
+        operations[slot] = operation;
+        end = Math.max(end, slot + 1);
+    }
+
+    boolean isEmpty() {
+        return end == 0;
+    }
+
+    /**
+     * Passes the buffered parameters to the statement in the order of their indexes.
+     */
+    @SuppressWarnings("unchecked")
+    void replay(Statement statement) throws SQLException {
+        for (int i = 0; i < end; i++) {
+            if (operations[i] != null) {
+                operations[i].accept(statement);
+            }
+        }
+    }
+
+    /**
+     * Adds the buffered parameters to the list in the order of their indexes.
+     */
+    @SuppressWarnings("rawtypes")
+    void copyTo(List<StatementOperation> list) {
+        for (int i = 0; i < end; i++) {
+            if (operations[i] != null) {
+                list.add(operations[i]);
+            }
+        }
+    }
+
+    void clear() {
+        if (end > 0) {
+            Arrays.fill(operations, 0, end, null);
+            end = 0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Keeps a bounded number of idle objects for reuse. Objects beyond the bound are left to the garbage collector.
+ */
+@ThreadSafe
+public final class RecyclingPool<T> {
+    private final int maxIdle;
+    private final ArrayBlockingQueue<T> idle;
+
+    public RecyclingPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * @return an idle object or null if there's none
+     */
+    public T acquire() {
+        return idle.poll();
+    }
+
+    public void release(T object) {
+        idle.offer(object);
+    }
+}
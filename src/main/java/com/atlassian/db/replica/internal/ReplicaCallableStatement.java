@@ -1,5 +1,6 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.internal.cache.CacheSession;
 import com.atlassian.db.replica.spi.DatabaseCall;
 import com.atlassian.db.replica.spi.ReplicaConsistency;
 
@@ -22,7 +23,6 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Map;
-import java.util.Set;
 
 public class ReplicaCallableStatement extends ReplicaPreparedStatement implements CallableStatement {
     private final String sql;
@@ -38,8 +38,9 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
         Integer resultSetType,
         Integer resultSetConcurrency,
         Integer resultSetHoldability,
-        Set<String> readOnlyFunctions,
-        boolean compatibleWithPreviousVersion
+        SqlFunction sqlFunction,
+        boolean compatibleWithPreviousVersion,
+        CacheSession cacheSession
     ) {
         super(
             connectionProvider,
@@ -49,167 +50,213 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
             resultSetType,
             resultSetConcurrency,
             resultSetHoldability,
-            readOnlyFunctions,
-            compatibleWithPreviousVersion);
+            sqlFunction,
+            compatibleWithPreviousVersion,
+            cacheSession);
         this.sql = sql;
         this.resultSetType = resultSetType;
         this.resultSetConcurrency = resultSetConcurrency;
         this.resultSetHoldability = resultSetHoldability;
     }
 
+    /**
+     * Out parameters are read from the statement, which ran the last call.
+     */
+    private CallableStatement getCall() throws SQLException {
+        checkClosed();
+        final CallableStatement call = (CallableStatement) getCurrentStatement();
+        if (call == null) {
+            throw new SQLException("The statement hasn't been executed.");
+        }
+        return call;
+    }
+
+    /**
+     * Out parameters of a call hedged on main wouldn't be on the current statement.
+     */
     @Override
-    public void registerOutParameter(int parameterIndex, int sqlType) {
-        throw new ReadReplicaUnsupportedOperationException();
+    protected boolean canHedge() {
+        return false;
     }
 
     @Override
-    public void registerOutParameter(int parameterIndex, int sqlType, int scale) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+        checkClosed();
+        addSetting(
+            new OutParameter(parameterIndex),
+            statement -> ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType)
+        );
     }
 
     @Override
-    public boolean wasNull() {
-        throw new ReadReplicaUnsupportedOperationException();
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+        checkClosed();
+        addSetting(
+            new OutParameter(parameterIndex),
+            statement -> ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType, scale)
+        );
     }
 
     @Override
-    public String getString(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public boolean wasNull() throws SQLException {
+        return getCall().wasNull();
     }
 
     @Override
-    public boolean getBoolean(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public String getString(int parameterIndex) throws SQLException {
+        return getCall().getString(parameterIndex);
     }
 
     @Override
-    public byte getByte(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public boolean getBoolean(int parameterIndex) throws SQLException {
+        return getCall().getBoolean(parameterIndex);
     }
 
     @Override
-    public short getShort(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public byte getByte(int parameterIndex) throws SQLException {
+        return getCall().getByte(parameterIndex);
     }
 
     @Override
-    public int getInt(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public short getShort(int parameterIndex) throws SQLException {
+        return getCall().getShort(parameterIndex);
     }
 
     @Override
-    public long getLong(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public int getInt(int parameterIndex) throws SQLException {
+        return getCall().getInt(parameterIndex);
     }
 
     @Override
-    public float getFloat(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public long getLong(int parameterIndex) throws SQLException {
+        return getCall().getLong(parameterIndex);
     }
 
     @Override
-    public double getDouble(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public float getFloat(int parameterIndex) throws SQLException {
+        return getCall().getFloat(parameterIndex);
     }
 
     @Override
-    public BigDecimal getBigDecimal(int parameterIndex, int scale) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public double getDouble(int parameterIndex) throws SQLException {
+        return getCall().getDouble(parameterIndex);
     }
 
     @Override
-    public byte[] getBytes(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    @Deprecated
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        return getCall().getBigDecimal(parameterIndex, scale);
     }
 
     @Override
-    public Date getDate(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public byte[] getBytes(int parameterIndex) throws SQLException {
+        return getCall().getBytes(parameterIndex);
     }
 
     @Override
-    public Time getTime(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Date getDate(int parameterIndex) throws SQLException {
+        return getCall().getDate(parameterIndex);
     }
 
     @Override
-    public Timestamp getTimestamp(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Time getTime(int parameterIndex) throws SQLException {
+        return getCall().getTime(parameterIndex);
     }
 
     @Override
-    public Object getObject(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        return getCall().getTimestamp(parameterIndex);
     }
 
     @Override
-    public BigDecimal getBigDecimal(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Object getObject(int parameterIndex) throws SQLException {
+        return getCall().getObject(parameterIndex);
     }
 
     @Override
-    public Object getObject(int parameterIndex, Map<String, Class<?>> map) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        return getCall().getBigDecimal(parameterIndex);
     }
 
     @Override
-    public Ref getRef(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
+        return getCall().getObject(parameterIndex, map);
     }
 
     @Override
-    public Blob getBlob(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Ref getRef(int parameterIndex) throws SQLException {
+        return getCall().getRef(parameterIndex);
     }
 
     @Override
-    public Clob getClob(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Blob getBlob(int parameterIndex) throws SQLException {
+        return getCall().getBlob(parameterIndex);
     }
 
     @Override
-    public Array getArray(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Clob getClob(int parameterIndex) throws SQLException {
+        return getCall().getClob(parameterIndex);
     }
 
     @Override
-    public Date getDate(int parameterIndex, Calendar cal) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Array getArray(int parameterIndex) throws SQLException {
+        return getCall().getArray(parameterIndex);
     }
 
     @Override
-    public Time getTime(int parameterIndex, Calendar cal) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        return getCall().getDate(parameterIndex, cal);
     }
 
     @Override
-    public Timestamp getTimestamp(int parameterIndex, Calendar cal) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        return getCall().getTime(parameterIndex, cal);
     }
 
     @Override
-    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        return getCall().getTimestamp(parameterIndex, cal);
     }
 
     @Override
-    public void registerOutParameter(String parameterName, int sqlType) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        checkClosed();
+        addSetting(
+            new OutParameter(parameterIndex),
+            statement -> ((CallableStatement) statement).registerOutParameter(parameterIndex, sqlType, typeName)
+        );
     }
 
     @Override
-    public void registerOutParameter(String parameterName, int sqlType, int scale) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+        checkClosed();
+        addSetting(
+            new OutParameter(parameterName),
+            statement -> ((CallableStatement) statement).registerOutParameter(parameterName, sqlType)
+        );
     }
 
     @Override
-    public void registerOutParameter(String parameterName, int sqlType, String typeName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+        checkClosed();
+        addSetting(
+            new OutParameter(parameterName),
+            statement -> ((CallableStatement) statement).registerOutParameter(parameterName, sqlType, scale)
+        );
     }
 
     @Override
-    public URL getURL(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+        checkClosed();
+        addSetting(
+            new OutParameter(parameterName),
+            statement -> ((CallableStatement) statement).registerOutParameter(parameterName, sqlType, typeName)
+        );
+    }
+
+    @Override
+    public URL getURL(int parameterIndex) throws SQLException {
+        return getCall().getURL(parameterIndex);
     }
 
     @Override
@@ -338,128 +385,128 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
     }
 
     @Override
-    public String getString(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public String getString(String parameterName) throws SQLException {
+        return getCall().getString(parameterName);
     }
 
     @Override
-    public boolean getBoolean(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public boolean getBoolean(String parameterName) throws SQLException {
+        return getCall().getBoolean(parameterName);
     }
 
     @Override
-    public byte getByte(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public byte getByte(String parameterName) throws SQLException {
+        return getCall().getByte(parameterName);
     }
 
     @Override
-    public short getShort(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public short getShort(String parameterName) throws SQLException {
+        return getCall().getShort(parameterName);
     }
 
     @Override
-    public int getInt(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public int getInt(String parameterName) throws SQLException {
+        return getCall().getInt(parameterName);
     }
 
     @Override
-    public long getLong(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public long getLong(String parameterName) throws SQLException {
+        return getCall().getLong(parameterName);
     }
 
     @Override
-    public float getFloat(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public float getFloat(String parameterName) throws SQLException {
+        return getCall().getFloat(parameterName);
     }
 
     @Override
-    public double getDouble(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public double getDouble(String parameterName) throws SQLException {
+        return getCall().getDouble(parameterName);
     }
 
     @Override
-    public byte[] getBytes(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public byte[] getBytes(String parameterName) throws SQLException {
+        return getCall().getBytes(parameterName);
     }
 
     @Override
-    public Date getDate(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Date getDate(String parameterName) throws SQLException {
+        return getCall().getDate(parameterName);
     }
 
     @Override
-    public Time getTime(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Time getTime(String parameterName) throws SQLException {
+        return getCall().getTime(parameterName);
     }
 
     @Override
-    public Timestamp getTimestamp(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Timestamp getTimestamp(String parameterName) throws SQLException {
+        return getCall().getTimestamp(parameterName);
     }
 
     @Override
-    public Object getObject(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Object getObject(String parameterName) throws SQLException {
+        return getCall().getObject(parameterName);
     }
 
     @Override
-    public BigDecimal getBigDecimal(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        return getCall().getBigDecimal(parameterName);
     }
 
     @Override
-    public Object getObject(String parameterName, Map<String, Class<?>> map) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
+        return getCall().getObject(parameterName, map);
     }
 
     @Override
-    public Ref getRef(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Ref getRef(String parameterName) throws SQLException {
+        return getCall().getRef(parameterName);
     }
 
     @Override
-    public Blob getBlob(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Blob getBlob(String parameterName) throws SQLException {
+        return getCall().getBlob(parameterName);
     }
 
     @Override
-    public Clob getClob(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Clob getClob(String parameterName) throws SQLException {
+        return getCall().getClob(parameterName);
     }
 
     @Override
-    public Array getArray(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Array getArray(String parameterName) throws SQLException {
+        return getCall().getArray(parameterName);
     }
 
     @Override
-    public Date getDate(String parameterName, Calendar cal) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Date getDate(String parameterName, Calendar cal) throws SQLException {
+        return getCall().getDate(parameterName, cal);
     }
 
     @Override
-    public Time getTime(String parameterName, Calendar cal) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Time getTime(String parameterName, Calendar cal) throws SQLException {
+        return getCall().getTime(parameterName, cal);
     }
 
     @Override
-    public Timestamp getTimestamp(String parameterName, Calendar cal) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        return getCall().getTimestamp(parameterName, cal);
     }
 
     @Override
-    public URL getURL(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public URL getURL(String parameterName) throws SQLException {
+        return getCall().getURL(parameterName);
     }
 
     @Override
-    public RowId getRowId(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public RowId getRowId(int parameterIndex) throws SQLException {
+        return getCall().getRowId(parameterIndex);
     }
 
     @Override
-    public RowId getRowId(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public RowId getRowId(String parameterName) throws SQLException {
+        return getCall().getRowId(parameterName);
     }
 
     @Override
@@ -498,13 +545,13 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
     }
 
     @Override
-    public NClob getNClob(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public NClob getNClob(int parameterIndex) throws SQLException {
+        return getCall().getNClob(parameterIndex);
     }
 
     @Override
-    public NClob getNClob(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public NClob getNClob(String parameterName) throws SQLException {
+        return getCall().getNClob(parameterName);
     }
 
     @Override
@@ -513,43 +560,43 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
     }
 
     @Override
-    public SQLXML getSQLXML(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        return getCall().getSQLXML(parameterIndex);
     }
 
     @Override
-    public SQLXML getSQLXML(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public SQLXML getSQLXML(String parameterName) throws SQLException {
+        return getCall().getSQLXML(parameterName);
     }
 
     @Override
-    public String getNString(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public String getNString(int parameterIndex) throws SQLException {
+        return getCall().getNString(parameterIndex);
     }
 
     @Override
-    public String getNString(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public String getNString(String parameterName) throws SQLException {
+        return getCall().getNString(parameterName);
     }
 
     @Override
-    public Reader getNCharacterStream(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        return getCall().getNCharacterStream(parameterIndex);
     }
 
     @Override
-    public Reader getNCharacterStream(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Reader getNCharacterStream(String parameterName) throws SQLException {
+        return getCall().getNCharacterStream(parameterName);
     }
 
     @Override
-    public Reader getCharacterStream(int parameterIndex) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Reader getCharacterStream(int parameterIndex) throws SQLException {
+        return getCall().getCharacterStream(parameterIndex);
     }
 
     @Override
-    public Reader getCharacterStream(String parameterName) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public Reader getCharacterStream(String parameterName) throws SQLException {
+        return getCall().getCharacterStream(parameterName);
     }
 
     @Override
@@ -613,13 +660,13 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
     }
 
     @Override
-    public <T> T getObject(int parameterIndex, Class<T> type) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        return getCall().getObject(parameterIndex, type);
     }
 
     @Override
-    public <T> T getObject(String parameterName, Class<T> type) {
-        throw new ReadReplicaUnsupportedOperationException();
+    public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        return getCall().getObject(parameterName, type);
     }
 
     public CallableStatement createStatement(Connection connection) throws SQLException {
@@ -632,13 +679,37 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
         }
     }
 
+    /**
+     * Keys the registration of an out parameter, so registering it again replaces the earlier registration.
+     */
+    private static final class OutParameter {
+        private final Object parameter;
+
+        private OutParameter(Object parameter) {
+            this.parameter = parameter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return parameter.equals(((OutParameter) o).parameter);
+        }
+
+        @Override
+        public int hashCode() {
+            return parameter.hashCode();
+        }
+    }
+
     public static class Builder {
         private final ReplicaConnectionProvider connectionProvider;
         private final ReplicaConsistency consistency;
         private final DatabaseCall databaseCall;
         private final String sql;
-        private final Set<String> readOnlyFunctions;
+        private final SqlFunction sqlFunction;
         private final boolean compatibleWithPreviousVersion;
+        private final CacheSession cacheSession;
         private Integer resultSetType;
         private Integer resultSetConcurrency;
         private Integer resultSetHoldability;
@@ -648,15 +719,17 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
             ReplicaConsistency consistency,
             DatabaseCall databaseCall,
             String sql,
-            Set<String> readOnlyFunctions,
-            boolean compatibleWithPreviousVersion
+            SqlFunction sqlFunction,
+            boolean compatibleWithPreviousVersion,
+            CacheSession cacheSession
         ) {
             this.connectionProvider = connectionProvider;
             this.consistency = consistency;
             this.databaseCall = databaseCall;
             this.sql = sql;
-            this.readOnlyFunctions = readOnlyFunctions;
+            this.sqlFunction = sqlFunction;
             this.compatibleWithPreviousVersion = compatibleWithPreviousVersion;
+            this.cacheSession = cacheSession;
         }
 
         public ReplicaCallableStatement.Builder resultSetType(int resultSetType) {
@@ -683,8 +756,9 @@ public class ReplicaCallableStatement extends ReplicaPreparedStatement implement
                 resultSetType,
                 resultSetConcurrency,
                 resultSetHoldability,
-                readOnlyFunctions,
-                compatibleWithPreviousVersion);
+                sqlFunction,
+                compatibleWithPreviousVersion,
+                cacheSession);
         }
     }
 }
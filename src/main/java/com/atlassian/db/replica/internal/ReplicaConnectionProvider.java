@@ -1,9 +1,12 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.api.ConnectionDefaults;
 import com.atlassian.db.replica.api.reason.Reason;
 import com.atlassian.db.replica.api.reason.RouteDecision;
 import com.atlassian.db.replica.api.state.State;
+import com.atlassian.db.replica.internal.hedge.ReadHedging;
 import com.atlassian.db.replica.internal.state.ConnectionState;
+import com.atlassian.db.replica.internal.state.StreamingTransaction;
 import com.atlassian.db.replica.spi.ConnectionProvider;
 import com.atlassian.db.replica.spi.ReplicaConsistency;
 import com.atlassian.db.replica.spi.state.StateListener;
@@ -11,28 +14,57 @@ import com.atlassian.db.replica.spi.state.StateListener;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static com.atlassian.db.replica.api.reason.Reason.RO_API_CALL;
 import static com.atlassian.db.replica.api.state.State.CLOSED;
 import static com.atlassian.db.replica.api.state.State.MAIN;
+import static com.atlassian.db.replica.api.state.State.REPLICA;
 
 public class ReplicaConnectionProvider implements AutoCloseable {
     private final ReplicaConsistency consistency;
     private final ConnectionState state;
     private final ConnectionParameters parameters;
     private final Warnings warnings;
+    private final WriteTracker writeTracker;
+    private final ConnectionProvider connectionProvider;
+    private final ReadHedging readHedging;
+    private final BatchChunking batchChunking;
+    private final RuleMatcher ruleMatcher;
+    private volatile int generation = 0;
 
     public ReplicaConnectionProvider(
         ConnectionProvider connectionProvider,
         ReplicaConsistency consistency,
-        StateListener stateListener
+        StateListener stateListener,
+        WriteTracker writeTracker,
+        boolean parkReplicaConnection,
+        ConnectionDefaults connectionDefaults,
+        Executor prefetchExecutor,
+        ReadHedging readHedging,
+        BatchChunking batchChunking,
+        RuleMatcher ruleMatcher
     ) {
-        this.parameters = new ConnectionParameters();
+        this.parameters = new ConnectionParameters(connectionDefaults);
         this.warnings = new Warnings();
-        this.state = new ConnectionState(connectionProvider, consistency, parameters, warnings, stateListener);
+        this.state = new ConnectionState(
+            connectionProvider,
+            consistency,
+            parameters,
+            warnings,
+            stateListener,
+            parkReplicaConnection,
+            prefetchExecutor
+        );
         this.consistency = consistency;
+        this.writeTracker = writeTracker;
+        this.connectionProvider = connectionProvider;
+        this.readHedging = readHedging;
+        this.batchChunking = batchChunking;
+        this.ruleMatcher = ruleMatcher;
     }
 
     public Connection getWriteConnection(RouteDecisionBuilder decisionBuilder) throws SQLException {
@@ -43,7 +75,12 @@ public class ReplicaConnectionProvider implements AutoCloseable {
         return state.getReadConnection(decisionBuilder);
     }
 
+    public Connection getReadConnection(RouteDecisionBuilder decisionBuilder, Duration maxStaleness) throws SQLException {
+        return state.getReadConnection(decisionBuilder, maxStaleness);
+    }
+
     public void setTransactionIsolation(Integer transactionIsolation) throws SQLException {
+        state.endStreaming();
         parameters.setTransactionIsolation(state::getConnection, transactionIsolation);
     }
 
@@ -57,9 +94,13 @@ public class ReplicaConnectionProvider implements AutoCloseable {
 
     public void setAutoCommit(Boolean autoCommit) throws SQLException {
         final boolean autoCommitBefore = getAutoCommit();
+        if (autoCommitBefore != (autoCommit == null || autoCommit)) {
+            state.endStreaming();
+        }
         parameters.setAutoCommit(state::getConnection, autoCommit);
         if (autoCommitBefore != getAutoCommit()) {
             recordCommit(autoCommitBefore);
+            state.setReadOnlyTransactions(!getAutoCommit() && getReadOnly());
         }
     }
 
@@ -76,7 +117,13 @@ public class ReplicaConnectionProvider implements AutoCloseable {
     }
 
     public void setReadOnly(boolean readOnly) throws SQLException {
+        if (readOnly != getReadOnly()) {
+            state.endStreaming();
+        }
         parameters.setReadOnly(state::getConnection, readOnly);
+        if (!readOnly) {
+            state.setReadOnlyTransactions(false);
+        }
     }
 
     public String getCatalog() {
@@ -150,6 +197,7 @@ public class ReplicaConnectionProvider implements AutoCloseable {
         if (connection.isPresent()) {
             connection.get().rollback();
         }
+        state.endTransaction();
     }
 
     public void commit() throws SQLException {
@@ -158,6 +206,72 @@ public class ReplicaConnectionProvider implements AutoCloseable {
             connection.get().commit();
             recordCommit(parameters.isAutoCommit());
         }
+        state.endTransaction();
+    }
+
+    /**
+     * @param write a decision to run a write on the main database
+     */
+    public void recordWrite(RouteDecision write) {
+        writeTracker.recordWrite(write);
+    }
+
+    /**
+     * @return null if reads are not hedged
+     */
+    public ReadHedging getReadHedging() {
+        return readHedging;
+    }
+
+    /**
+     * @return null if batches are not chunked
+     */
+    public BatchChunking getBatchChunking() {
+        return batchChunking;
+    }
+
+    /**
+     * @return null if reads are not routed by rules
+     */
+    public RuleMatcher getRuleMatcher() {
+        return ruleMatcher;
+    }
+
+    /**
+     * Routes the next read of the SQL ahead of it, like a statement does, and lets the read reuse the decision.
+     *
+     * @return true if the read runs on main
+     */
+    public boolean routeRead(String sql) throws SQLException {
+        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(Reason.READ_OPERATION).sql(sql);
+        if (ruleMatcher != null) {
+            decisionBuilder.rule(ruleMatcher.match(decisionBuilder.getQuery(), getState()));
+        }
+        state.routeRead(decisionBuilder);
+        return !getState().equals(REPLICA);
+    }
+
+    /**
+     * Runs the following replica reads in a read-only transaction, so their results can be streamed.
+     *
+     * @return null if the reads don't run on the replica or run in a transaction of the application
+     */
+    public StreamingTransaction startStreaming() throws SQLException {
+        return getAutoCommit() ? state.startStreaming() : null;
+    }
+
+    public void stopStreaming(StreamingTransaction transaction) throws SQLException {
+        state.stopStreaming(transaction);
+    }
+
+    /**
+     * Provides a main connection outside of the routing, so it can run next to the current connection.
+     * The caller releases it.
+     */
+    public Connection getHedgeConnection() throws SQLException {
+        final Connection main = connectionProvider.getMainConnection();
+        parameters.initialize(main);
+        return main;
     }
 
     private void recordCommit(boolean autoCommit) throws SQLException {
@@ -166,8 +280,27 @@ public class ReplicaConnectionProvider implements AutoCloseable {
         }
     }
 
+    /**
+     * Counts the closes of the provider, so statements of a closed handle can tell, that the provider serves
+     * another client since.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
     @Override
     public void close() throws SQLException {
+        generation++;
         state.close();
     }
+
+    /**
+     * Clears the state of the closed provider, so it can serve another client.
+     */
+    public void reopen() {
+        state.reopen();
+        parameters.reset();
+        warnings.clear();
+        writeTracker.reset();
+    }
 }
@@ -1,6 +1,11 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.api.RoutingRule;
 import com.atlassian.db.replica.api.reason.Reason;
+import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.internal.cache.CacheSession;
+import com.atlassian.db.replica.internal.cache.QueryKey;
+import com.atlassian.db.replica.internal.cache.QueryParameters;
 import com.atlassian.db.replica.spi.DatabaseCall;
 import com.atlassian.db.replica.spi.ReplicaConsistency;
 
@@ -12,16 +17,23 @@ import java.sql.*;
 import java.util.Calendar;
 import java.util.Set;
 
+import static com.atlassian.db.replica.api.reason.Reason.READ_VIA_EXECUTE;
 import static com.atlassian.db.replica.api.reason.Reason.RW_API_CALL;
+import static com.atlassian.db.replica.api.state.State.MAIN;
+import static com.atlassian.db.replica.internal.BatchBuffer.Kind.*;
 
 public class ReplicaPreparedStatement extends ReplicaStatement implements PreparedStatement {
     private final String sql;
+    private final SqlQuery query;
     private final Integer resultSetType;
     private final Integer resultSetConcurrency;
     private final Integer resultSetHoldability;
     private final Integer autoGeneratedKeys;
     private final String[] columnNames;
     private final int[] columnIndexes;
+    private final ReplicaConnectionProvider connectionProvider;
+    private final CacheSession cacheSession;
+    private final QueryParameters cacheParameters;
 
     protected ReplicaPreparedStatement(
         ReplicaConnectionProvider connectionProvider,
@@ -34,8 +46,9 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
         Integer autoGeneratedKeys,
         String[] columnNames,
         int[] columnIndexes,
-        Set<String> readOnlyFunctions,
-        boolean compatibleWithPreviousVersion
+        SqlFunction sqlFunction,
+        boolean compatibleWithPreviousVersion,
+        CacheSession cacheSession
     ) {
         super(
             consistency,
@@ -44,15 +57,19 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
             resultSetType,
             resultSetConcurrency,
             resultSetHoldability,
-            readOnlyFunctions,
+            sqlFunction,
             compatibleWithPreviousVersion);
         this.sql = sql;
+        this.query = new SqlQuery(sql);
         this.resultSetType = resultSetType;
         this.resultSetConcurrency = resultSetConcurrency;
         this.resultSetHoldability = resultSetHoldability;
         this.autoGeneratedKeys = autoGeneratedKeys;
         this.columnNames = columnNames;
         this.columnIndexes = columnIndexes;
+        this.connectionProvider = connectionProvider;
+        this.cacheSession = cacheSession;
+        this.cacheParameters = startRecording(cacheSession, sql, resultSetType, resultSetConcurrency);
     }
 
     protected ReplicaPreparedStatement(
@@ -63,8 +80,9 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
         Integer resultSetType,
         Integer resultSetConcurrency,
         Integer resultSetHoldability,
-        Set<String> readOnlyFunctions,
-        boolean compatibleWithPreviousVersion
+        SqlFunction sqlFunction,
+        boolean compatibleWithPreviousVersion,
+        CacheSession cacheSession
     ) {
         super(
             consistency,
@@ -73,29 +91,106 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
             resultSetType,
             resultSetConcurrency,
             resultSetHoldability,
-            readOnlyFunctions,
+            sqlFunction,
             compatibleWithPreviousVersion);
         this.sql = sql;
+        this.query = new SqlQuery(sql);
         this.resultSetType = resultSetType;
         this.resultSetConcurrency = resultSetConcurrency;
         this.resultSetHoldability = resultSetHoldability;
         this.autoGeneratedKeys = null;
         this.columnNames = null;
         this.columnIndexes = null;
+        this.connectionProvider = connectionProvider;
+        this.cacheSession = cacheSession;
+        this.cacheParameters = startRecording(cacheSession, sql, resultSetType, resultSetConcurrency);
+    }
+
+    /**
+     * Cached results can only be read forward.
+     */
+    private static QueryParameters startRecording(
+        CacheSession cacheSession,
+        String sql,
+        Integer resultSetType,
+        Integer resultSetConcurrency
+    ) {
+        final boolean forwardOnly = resultSetType == null
+            || (resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY);
+        return forwardOnly ? cacheSession.startRecording(sql) : null;
     }
 
     @Override
     public ResultSet executeQuery() throws SQLException {
         checkClosed();
-        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(Reason.READ_OPERATION).sql(sql);
+        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(Reason.READ_OPERATION).query(query);
+        final QueryKey cacheKey = getCacheKey();
+        if (cacheKey != null) {
+            return executeCachedQuery(cacheKey, decisionBuilder);
+        }
+        final PreparedStatement statement = getReadStatement(decisionBuilder);
+        startStreaming();
+        final RouteDecision decision = decisionBuilder.build();
+        return executeObservedQuery(
+            hedge(statement, statement::executeQuery, decision, main -> ((PreparedStatement) main).executeQuery()),
+            decision
+        );
+    }
+
+    /**
+     * @return null if the query shouldn't use the cache, e.g. it could observe uncommitted writes of this connection,
+     * its results are streamed or it tolerates stale results
+     */
+    private QueryKey getCacheKey() {
+        if (cacheParameters == null || isStreaming() || connectionProvider.getState().equals(MAIN)) {
+            return null;
+        }
+        if (toleratesStaleness()) {
+            return null;
+        }
+        return cacheParameters.toKey();
+    }
+
+    /**
+     * Resolves the max staleness the way the consistency check does: a rule wins over a hint, which wins over
+     * the statement. The cache holds results consistent with main, so stale results mustn't get into it.
+     */
+    private boolean toleratesStaleness() {
+        final RuleMatcher ruleMatcher = connectionProvider.getRuleMatcher();
+        if (ruleMatcher != null) {
+            final RoutingRule rule = ruleMatcher.match(query, connectionProvider.getState());
+            if (rule != null) {
+                return rule.getMaxStaleness() != null;
+            }
+        }
+        return query.getMaxStalenessHint() != null || getMaxStaleness() != null;
+    }
+
+    /**
+     * Buffered parameters are applied later, when the query runs on the database again.
+     */
+    private ResultSet executeCachedQuery(QueryKey cacheKey, RouteDecisionBuilder decisionBuilder) throws SQLException {
+        final ResultSet cached = cacheSession.get(cacheKey, this);
+        if (cached != null) {
+            if (getCurrentStatement() != null) {
+                performOperations();
+            }
+            return cached;
+        }
+        final long generation = cacheSession.getGeneration();
         final PreparedStatement statement = getReadStatement(decisionBuilder);
-        return execute(statement::executeQuery, decisionBuilder.build());
+        final RouteDecision decision = decisionBuilder.build();
+        final ResultSet results = executeObservedQuery(statement::executeQuery, decision);
+        if (!decision.getReason().equals(Reason.READ_OPERATION)) {
+            return results;
+        }
+        return cacheSession.put(cacheKey, generation, results, this);
     }
 
     @Override
     public int executeUpdate() throws SQLException {
         checkClosed();
-        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).sql(this.sql);
+        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).query(query);
         final PreparedStatement statement = getWriteStatement(decisionBuilder);
         return execute(statement::executeUpdate, decisionBuilder.build());
     }
@@ -103,7 +198,7 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public long executeLargeUpdate() throws SQLException {
         checkClosed();
-        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).sql(this.sql);
+        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).query(query);
         final PreparedStatement statement = getWriteStatement(decisionBuilder);
         return execute(statement::executeLargeUpdate, decisionBuilder.build());
     }
@@ -111,128 +206,102 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNull(parameterIndex, sqlType)
-        );
+        addParameter(parameterIndex, NULL, sqlType, null);
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBoolean(parameterIndex, x)
-        );
+        addParameter(parameterIndex, BOOLEAN, x ? 1 : 0, null);
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setByte(parameterIndex, x)
-        );
+        addParameter(parameterIndex, BYTE, x, null);
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setShort(parameterIndex, x)
-        );
+        addParameter(parameterIndex, SHORT, x, null);
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setInt(parameterIndex, x)
-        );
+        addParameter(parameterIndex, INT, x, null);
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setLong(parameterIndex, x)
-        );
+        addParameter(parameterIndex, LONG, x, null);
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setFloat(parameterIndex, x)
-        );
+        addParameter(parameterIndex, FLOAT, Float.floatToRawIntBits(x), null);
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setDouble(parameterIndex, x)
-        );
+        addParameter(parameterIndex, DOUBLE, Double.doubleToRawLongBits(x), null);
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBigDecimal(parameterIndex, x)
-        );
+        addParameter(parameterIndex, BIG_DECIMAL, 0, x);
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setString(parameterIndex, x)
-        );
+        addParameter(parameterIndex, STRING, 0, x);
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBytes(parameterIndex, x)
-        );
+        addParameter(parameterIndex, BYTES, 0, x);
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setDate(parameterIndex, x)
-        );
+        addParameter(parameterIndex, DATE, 0, x);
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setTime(parameterIndex, x)
-        );
+        addParameter(parameterIndex, TIME, 0, x);
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setTimestamp(parameterIndex, x)
-        );
+        addParameter(parameterIndex, TIMESTAMP, 0, x);
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setAsciiStream(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setAsciiStream(parameterIndex, x)
         );
     }
 
     @Override
     public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> {
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> {
                 //noinspection deprecation
                 statement.setUnicodeStream(parameterIndex, x, length);
             }
@@ -242,8 +311,9 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBinaryStream(parameterIndex, x, length)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setBinaryStream(parameterIndex, x, length)
         );
     }
 
@@ -251,45 +321,62 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     public void clearParameters() throws SQLException {
         checkClosed();
         clearOperations();
+        if (isBatching()) {
+            getBatch().clearParameters();
+        }
+        if (cacheParameters != null) {
+            cacheParameters.clear();
+        }
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setObject(parameterIndex, x, targetSqlType)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setObject(parameterIndex, x, targetSqlType)
         );
     }
 
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setObject(parameterIndex, x)
-        );
+        addParameter(parameterIndex, OBJECT, 0, x);
     }
 
     @Override
     public boolean execute() throws SQLException {
         checkClosed();
-        final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).sql(this.sql);
-        final PreparedStatement statement = getWriteStatement(decisionBuilder);
+        final RouteDecisionBuilder decisionBuilder;
+        final PreparedStatement statement;
+        if (isReadViaExecute(query)) {
+            decisionBuilder = new RouteDecisionBuilder(READ_VIA_EXECUTE).query(query);
+            statement = getReadStatement(decisionBuilder);
+            startStreaming();
+        } else {
+            decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).query(query);
+            statement = getWriteStatement(decisionBuilder);
+        }
         return execute(statement::execute, decisionBuilder.build());
     }
 
     @Override
     public void addBatch() throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) PreparedStatement::addBatch
-        );
+        if (!isBatching()) {
+            for (@SuppressWarnings("rawtypes") StatementOperation operation : takeParameters()) {
+                getBatch().add(OPERATION, 0, 0, operation);
+            }
+        }
+        addedRow(getBatch().addRow());
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setCharacterStream(
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setCharacterStream(
                 parameterIndex,
                 reader,
                 length
@@ -300,32 +387,36 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setRef(int parameterIndex, Ref x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setRef(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setRef(parameterIndex, x)
         );
     }
 
     @Override
     public void setBlob(int parameterIndex, Blob x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBlob(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setBlob(parameterIndex, x)
         );
     }
 
     @Override
     public void setClob(int parameterIndex, Clob x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setClob(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setClob(parameterIndex, x)
         );
     }
 
     @Override
     public void setArray(int parameterIndex, Array x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setArray(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setArray(parameterIndex, x)
         );
     }
 
@@ -338,40 +429,45 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setDate(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setDate(parameterIndex, x)
         );
     }
 
     @Override
     public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setTime(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setTime(parameterIndex, x)
         );
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setTimestamp(parameterIndex, x, cal)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setTimestamp(parameterIndex, x, cal)
         );
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNull(parameterIndex, sqlType, typeName)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setNull(parameterIndex, sqlType, typeName)
         );
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setURL(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setURL(parameterIndex, x)
         );
     }
 
@@ -389,24 +485,24 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setRowId(int parameterIndex, RowId x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setRowId(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setRowId(parameterIndex, x)
         );
     }
 
     @Override
     public void setNString(int parameterIndex, String value) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNString(parameterIndex, value)
-        );
+        addParameter(parameterIndex, NSTRING, 0, value);
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNCharacterStream(
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setNCharacterStream(
                 parameterIndex,
                 value,
                 length
@@ -417,48 +513,54 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setNClob(int parameterIndex, NClob value) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNClob(parameterIndex, value)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setNClob(parameterIndex, value)
         );
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setClob(parameterIndex, reader, length)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setClob(parameterIndex, reader, length)
         );
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBlob(parameterIndex, inputStream, length)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setBlob(parameterIndex, inputStream, length)
         );
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNClob(parameterIndex, reader, length)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setNClob(parameterIndex, reader, length)
         );
     }
 
     @Override
     public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setSQLXML(parameterIndex, xmlObject)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setSQLXML(parameterIndex, xmlObject)
         );
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setObject(
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setObject(
                 parameterIndex,
                 x,
                 targetSqlType,
@@ -470,24 +572,27 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setAsciiStream(parameterIndex, x, length)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setAsciiStream(parameterIndex, x, length)
         );
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBinaryStream(parameterIndex, x, length)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setBinaryStream(parameterIndex, x, length)
         );
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setCharacterStream(
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setCharacterStream(
                 parameterIndex,
                 reader,
                 length
@@ -498,59 +603,108 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setAsciiStream(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setAsciiStream(parameterIndex, x)
         );
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBinaryStream(parameterIndex, x)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setBinaryStream(parameterIndex, x)
         );
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setCharacterStream(parameterIndex, reader)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setCharacterStream(parameterIndex, reader)
         );
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNCharacterStream(parameterIndex, value)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setNCharacterStream(parameterIndex, value)
         );
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setClob(parameterIndex, reader)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setClob(parameterIndex, reader)
         );
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setBlob(parameterIndex, inputStream)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setBlob(parameterIndex, inputStream)
         );
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader) throws SQLException {
         checkClosed();
-        addOperation(
-            (StatementOperation<PreparedStatement>) statement -> statement.setNClob(parameterIndex, reader)
+        addParameter(
+            parameterIndex,
+            (ParameterOperation) statement -> statement.setNClob(parameterIndex, reader)
         );
     }
 
+    /**
+     * The operation might affect query results in a way the cache key cannot capture, e.g. a stream parameter.
+     */
+    @Override
+    protected void addOperation(@SuppressWarnings("rawtypes") StatementOperation operation) {
+        if (cacheParameters != null) {
+            cacheParameters.skip();
+        }
+        super.addOperation(operation);
+    }
+
+    /**
+     * Batched parameters go to the batch buffer as typed entries, the rest become operations.
+     */
+    private void addParameter(int parameterIndex, BatchBuffer.Kind kind, long primitive, Object reference) {
+        if (cacheParameters != null) {
+            cacheParameters.record(parameterIndex, kind.value(primitive, reference));
+        }
+        if (isBatching()) {
+            getBatch().add(kind, parameterIndex, primitive, reference);
+        } else {
+            setParameter(
+                parameterIndex,
+                (ParameterOperation) statement -> kind.apply(statement, parameterIndex, primitive, reference)
+            );
+        }
+    }
+
+    /**
+     * Adds a parameter, which the cache key cannot capture, e.g. a stream.
+     */
+    private void addParameter(int parameterIndex, ParameterOperation operation) {
+        if (cacheParameters != null) {
+            cacheParameters.skip();
+        }
+        if (isBatching()) {
+            getBatch().add(OPERATION, 0, 0, operation);
+        } else {
+            setParameter(parameterIndex, operation);
+        }
+    }
+
     @Override
     public PreparedStatement getWriteStatement(RouteDecisionBuilder decisionBuilder) {
         return (PreparedStatement) super.getWriteStatement(decisionBuilder);
@@ -582,34 +736,44 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
         }
     }
 
+    /**
+     * Sets a parameter, as opposed to a setting of the statement.
+     */
+    private interface ParameterOperation extends StatementOperation<PreparedStatement> {
+    }
+
     public static class Builder {
         private final ReplicaConnectionProvider connectionProvider;
         private final ReplicaConsistency consistency;
         private final DatabaseCall databaseCall;
         private final String sql;
-        private final Set<String> readOnlyFunctions;
+        private final SqlFunction sqlFunction;
         private final boolean compatibleWithPreviousVersion;
+        private final CacheSession cacheSession;
         private Integer resultSetType;
         private Integer resultSetConcurrency;
         private Integer resultSetHoldability;
         private Integer autoGeneratedKeys;
         private String[] columnNames;
         private int[] columnIndexes;
+        private Integer fetchSize;
 
         public Builder(
             ReplicaConnectionProvider connectionProvider,
             ReplicaConsistency consistency,
             DatabaseCall databaseCall,
             String sql,
-            Set<String> readOnlyFunctions,
-            boolean compatibleWithPreviousVersion
+            SqlFunction sqlFunction,
+            boolean compatibleWithPreviousVersion,
+            CacheSession cacheSession
         ) {
             this.connectionProvider = connectionProvider;
             this.consistency = consistency;
             this.databaseCall = databaseCall;
             this.sql = sql;
-            this.readOnlyFunctions = readOnlyFunctions;
+            this.sqlFunction = sqlFunction;
             this.compatibleWithPreviousVersion = compatibleWithPreviousVersion;
+            this.cacheSession = cacheSession;
         }
 
         public ReplicaPreparedStatement.Builder resultSetType(int resultSetType) {
@@ -642,8 +806,20 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
             return this;
         }
 
-        public ReplicaPreparedStatement build() {
-            return new ReplicaPreparedStatement(
+        /**
+         * Streams the results of reads from the replica. The results can only be read forward.
+         *
+         * @param fetchSize the number of rows fetched at a time
+         */
+        public ReplicaPreparedStatement.Builder streaming(int fetchSize) {
+            this.fetchSize = fetchSize;
+            this.resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+            this.resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
+            return this;
+        }
+
+        public ReplicaPreparedStatement build() throws SQLException {
+            final ReplicaPreparedStatement statement = new ReplicaPreparedStatement(
                 connectionProvider,
                 consistency,
                 databaseCall,
@@ -654,8 +830,13 @@ public class ReplicaPreparedStatement extends ReplicaStatement implements Prepar
                 autoGeneratedKeys,
                 columnNames,
                 columnIndexes,
-                readOnlyFunctions,
-                compatibleWithPreviousVersion);
+                sqlFunction,
+                compatibleWithPreviousVersion,
+                cacheSession);
+            if (fetchSize != null) {
+                statement.stream(fetchSize);
+            }
+            return statement;
         }
     }
 }
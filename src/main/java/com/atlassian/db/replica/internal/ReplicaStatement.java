@@ -1,18 +1,27 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.api.DualStatement;
+import com.atlassian.db.replica.api.RoutingRule;
 import com.atlassian.db.replica.api.SqlCall;
 import com.atlassian.db.replica.api.reason.Reason;
 import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.api.state.State;
+import com.atlassian.db.replica.internal.hedge.MainQuery;
+import com.atlassian.db.replica.internal.hedge.ReadHedging;
+import com.atlassian.db.replica.internal.state.StreamingTransaction;
 import com.atlassian.db.replica.spi.DatabaseCall;
 import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.ResultSetObserver;
 
 import java.sql.*;
+import java.time.Duration;
 import java.util.*;
 
 import static com.atlassian.db.replica.api.reason.Reason.*;
 import static com.atlassian.db.replica.api.state.State.MAIN;
+import static com.atlassian.db.replica.api.state.State.REPLICA;
 
-public class ReplicaStatement implements Statement {
+public class ReplicaStatement implements Statement, DualStatement {
     private final ReplicaConnectionProvider connectionProvider;
     private final Integer resultSetType;
     private final Integer resultSetConcurrency;
@@ -20,26 +29,40 @@ public class ReplicaStatement implements Statement {
     private Statement currentStatement;
     private volatile boolean isClosed = false;
     @SuppressWarnings("rawtypes")
-    private final List<StatementOperation> operations = new ArrayList<>();
-    private final List<StatementOperation<Statement>> batches = new ArrayList<>();
+    private List<StatementOperation> operations;
+    private ParameterBuffer parameters;
+    private BatchBuffer batch;
+    private ChunkedBatch chunkedBatch;
     private final ReplicaConsistency consistency;
     private final DatabaseCall databaseCall;
     private boolean isWriteOperation = true;
     private final SqlFunction sqlFunction;
+    private List<StatementOperation<Statement>> settings = Collections.emptyList();
+    private List<Object> settingKeys = Collections.emptyList();
+    private ParameterBuffer hedgeParameters;
+    private MainQuery hedge;
+    private boolean streaming = false;
+    private StreamingTransaction streamingTransaction;
+    private Duration maxStaleness;
     private final DecisionAwareReference<Statement> readStatement = new DecisionAwareReference<Statement>() {
         @Override
         public Statement create() throws Exception {
-            return createStatement(connectionProvider.getReadConnection(getFirstCause()));
+            return replay(createStatement(connectionProvider.getReadConnection(getFirstCause(), maxStaleness)), settings);
         }
     };
     private final DecisionAwareReference<Statement> writeStatement = new DecisionAwareReference<Statement>() {
         @Override
         public Statement create() throws Exception {
-            return createStatement(connectionProvider.getWriteConnection(getFirstCause()));
+            return replay(createStatement(connectionProvider.getWriteConnection(getFirstCause())), settings);
         }
     };
 
     private boolean compatibleWithPreviousVersion;
+    /**
+     * The generation of the provider, when the statement was created. A recycled provider has moved on, so
+     * a leaked statement can't run on the connections of the next client.
+     */
+    private final int generation;
 
     public ReplicaStatement(
         ReplicaConsistency consistency,
@@ -48,7 +71,7 @@ public class ReplicaStatement implements Statement {
         Integer resultSetType,
         Integer resultSetConcurrency,
         Integer resultSetHoldability,
-        Set<String> readOnlyFunctions,
+        SqlFunction sqlFunction,
         boolean compatibleWithPreviousVersion
     ) {
         this.consistency = consistency;
@@ -57,8 +80,9 @@ public class ReplicaStatement implements Statement {
         this.resultSetType = resultSetType;
         this.resultSetConcurrency = resultSetConcurrency;
         this.resultSetHoldability = resultSetHoldability;
-        this.sqlFunction = new SqlFunction(readOnlyFunctions);
+        this.sqlFunction = sqlFunction;
         this.compatibleWithPreviousVersion = compatibleWithPreviousVersion;
+        this.generation = connectionProvider.getGeneration();
     }
 
     @Override
@@ -66,7 +90,11 @@ public class ReplicaStatement implements Statement {
         checkClosed();
         final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(READ_OPERATION).sql(sql);
         final Statement statement = getReadStatement(decisionBuilder);
-        return execute(() -> statement.executeQuery(sql), decisionBuilder.build());
+        final RouteDecision decision = decisionBuilder.build();
+        return executeObservedQuery(
+            hedge(statement, () -> statement.executeQuery(sql), decision, main -> main.executeQuery(sql)),
+            decision
+        );
     }
 
     @Override
@@ -83,16 +111,19 @@ public class ReplicaStatement implements Statement {
     @Override
     public void close() throws SQLException {
         isClosed = true;
-        for (final Statement statement : allStatements()) {
-            try {
-                statement.close();
-            } catch (Exception e) {
-                // Ignore. We can't add it to warnings. It's impossible to read them after Statement#close
-            }
-        }
+        closeQuietly(readStatement);
+        closeQuietly(writeStatement);
         readStatement.reset();
         writeStatement.reset();
         currentStatement = null;
+        closeHedge();
+        if (streamingTransaction != null) {
+            final StreamingTransaction transaction = streamingTransaction;
+            streamingTransaction = null;
+            if (generation == connectionProvider.getGeneration()) {
+                connectionProvider.stopStreaming(transaction);
+            }
+        }
     }
 
     @Override
@@ -126,7 +157,8 @@ public class ReplicaStatement implements Statement {
     @Override
     public void setEscapeProcessing(boolean enable) throws SQLException {
         checkClosed();
-        addOperation(
+        addSetting(
+            "escapeProcessing",
             (StatementOperation<Statement>) statement -> statement.setEscapeProcessing(enable)
         );
     }
@@ -140,7 +172,8 @@ public class ReplicaStatement implements Statement {
     @Override
     public void setQueryTimeout(int seconds) throws SQLException {
         checkClosed();
-        addOperation(
+        addSetting(
+            "queryTimeout",
             (StatementOperation<Statement>) statement -> statement.setQueryTimeout(seconds)
         );
     }
@@ -182,10 +215,13 @@ public class ReplicaStatement implements Statement {
         final Statement statement;
         SqlQuery sqlQuery = new SqlQuery(sql);
         if (sqlQuery.isSqlSet()) {
-            decisionBuilder = new RouteDecisionBuilder(READ_OPERATION).sql(sql);
+            decisionBuilder = new RouteDecisionBuilder(READ_OPERATION).query(sqlQuery);
+            statement = getReadStatement(decisionBuilder);
+        } else if (isReadViaExecute(sqlQuery)) {
+            decisionBuilder = new RouteDecisionBuilder(READ_VIA_EXECUTE).query(sqlQuery);
             statement = getReadStatement(decisionBuilder);
         } else {
-            decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).sql(sql);
+            decisionBuilder = new RouteDecisionBuilder(RW_API_CALL).query(sqlQuery);
             statement = getWriteStatement(decisionBuilder);
         }
         return execute(
@@ -224,7 +260,8 @@ public class ReplicaStatement implements Statement {
     @Override
     public void setFetchDirection(int direction) throws SQLException {
         checkClosed();
-        addOperation(
+        addSetting(
+            "fetchDirection",
             (StatementOperation<Statement>) statement -> statement.setFetchDirection(direction)
         );
     }
@@ -238,7 +275,7 @@ public class ReplicaStatement implements Statement {
     @Override
     public void setFetchSize(int rows) throws SQLException {
         checkClosed();
-        addOperation(statement -> statement.setFetchSize(rows));
+        addSetting("fetchSize", statement -> statement.setFetchSize(rows));
     }
 
     @Override
@@ -262,16 +299,21 @@ public class ReplicaStatement implements Statement {
     @Override
     public void addBatch(String sql) throws SQLException {
         checkClosed();
-        final StatementOperation<Statement> addBatch = statement -> statement.addBatch(sql);
-        addOperation(addBatch);
-        batches.add(addBatch);
+        addedRow(getBatch().addSql(sql));
     }
 
     @Override
     public void clearBatch() throws SQLException {
         checkClosed();
-        batches.forEach(operations::remove);
-        batches.clear();
+        if (batch != null) {
+            if (batch.wasReplayed() && getCurrentStatement() != null) {
+                getCurrentStatement().clearBatch();
+            }
+            batch.clear();
+        }
+        if (chunkedBatch != null) {
+            chunkedBatch.clear();
+        }
     }
 
     @Override
@@ -279,7 +321,14 @@ public class ReplicaStatement implements Statement {
         checkClosed();
         final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL);
         final Statement statement = getWriteStatement(decisionBuilder);
-        return execute(statement::executeBatch, decisionBuilder.build());
+        if (chunkedBatch == null) {
+            return execute(statement::executeBatch, decisionBuilder.build());
+        }
+        try {
+            return chunkedBatch.complete(execute(statement::executeBatch, decisionBuilder.build()));
+        } catch (BatchUpdateException e) {
+            throw chunkedBatch.fail(e);
+        }
     }
 
     @Override
@@ -374,13 +423,14 @@ public class ReplicaStatement implements Statement {
 
     @Override
     public boolean isClosed() {
-        return isClosed;
+        return isClosed || generation != connectionProvider.getGeneration();
     }
 
     @Override
     public void setPoolable(boolean poolable) throws SQLException {
         checkClosed();
-        addOperation(
+        addSetting(
+            "poolable",
             (StatementOperation<Statement>) statement -> statement.setPoolable(poolable)
         );
     }
@@ -403,6 +453,16 @@ public class ReplicaStatement implements Statement {
         throw new ReadReplicaUnsupportedOperationException();
     }
 
+    @Override
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    @Override
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
         if (iface.isAssignableFrom(getClass())) {
@@ -454,10 +514,17 @@ public class ReplicaStatement implements Statement {
         checkClosed();
         final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL);
         final Statement statement = getWriteStatement(decisionBuilder);
-        return execute(
-            statement::executeLargeBatch,
-            decisionBuilder.build()
-        );
+        if (chunkedBatch == null) {
+            return execute(
+                statement::executeLargeBatch,
+                decisionBuilder.build()
+            );
+        }
+        try {
+            return chunkedBatch.complete(execute(statement::executeLargeBatch, decisionBuilder.build()));
+        } catch (BatchUpdateException e) {
+            throw chunkedBatch.fail(e);
+        }
     }
 
     @Override
@@ -504,31 +571,126 @@ public class ReplicaStatement implements Statement {
         );
     }
 
+    /**
+     * @return true if {@code execute} should route the query the same way as {@code executeQuery}
+     */
+    boolean isReadViaExecute(SqlQuery sqlQuery) {
+        return !compatibleWithPreviousVersion && (sqlQuery.isQuery() || sqlQuery.isReadOnlyCall(sqlFunction));
+    }
+
+    /**
+     * Lets the {@link DatabaseCall} observe the results, if it asks for it.
+     */
+    ResultSet executeObservedQuery(SqlCall<ResultSet> call, RouteDecision routeDecision) throws SQLException {
+        final ResultSetObserver observer = databaseCall.observeResults(routeDecision);
+        if (observer == null) {
+            return execute(call, routeDecision);
+        }
+        final long start = System.nanoTime();
+        final ResultSet results = execute(call, routeDecision);
+        return results == null ? null : new ObservedResultSet(results, observer, start);
+    }
+
     <T> T execute(final SqlCall<T> call, final RouteDecision routeDecision) throws SQLException {
+        closeHedge();
         final T result = databaseCall.call(call, routeDecision);
         if (compatibleWithPreviousVersion) {
             if (routeDecision.willRunOnMain() && isWriteOperation) {
-                recordWriteAfterQueryExecution();
+                recordWriteAfterQueryExecution(routeDecision);
             }
         } else {
             if (routeDecision.mustRunOnMain()) {
-                recordWriteAfterQueryExecution();
+                recordWriteAfterQueryExecution(routeDecision);
             }
         }
         return result;
     }
 
     public void performOperations() {
-        //noinspection rawtypes
-        for (StatementOperation operation : operations) {
+        if (operations != null && !operations.isEmpty()) {
+            try {
+                replay(getCurrentStatement(), operations);
+            } catch (Exception e) {
+                throw new ReadReplicaUnsupportedOperationException(e);
+            }
+            operations.clear();
+        }
+        if (parameters != null && !parameters.isEmpty()) {
+            try {
+                parameters.replay(getCurrentStatement());
+            } catch (Exception e) {
+                throw new ReadReplicaUnsupportedOperationException(e);
+            }
+            parameters.clear();
+        }
+        if (batch != null) {
             try {
-                //noinspection unchecked
-                operation.accept(getCurrentStatement());
+                batch.replay(getCurrentStatement());
             } catch (Exception e) {
                 throw new ReadReplicaUnsupportedOperationException(e);
             }
         }
-        operations.clear();
+    }
+
+    /**
+     * Removes the pending parameters.
+     *
+     * @return the removed parameters in the order of their indexes
+     */
+    @SuppressWarnings("rawtypes")
+    List<StatementOperation> takeParameters() {
+        final List<StatementOperation> taken = new ArrayList<>();
+        if (parameters != null) {
+            parameters.copyTo(taken);
+            parameters.clear();
+        }
+        return taken;
+    }
+
+    /**
+     * @return the buffer of the batch, created on first use, so statements without batches don't pay for it
+     */
+    BatchBuffer getBatch() {
+        if (batch == null) {
+            batch = new BatchBuffer();
+        }
+        return batch;
+    }
+
+    /**
+     * @return true if the statement buffers parameters in the batch, i.e. a row was added to the batch before
+     */
+    boolean isBatching() {
+        return batch != null;
+    }
+
+    /**
+     * Passes the buffered batch to the main statement right away, if the batch is known to run there.
+     * Otherwise, the batch stays buffered until the statement is executed.
+     * Executes the rows added so far, if batches are chunked and the chunk is full.
+     *
+     * @param rowBytes the estimated size of the added row
+     */
+    void addedRow(long rowBytes) throws SQLException {
+        if (connectionProvider.getState().equals(MAIN)) {
+            prepareWriteStatement(new RouteDecisionBuilder(RW_API_CALL));
+        }
+        if (chunkedBatch == null) {
+            final BatchChunking chunking = connectionProvider.getBatchChunking();
+            if (chunking == null) {
+                return;
+            }
+            chunkedBatch = chunking.start();
+        }
+        if (chunkedBatch.add(rowBytes)) {
+            final RouteDecisionBuilder decisionBuilder = new RouteDecisionBuilder(RW_API_CALL);
+            final Statement statement = getWriteStatement(decisionBuilder);
+            try {
+                chunkedBatch.executed(execute(statement::executeBatch, decisionBuilder.build()));
+            } catch (BatchUpdateException e) {
+                throw chunkedBatch.fail(e);
+            }
+        }
     }
 
     protected Statement getCurrentStatement() {
@@ -540,24 +702,169 @@ public class ReplicaStatement implements Statement {
     }
 
     protected void addOperation(@SuppressWarnings("rawtypes") StatementOperation operation) {
+        if (operations == null) {
+            operations = new ArrayList<>();
+        }
         operations.add(operation);
     }
 
+    /**
+     * Sets a parameter, replacing the pending value of the same parameter.
+     */
+    protected void setParameter(int index, @SuppressWarnings("rawtypes") StatementOperation operation) {
+        if (parameters == null) {
+            parameters = new ParameterBuffer();
+        }
+        parameters.set(index, operation);
+        if (connectionProvider.getReadHedging() != null) {
+            if (hedgeParameters == null) {
+                hedgeParameters = new ParameterBuffer();
+            }
+            hedgeParameters.set(index, operation);
+        }
+    }
+
+    /**
+     * Adds an operation, which doesn't affect query results, e.g. a fetch size.
+     * Settings apply to every statement, which runs queries, no matter when it's created.
+     *
+     * @param key identifies the setting, an operation replaces the earlier one with an equal key
+     */
+    protected void addSetting(Object key, StatementOperation<Statement> operation) throws SQLException {
+        final int index = settingKeys.indexOf(key);
+        if (index >= 0) {
+            settings.set(index, operation);
+        } else {
+            if (settings.isEmpty()) {
+                settings = new ArrayList<>();
+                settingKeys = new ArrayList<>();
+            }
+            settings.add(operation);
+            settingKeys.add(key);
+        }
+        for (Statement statement : allStatements()) {
+            operation.accept(statement);
+        }
+    }
+
+    /**
+     * Streams the results of reads from the replica, instead of fetching them at once.
+     *
+     * @param fetchSize the number of rows fetched at a time
+     */
+    void stream(int fetchSize) throws SQLException {
+        streaming = true;
+        addSetting("fetchSize", statement -> statement.setFetchSize(fetchSize));
+    }
+
+    boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * @return false if the query has to run on a single statement, e.g. its results are streamed
+     */
+    protected boolean canHedge() {
+        return !streaming;
+    }
+
+    /**
+     * Starts a read-only transaction on the replica, if the query streams there in the auto-commit mode.
+     * The statement holds the transaction until it's closed.
+     */
+    void startStreaming() throws SQLException {
+        if (streaming && streamingTransaction == null) {
+            streamingTransaction = connectionProvider.startStreaming();
+        }
+    }
+
     protected void clearOperations() {
-        operations.clear();
+        if (operations != null) {
+            operations.clear();
+        }
+        if (parameters != null) {
+            parameters.clear();
+        }
+        if (hedgeParameters != null) {
+            hedgeParameters.clear();
+        }
+    }
+
+    /**
+     * Runs the query on main too, if it's latency-critical and the replica is slow.
+     * The hedge replays the settings and the current parameters, which stay set between executions until
+     * they're cleared.
+     *
+     * @param replica   the statement running the query on the replica
+     * @param query     runs the query on the replica
+     * @param mainQuery runs the query on a main statement with the same SQL
+     */
+    SqlCall<ResultSet> hedge(
+        Statement replica,
+        SqlCall<ResultSet> query,
+        RouteDecision decision,
+        MainQuery.Query mainQuery
+    ) {
+        final ReadHedging readHedging = connectionProvider.getReadHedging();
+        if (readHedging == null
+            || !canHedge()
+            || !decision.getReason().equals(READ_OPERATION)
+            || !connectionProvider.getState().equals(REPLICA)
+            || !connectionProvider.getAutoCommit()
+            || !readHedging.covers(decision.getSql().orElse(null))) {
+            return query;
+        }
+        @SuppressWarnings("rawtypes") final List<StatementOperation> replayed = new ArrayList<>(settings);
+        if (hedgeParameters != null) {
+            hedgeParameters.copyTo(replayed);
+        }
+        final MainQuery main = new MainQuery(
+            connectionProvider::getHedgeConnection,
+            connection -> replay(createStatement(connection), replayed),
+            mainQuery
+        );
+        return () -> {
+            hedge = main;
+            return readHedging.executeQuery(replica, query, main);
+        };
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <T extends Statement> T replay(T statement, List<? extends StatementOperation> operations) throws SQLException {
+        for (int i = 0; i < operations.size(); i++) {
+            operations.get(i).accept(statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Releases the main connection of the last hedged query, together with its results.
+     */
+    private void closeHedge() {
+        if (hedge != null) {
+            hedge.close();
+            hedge = null;
+        }
     }
 
     public static Builder builder(
         ReplicaConnectionProvider connectionProvider,
         ReplicaConsistency consistency,
         DatabaseCall databaseCall,
-        Set<String> readOnlyFunctions,
+        SqlFunction sqlFunction,
         boolean compatibleWithPreviousVersion
     ) {
-        return new Builder(connectionProvider, consistency, databaseCall, readOnlyFunctions, compatibleWithPreviousVersion);
+        return new Builder(
+            connectionProvider,
+            consistency,
+            databaseCall,
+            sqlFunction,
+            compatibleWithPreviousVersion
+        );
     }
 
-    void recordWriteAfterQueryExecution() throws SQLException {
+    void recordWriteAfterQueryExecution(RouteDecision routeDecision) throws SQLException {
+        connectionProvider.recordWrite(routeDecision);
         final Connection connection = currentStatement.getConnection();
         if (connection.getAutoCommit()) {
             consistency.write(connection);
@@ -565,14 +872,15 @@ public class ReplicaStatement implements Statement {
     }
 
     public Statement getReadStatement(RouteDecisionBuilder decisionBuilder) {
-        if (connectionProvider.getState().equals(MAIN)) {
+        final State state = connectionProvider.getState();
+        if (state.equals(MAIN)) {
             decisionBuilder.reason(MAIN_CONNECTION_REUSE);
             connectionProvider.getStateDecision().ifPresent(decisionBuilder::cause);
             return prepareWriteStatement(decisionBuilder);
         }
-        SqlQuery sqlQuery = new SqlQuery(decisionBuilder.getSql());
+        SqlQuery sqlQuery = decisionBuilder.getQuery();
         if (compatibleWithPreviousVersion) {
-            isWriteOperation = sqlQuery.isWriteOperation(sqlFunction);
+            isWriteOperation = sqlQuery.isWriteOperation(sqlFunction) || sqlQuery.isCall();
             if (isWriteOperation) {
                 decisionBuilder.reason(WRITE_OPERATION);
                 return prepareWriteStatement(decisionBuilder);
@@ -588,6 +896,19 @@ public class ReplicaStatement implements Statement {
             decisionBuilder.reason(LOCK);
             return prepareWriteStatement(decisionBuilder);
         }
+        if (sqlQuery.isMainHinted()) {
+            decisionBuilder.reason(MAIN_HINT);
+            return prepareWriteStatement(decisionBuilder);
+        }
+        final RuleMatcher ruleMatcher = connectionProvider.getRuleMatcher();
+        if (ruleMatcher != null) {
+            final RoutingRule rule = ruleMatcher.match(sqlQuery, state);
+            decisionBuilder.rule(rule);
+            if (rule != null && rule.isRunOnMain()) {
+                decisionBuilder.reason(MAIN_RULE);
+                return prepareWriteStatement(decisionBuilder);
+            }
+        }
         setCurrentStatement(getCurrentStatement() != null ? getCurrentStatement() : readStatement.get(decisionBuilder));
         performOperations();
         return getCurrentStatement();
@@ -619,19 +940,29 @@ public class ReplicaStatement implements Statement {
     private Collection<Statement> allStatements() {
         final List<Statement> statements = new ArrayList<>();
         if (readStatement.isInitialized()) {
-            statements.add(readStatement.get(new RouteDecisionBuilder(RO_API_CALL)));
+            statements.add(readStatement.get());
         }
         if (writeStatement.isInitialized()) {
-            statements.add(writeStatement.get(new RouteDecisionBuilder(RW_API_CALL)));
+            statements.add(writeStatement.get());
         }
         return statements;
     }
 
+    private static void closeQuietly(LazyReference<Statement> statement) {
+        if (statement.isInitialized()) {
+            try {
+                statement.get().close();
+            } catch (Exception e) {
+                // Ignore. We can't add it to warnings. It's impossible to read them after Statement#close
+            }
+        }
+    }
+
     public static class Builder {
         private final ReplicaConnectionProvider connectionProvider;
         private final ReplicaConsistency consistency;
         private final DatabaseCall databaseCall;
-        private final Set<String> readOnlyFunctions;
+        private final SqlFunction sqlFunction;
         private final boolean compatibleWithPreviousVersion;
         private Integer resultSetType;
         private Integer resultSetConcurrency;
@@ -641,13 +972,13 @@ public class ReplicaStatement implements Statement {
             ReplicaConnectionProvider connectionProvider,
             ReplicaConsistency consistency,
             DatabaseCall databaseCall,
-            Set<String> readOnlyFunctions,
+            SqlFunction sqlFunction,
             boolean compatibleWithPreviousVersion
         ) {
             this.connectionProvider = connectionProvider;
             this.consistency = consistency;
             this.databaseCall = databaseCall;
-            this.readOnlyFunctions = readOnlyFunctions;
+            this.sqlFunction = sqlFunction;
             this.compatibleWithPreviousVersion = compatibleWithPreviousVersion;
         }
 
@@ -674,7 +1005,7 @@ public class ReplicaStatement implements Statement {
                 resultSetType,
                 resultSetConcurrency,
                 resultSetHoldability,
-                readOnlyFunctions,
+                sqlFunction,
                 compatibleWithPreviousVersion);
         }
     }
@@ -1,21 +1,32 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.api.RoutingRule;
 import com.atlassian.db.replica.api.reason.Reason;
 import com.atlassian.db.replica.api.reason.RouteDecision;
 
 import java.util.Objects;
 
 public final class RouteDecisionBuilder {
-    private String sql = null;
+    private static final SqlQuery NO_QUERY = new SqlQuery(null);
+    private SqlQuery query = NO_QUERY;
     private Reason reason;
     private RouteDecision cause = null;
+    private RoutingRule rule = null;
 
     public RouteDecisionBuilder(Reason reason) {
         this.reason = reason;
     }
 
     public RouteDecisionBuilder sql(final String sql) {
-        this.sql = sql;
+        this.query = new SqlQuery(sql);
+        return this;
+    }
+
+    /**
+     * Carries the query along with the decision, so whoever routes it reuses its classification.
+     */
+    public RouteDecisionBuilder query(final SqlQuery query) {
+        this.query = query;
         return this;
     }
 
@@ -29,12 +40,25 @@ public final class RouteDecisionBuilder {
         return this;
     }
 
+    public RouteDecisionBuilder rule(final RoutingRule rule) {
+        this.rule = rule;
+        return this;
+    }
+
     public String getSql() {
-        return sql;
+        return query.getSql();
+    }
+
+    public SqlQuery getQuery() {
+        return query;
+    }
+
+    public RoutingRule getRule() {
+        return rule;
     }
 
     public RouteDecision build() {
-        return new RouteDecision(sql, reason, cause);
+        return new RouteDecision(getSql(), reason, cause, rule == null ? null : rule.getName());
     }
 
     @Override
@@ -42,22 +66,24 @@ public final class RouteDecisionBuilder {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RouteDecisionBuilder that = (RouteDecisionBuilder) o;
-        return Objects.equals(sql, that.sql)
+        return Objects.equals(getSql(), that.getSql())
             && Objects.equals(reason, that.reason)
-            && Objects.equals(cause, that.cause);
+            && Objects.equals(cause, that.cause)
+            && Objects.equals(rule, that.rule);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(sql, reason, cause);
+        return Objects.hash(getSql(), reason, cause, rule);
     }
 
     @Override
     public String toString() {
         return "RouteDecisionBuilder{" +
-            "sql='" + sql + '\'' +
+            "sql='" + getSql() + '\'' +
             ", reason=" + reason +
             ", cause=" + cause +
+            ", rule=" + rule +
             '}';
     }
 }
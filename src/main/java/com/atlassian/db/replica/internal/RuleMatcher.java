@@ -0,0 +1,129 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.api.RoutingRule;
+import com.atlassian.db.replica.api.StatementKind;
+import com.atlassian.db.replica.api.state.State;
+import com.atlassian.db.replica.internal.cache.QueryCache;
+import com.atlassian.db.replica.internal.util.LruCache;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Finds the first {@link RoutingRule} matching a read. Conditions of all rules are compiled into maps from a table,
+ * a function or a query to the rules they belong to. Table prefixes are checked one by one.
+ * <p>
+ * Rules matching the SQL and its kind are remembered per SQL. Only their connection states are checked per read.
+ */
+@ThreadSafe
+public final class RuleMatcher {
+    private static final int MAX_REMEMBERED_QUERIES = 4096;
+    private static final int[] NO_RULES = new int[0];
+    private final List<RoutingRule> rules;
+    private final Map<String, List<Integer>> tables = new HashMap<>();
+    private final List<String> tablePrefixes = new ArrayList<>();
+    private final List<Integer> tablePrefixRules = new ArrayList<>();
+    private final Map<String, List<Integer>> functions = new HashMap<>();
+    private final Map<String, List<Integer>> queries = new HashMap<>();
+    private final List<Integer> allReadsRules = new ArrayList<>();
+    private final LruCache<String, int[]> matchedRules = new LruCache<>(MAX_REMEMBERED_QUERIES);
+
+    public RuleMatcher(List<RoutingRule> rules) {
+        this.rules = new ArrayList<>(rules);
+        for (int i = 0; i < this.rules.size(); i++) {
+            final RoutingRule rule = this.rules.get(i);
+            for (String table : rule.getTables()) {
+                if (table.endsWith("*")) {
+                    tablePrefixes.add(table.substring(0, table.length() - 1));
+                    tablePrefixRules.add(i);
+                } else {
+                    tables.computeIfAbsent(table, key -> new ArrayList<>()).add(i);
+                }
+            }
+            for (String function : rule.getFunctions()) {
+                functions.computeIfAbsent(function, key -> new ArrayList<>()).add(i);
+            }
+            for (String query : rule.getQueries()) {
+                queries.computeIfAbsent(QueryCache.fingerprint(query), key -> new ArrayList<>()).add(i);
+            }
+            if (rule.getTables().isEmpty() && rule.getFunctions().isEmpty() && rule.getQueries().isEmpty()) {
+                allReadsRules.add(i);
+            }
+        }
+    }
+
+    /**
+     * @param state of the connection before the read
+     * @return the first rule matching the read or null
+     */
+    public RoutingRule match(SqlQuery query, State state) {
+        for (int index : findMatchingRules(query)) {
+            final RoutingRule rule = rules.get(index);
+            if (rule.getStates().isEmpty() || rule.getStates().contains(state)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return indexes of rules matching the SQL and its kind, in order
+     */
+    private int[] findMatchingRules(SqlQuery query) {
+        final String sql = query.getSql();
+        if (sql == null) {
+            return matchSql(query);
+        }
+        int[] known = matchedRules.get(sql);
+        if (known == null) {
+            known = matchSql(query);
+            matchedRules.put(sql, known);
+        }
+        return known;
+    }
+
+    private int[] matchSql(SqlQuery query) {
+        final boolean[] matched = new boolean[rules.size()];
+        mark(matched, allReadsRules);
+        if (query.getSql() != null) {
+            mark(matched, queries.get(QueryCache.fingerprint(query.getSql())));
+            final Optional<Set<String>> readTables = query.getReadTables();
+            if (readTables.isPresent()) {
+                for (String table : readTables.get()) {
+                    mark(matched, tables.get(table));
+                    for (int i = 0; i < tablePrefixes.size(); i++) {
+                        if (table.startsWith(tablePrefixes.get(i))) {
+                            matched[tablePrefixRules.get(i)] = true;
+                        }
+                    }
+                }
+            }
+            final Optional<String> function = query.getCalledFunction();
+            if (function.isPresent()) {
+                mark(matched, functions.get(function.get()));
+            }
+        }
+        final StatementKind kind = query.getKind();
+        final List<Integer> matching = new ArrayList<>();
+        for (int i = 0; i < matched.length; i++) {
+            final Set<StatementKind> kinds = rules.get(i).getStatementKinds();
+            if (matched[i] && (kinds.isEmpty() || kinds.contains(kind))) {
+                matching.add(i);
+            }
+        }
+        return matching.isEmpty() ? NO_RULES : matching.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void mark(boolean[] matched, List<Integer> indexes) {
+        if (indexes != null) {
+            for (int index : indexes) {
+                matched[index] = true;
+            }
+        }
+    }
+}
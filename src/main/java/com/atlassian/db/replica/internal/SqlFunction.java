@@ -406,10 +406,14 @@ public class SqlFunction {
         )
         .flatMap(name -> Stream.of(name, name.toUpperCase()))
         .collect(Collectors.toCollection(HashSet::new));
+    private static final String[] NO_NAMES = new String[0];
+    private static final String[] sortedStandardReadOnlyFunctions = sort(standardReadOnlyFunctions);
     private final Set<String> readOnlyFunctions;
+    private final String[] sortedReadOnlyFunctions;
 
     public SqlFunction(Set<String> readOnlyFunctions) {
         this.readOnlyFunctions = readOnlyFunctions;
+        this.sortedReadOnlyFunctions = sort(readOnlyFunctions);
     }
 
     boolean isFunctionCall(String sql) {
@@ -429,6 +433,107 @@ public class SqlFunction {
         return !hasSpaceInPotentialMethodName;
     }
 
+    /**
+     * Looks the function name up without cutting it out of the SQL, so classifying a call doesn't allocate.
+     *
+     * @param sql a call escape, e.g. {@code {? = call fn(?)}}
+     * @return true if the called function is known not to write
+     */
+    boolean isReadOnlyCall(String sql) {
+        final int start = findCalledFunction(sql);
+        int unqualified = start;
+        int end = start;
+        while (end < sql.length() && (Character.isJavaIdentifierPart(sql.charAt(end)) || sql.charAt(end) == '.')) {
+            if (sql.charAt(end) == '.') {
+                unqualified = end + 1;
+            }
+            end++;
+        }
+        return contains(sortedStandardReadOnlyFunctions, sql, unqualified, end)
+            || contains(sortedReadOnlyFunctions, sql, start, end)
+            || contains(sortedReadOnlyFunctions, sql, unqualified, end);
+    }
+
+    /**
+     * Builders create a function-less instance for every connection, so no names cost no allocations.
+     */
+    private static String[] sort(Set<String> names) {
+        if (names.isEmpty()) {
+            return NO_NAMES;
+        }
+        return names.stream().sorted().toArray(String[]::new);
+    }
+
+    /**
+     * Binary search of the SQL region in names sorted by {@link String#compareTo}.
+     */
+    private static boolean contains(String[] sortedNames, String sql, int start, int end) {
+        int low = 0;
+        int high = sortedNames.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(sortedNames[middle], sql, start, end);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(String name, String sql, int start, int end) {
+        final int length = min(name.length(), end - start);
+        for (int i = 0; i < length; i++) {
+            final int difference = name.charAt(i) - sql.charAt(start + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return name.length() - (end - start);
+    }
+
+    /**
+     * Finds the function name in {@code {call fn(?)}} or {@code {? = call fn(?)}}.
+     *
+     * @return the index of the name or -1 if the SQL isn't a call escape
+     */
+    static int findCalledFunction(String sql) {
+        if (sql == null) {
+            return -1;
+        }
+        int i = skipWhitespace(sql, 0);
+        if (i == sql.length() || sql.charAt(i) != '{') {
+            return -1;
+        }
+        i = skipWhitespace(sql, i + 1);
+        if (i < sql.length() && sql.charAt(i) == '?') {
+            i = skipWhitespace(sql, i + 1);
+            if (i == sql.length() || sql.charAt(i) != '=') {
+                return -1;
+            }
+            i = skipWhitespace(sql, i + 1);
+        }
+        final int nameStart = i + "call".length();
+        if (!sql.regionMatches(true, i, "call", 0, "call".length())
+            || nameStart == sql.length()
+            || !Character.isWhitespace(sql.charAt(nameStart))) {
+            return -1;
+        }
+        final int start = skipWhitespace(sql, nameStart);
+        return start < sql.length() && Character.isJavaIdentifierStart(sql.charAt(start)) ? start : -1;
+    }
+
+    private static int skipWhitespace(String sql, int index) {
+        int i = index;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
     /**
      * Skips `SELECT ` at the beginning of the query. Postgres identifiers are limited to
      * 63 characters, so we should be safe to interpret first 80 characters.
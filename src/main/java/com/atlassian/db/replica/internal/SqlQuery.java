@@ -1,30 +1,782 @@
 package com.atlassian.db.replica.internal;
 
+import com.atlassian.db.replica.api.StatementKind;
+import com.atlassian.db.replica.internal.util.LruCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
 public final class SqlQuery {
+    private static final Set<String> FROM_CLAUSE_ENDS = new HashSet<>(Arrays.asList(
+        "where", "group", "order", "having", "limit", "offset", "fetch", "union", "intersect", "except", "for", "window"
+    ));
+
+    private static final String HINT_PREFIX = "db-replica:";
+    private static final String[] QUERIES = {"select", "values", "table", "with"};
+    private static final String[] MODIFYING = {"insert", "update", "delete", "merge"};
+    private static final String[] CTE_BODY_STARTS = {"as", "materialized"};
+    private static final String[] LOCK_STRENGTHS = {"update", "share", "no", "key"};
+    private static final String[] EXPLAIN_OPTIONS = {"analyze", "analyse", "verbose"};
+    private static final String[] DISABLED = {"false", "off", "0"};
+    private static final StatementKind[] KEYWORD_KINDS = {
+        StatementKind.QUERY,
+        StatementKind.SESSION,
+        StatementKind.DML,
+        StatementKind.DDL,
+        StatementKind.UTILITY,
+        StatementKind.TRANSACTION
+    };
+    /**
+     * Leading keywords of each of the {@link #KEYWORD_KINDS}.
+     */
+    private static final String[][] KEYWORDS = {
+        {"show"},
+        {"set", "reset", "discard", "load"},
+        {"insert", "update", "delete", "merge", "truncate", "call", "do"},
+        {"create", "alter", "drop", "comment", "grant", "revoke", "security", "import", "reassign"},
+        {
+            "vacuum", "analyze", "analyse", "cluster", "reindex", "refresh", "lock", "listen", "unlisten", "notify",
+            "checkpoint"
+        },
+        {"begin", "start", "commit", "end", "rollback", "abort", "savepoint", "release"}
+    };
+    /**
+     * Statements are usually prepared with a few constant SQL strings, so their classifications are remembered
+     * instead of scanning long queries for clauses over and over again.
+     */
+    private static final LruCache<String, Classification> CLASSIFICATIONS = new LruCache<>(1024);
 
     private final String sql;
+    private Classification classification;
+    private Optional<Set<String>> readTables;
 
     public SqlQuery(String sql) {
         this.sql = sql;
     }
 
     boolean isWriteOperation(SqlFunction sqlFunction) {
-        return sqlFunction.isFunctionCall(sql) || isUpdate() || isDelete();
+        if (sql == null) {
+            return false;
+        }
+        final Classification classification = classification();
+        WriteCheck check = classification.writeCheck;
+        if (check == null || check.sqlFunction != sqlFunction) {
+            check = new WriteCheck(sqlFunction, checkWrite(sqlFunction));
+            classification.writeCheck = check;
+        }
+        return check.write;
+    }
+
+    private boolean checkWrite(SqlFunction sqlFunction) {
+        if (isCall()) {
+            return !sqlFunction.isReadOnlyCall(sql);
+        }
+        final StatementKind kind = getKind();
+        if (kind.isWrite()) {
+            return true;
+        }
+        final int start = getStart();
+        return kind == StatementKind.QUERY
+            && matches(sql, start, skipWord(sql, start), "select")
+            && sqlFunction.isFunctionCall(getStatement());
+    }
+
+    /**
+     * @return true if a hint routes the query to main, i.e. {@code db-replica:main}
+     */
+    boolean isMainHinted() {
+        final Hints hints = getHints();
+        return hints != null && hints.main;
+    }
+
+    /**
+     * @return true if a hint routes the query to the replica regardless of the consistency, i.e.
+     * {@code db-replica:replica}
+     */
+    public boolean isReplicaHinted() {
+        final Hints hints = getHints();
+        return hints != null && hints.replica && !hints.main;
+    }
+
+    /**
+     * @return how far the replica can fall behind main according to a hint, e.g. {@code db-replica:max-staleness=2s},
+     * or null if there's no such hint
+     */
+    public Duration getMaxStalenessHint() {
+        final Hints hints = getHints();
+        return hints == null ? null : hints.maxStaleness;
     }
 
+    /**
+     * @return true if the query calls a function with the JDBC escape syntax, e.g. {@code {? = call fn(?)}}
+     */
+    boolean isCall() {
+        return SqlFunction.findCalledFunction(sql) >= 0;
+    }
+
+    /**
+     * @return true if the query calls a function, which is known not to write, with the JDBC escape syntax
+     */
+    boolean isReadOnlyCall(SqlFunction sqlFunction) {
+        return isCall() && sqlFunction.isReadOnlyCall(sql);
+    }
+
+    /**
+     * @return true if the query locks rows, e.g. {@code SELECT ... FOR UPDATE} or {@code SELECT ... FOR SHARE}
+     */
     boolean isSelectForUpdate() {
-        return sql != null && (sql.endsWith("for update") || sql.endsWith("FOR UPDATE"));
+        return sql != null && getKind() == StatementKind.LOCKING_QUERY;
+    }
+
+    /**
+     * @return true if {@link java.sql.Statement#executeQuery} routes the query to main, regardless of the consistency
+     */
+    public boolean mustRunOnMain(SqlFunction sqlFunction) {
+        return isWriteOperation(sqlFunction) || isSelectForUpdate() || isMainHinted();
     }
 
     boolean isSqlSet() {
-        return sql.startsWith("set");
+        return sql.startsWith("set", getStart());
+    }
+
+    /**
+     * @return true if the statement only reads, possibly locking rows, e.g. {@code SELECT}, {@code WITH ... SELECT}
+     * or {@code SHOW}
+     */
+    boolean isQuery() {
+        if (sql == null) {
+            return false;
+        }
+        final StatementKind kind = getKind();
+        return kind == StatementKind.QUERY || kind == StatementKind.LOCKING_QUERY;
+    }
+
+    /**
+     * Classifies the statement by its keywords, without parsing it fully.
+     */
+    StatementKind getKind() {
+        return sql == null ? StatementKind.UNKNOWN : classification().kind;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Classifies the statement and collects its hints, once per instance.
+     */
+    private Classification classification() {
+        if (classification == null) {
+            Classification known = CLASSIFICATIONS.get(sql);
+            if (known == null) {
+                known = Classification.of(this);
+                CLASSIFICATIONS.put(sql, known);
+            }
+            classification = known;
+        }
+        return classification;
+    }
+
+    /**
+     * Finds tables the query reads from. Names are lower-cased and stripped of quotes and schemas.
+     *
+     * Common table expressions of {@code WITH} queries aren't tables, but the tables they read are.
+     *
+     * @return empty if the tables are unknown, e.g. the query isn't a plain {@code SELECT} or {@code WITH ... SELECT}
+     * or it reads from a function, which can read any table
+     */
+    public Optional<Set<String>> getReadTables() {
+        if (readTables == null) {
+            readTables = findReadTables().map(Collections::unmodifiableSet);
+        }
+        return readTables;
+    }
+
+    private Optional<Set<String>> findReadTables() {
+        final List<String> tokens = tokenize();
+        final Optional<Set<String>> commonTables;
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        } else if (tokens.get(0).equals("select")) {
+            commonTables = Optional.of(Collections.emptySet());
+        } else if (tokens.get(0).equals("with") && isQuery()) {
+            commonTables = findCommonTables(tokens);
+        } else {
+            return Optional.empty();
+        }
+        if (!commonTables.isPresent()) {
+            return Optional.empty();
+        }
+        final Set<String> tables = new HashSet<>();
+        int depth = 0;
+        int fromDepth = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            final String token = tokens.get(i);
+            if (token.equals("(")) {
+                depth++;
+            } else if (token.equals(")")) {
+                depth--;
+                if (depth < fromDepth) {
+                    fromDepth = -1;
+                }
+            } else if (token.equals("from") || token.equals("join") || (token.equals(",") && depth == fromDepth)) {
+                final int table = skip(tokens, i + 1, "only");
+                if (!readTable(tokens, table, tables) || expect(tokens, table + 1, "(")) {
+                    return Optional.empty();
+                }
+                fromDepth = depth;
+                i = table;
+            } else if (depth == fromDepth && FROM_CLAUSE_ENDS.contains(token)) {
+                fromDepth = -1;
+            }
+        }
+        tables.removeAll(commonTables.get());
+        return Optional.of(tables);
+    }
+
+    /**
+     * Finds names of common table expressions, e.g. {@code recent} in
+     * {@code WITH recent (id) AS MATERIALIZED (SELECT ...) SELECT ...}.
+     *
+     * @return empty if the names are unknown
+     */
+    private static Optional<Set<String>> findCommonTables(List<String> tokens) {
+        final Set<String> names = new HashSet<>();
+        int i = skip(tokens, 1, "recursive");
+        while (readTable(tokens, i, names)) {
+            i++;
+            if (expect(tokens, i, "(")) {
+                i = skipParentheses(tokens, i);
+            }
+            if (!expect(tokens, i, "as")) {
+                return Optional.empty();
+            }
+            i = skip(tokens, skip(tokens, i + 1, "not"), "materialized");
+            if (!expect(tokens, i, "(")) {
+                return Optional.empty();
+            }
+            i = skipParentheses(tokens, i);
+            if (!expect(tokens, i, ",")) {
+                return Optional.of(names);
+            }
+            i++;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param open index of an opening parenthesis
+     * @return index after the matching closing parenthesis
+     */
+    private static int skipParentheses(List<String> tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            if (tokens.get(i).equals("(")) {
+                depth++;
+            } else if (tokens.get(i).equals(")") && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return tokens.size();
     }
 
-    private boolean isUpdate() {
-        return sql != null && (sql.startsWith("update") || sql.startsWith("UPDATE"));
+    /**
+     * Finds the function the query calls, either with the JDBC escape syntax or as {@code SELECT fn(?)}.
+     * The name is lower-cased and stripped of the schema.
+     *
+     * @return empty if the query doesn't call a function
+     */
+    public Optional<String> getCalledFunction() {
+        final String name;
+        final int callStart = SqlFunction.findCalledFunction(sql);
+        if (callStart >= 0) {
+            int end = callStart;
+            while (end < sql.length() && (Character.isJavaIdentifierPart(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                end++;
+            }
+            name = sql.substring(callStart, end).toLowerCase(Locale.ROOT);
+        } else {
+            final List<String> tokens = tokenize();
+            if (tokens.size() < 3 || !tokens.get(0).equals("select") || !tokens.get(2).equals("(")) {
+                return Optional.empty();
+            }
+            name = tokens.get(1).replace("\"", "");
+        }
+        return Optional.of(name.substring(name.lastIndexOf('.') + 1));
     }
 
-    private boolean isDelete() {
-        return sql != null && (sql.startsWith("delete") || sql.startsWith("DELETE"));
+    /**
+     * Finds tables the query writes to. Names are lower-cased and stripped of quotes and schemas.
+     *
+     * @return empty if the tables are unknown, e.g. the query isn't a plain {@code INSERT}, {@code UPDATE},
+     * {@code DELETE} or {@code TRUNCATE}
+     */
+    public Optional<Set<String>> getWrittenTables() {
+        final List<String> tokens = tokenize();
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        final Set<String> tables = new HashSet<>();
+        final boolean known;
+        switch (tokens.get(0)) {
+            case "insert":
+            case "merge":
+                known = expect(tokens, 1, "into") && readTable(tokens, skip(tokens, 2, "only"), tables);
+                break;
+            case "update":
+                known = readTable(tokens, skip(tokens, 1, "only"), tables);
+                break;
+            case "delete":
+                known = expect(tokens, 1, "from") && readTable(tokens, skip(tokens, 2, "only"), tables);
+                break;
+            case "truncate":
+                int i = skip(tokens, skip(tokens, 1, "table"), "only");
+                boolean read = readTable(tokens, i, tables);
+                while (read && expect(tokens, i + 1, ",")) {
+                    i += 2;
+                    read = readTable(tokens, i, tables);
+                }
+                known = read;
+                break;
+            default:
+                known = false;
+        }
+        return known ? Optional.of(tables) : Optional.empty();
+    }
+
+    /**
+     * @param from where the statement starts, possibly parenthesised
+     */
+    private StatementKind classify(int from) {
+        int start = skipInsignificant(sql, from);
+        while (start < sql.length() && sql.charAt(start) == '(') {
+            start = skipInsignificant(sql, start + 1);
+        }
+        final int end = skipWord(sql, start);
+        if (end == start) {
+            return StatementKind.UNKNOWN;
+        } else if (matches(sql, start, end, QUERIES)) {
+            return classifyQuery(end, matches(sql, start, end, "with"));
+        } else if (matches(sql, start, end, "explain")) {
+            return classifyExplain(end);
+        } else if (matches(sql, start, end, "copy")) {
+            return classifyCopy(end);
+        } else {
+            return byKeyword(start, end);
+        }
+    }
+
+    /**
+     * @param start where the leading keyword starts
+     * @param end   where the leading keyword ends
+     * @return the kind of statements starting with the keyword
+     */
+    private StatementKind byKeyword(int start, int end) {
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            for (String keyword : KEYWORDS[i]) {
+                if (end - start == keyword.length() && sql.regionMatches(true, start, keyword, 0, keyword.length())) {
+                    return KEYWORD_KINDS[i];
+                }
+            }
+        }
+        return StatementKind.UNKNOWN;
+    }
+
+    /**
+     * Looks for clauses, which make a query write or lock rows, i.e. {@code INTO}, {@code FOR UPDATE} and alike, or
+     * {@code INSERT}, {@code UPDATE}, {@code DELETE} and {@code MERGE} in a {@code WITH} query.
+     *
+     * @param from where the query continues after its leading keyword
+     * @param with true if the query starts with {@code WITH}, so its main statement is yet to come
+     */
+    private StatementKind classifyQuery(int from, boolean with) {
+        boolean selecting = !with;
+        boolean locking = false;
+        boolean cteBody = false;
+        int depth = 0;
+        int previous = -1;
+        int previousEnd = -1;
+        int i = skipInsignificant(sql, from);
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            final int end = skipToken(sql, i);
+            if (c == '(') {
+                cteBody = depth <= 0 && matches(sql, previous, previousEnd, CTE_BODY_STARTS);
+                depth++;
+            } else {
+                if (c == ')') {
+                    depth--;
+                } else if (end > i && isWordStart(c)) {
+                    final boolean topLevel = depth <= 0;
+                    if ((cteBody || topLevel && !selecting) && matches(sql, i, end, MODIFYING)) {
+                        return StatementKind.DML;
+                    } else if (topLevel && !selecting && matches(sql, i, end, QUERIES)) {
+                        selecting = true;
+                    } else if (topLevel && selecting && matches(sql, i, end, "into")) {
+                        return StatementKind.DML;
+                    } else if (matches(sql, previous, previousEnd, "for") && matches(sql, i, end, LOCK_STRENGTHS)) {
+                        locking = true;
+                    }
+                    previous = i;
+                    previousEnd = end;
+                }
+                cteBody = false;
+            }
+            i = skipInsignificant(sql, end);
+        }
+        return locking ? StatementKind.LOCKING_QUERY : StatementKind.QUERY;
+    }
+
+    /**
+     * {@code EXPLAIN} only plans the statement, unless it's {@code EXPLAIN ANALYZE}, which runs the statement too.
+     */
+    private StatementKind classifyExplain(int from) {
+        boolean analyze = false;
+        int i = skipInsignificant(sql, from);
+        if (i < sql.length() && sql.charAt(i) == '(') {
+            i = skipInsignificant(sql, i + 1);
+            while (i < sql.length() && sql.charAt(i) != ')') {
+                final int end = skipToken(sql, i);
+                if (matches(sql, i, end, "analyze") || matches(sql, i, end, "analyse")) {
+                    final int value = skipInsignificant(sql, end);
+                    analyze = value >= sql.length() || !matches(sql, value, skipToken(sql, value), DISABLED);
+                }
+                i = skipInsignificant(sql, end);
+            }
+            i++;
+        } else {
+            int end;
+            while (i < sql.length() && matches(sql, i, end = skipWord(sql, i), EXPLAIN_OPTIONS)) {
+                analyze |= !matches(sql, i, end, "verbose");
+                i = skipInsignificant(sql, end);
+            }
+        }
+        if (!analyze) {
+            return StatementKind.QUERY;
+        }
+        return i < sql.length() ? classify(i) : StatementKind.UNKNOWN;
+    }
+
+    /**
+     * {@code COPY ... FROM} writes to a table, while {@code COPY ... TO} reads from a table or a query.
+     */
+    private StatementKind classifyCopy(int from) {
+        int depth = 0;
+        int i = skipInsignificant(sql, from);
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            final int end = skipToken(sql, i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && matches(sql, i, end, "from")) {
+                return StatementKind.DML;
+            } else if (depth == 0 && matches(sql, i, end, "to")) {
+                return StatementKind.QUERY;
+            }
+            i = skipInsignificant(sql, end);
+        }
+        return StatementKind.UNKNOWN;
+    }
+
+    private String getStatement() {
+        final int start = getStart();
+        return start == 0 ? sql : sql.substring(start);
+    }
+
+    /**
+     * @return where the statement starts, after leading whitespace and comments
+     */
+    private int getStart() {
+        return sql == null ? 0 : classification().start;
+    }
+
+    /**
+     * @return null if there are no hints
+     */
+    private Hints getHints() {
+        return sql == null ? null : classification().hints;
+    }
+
+    /**
+     * @return the index after the comment starting at the index, or the index if there's no comment
+     */
+    private static int skipComment(String sql, int index) {
+        if (sql.startsWith("/*", index)) {
+            final int end = sql.indexOf("*/", index + 2);
+            return end < 0 ? index : end + 2;
+        } else if (sql.startsWith("--", index)) {
+            final int end = sql.indexOf('\n', index);
+            return end < 0 ? sql.length() : end + 1;
+        } else {
+            return index;
+        }
+    }
+
+    /**
+     * @return the index after whitespace and comments starting at the index
+     */
+    private static int skipInsignificant(String sql, int index) {
+        int i = skipWhitespace(sql, index);
+        int end;
+        while ((end = skipComment(sql, i)) > i) {
+            i = skipWhitespace(sql, end);
+        }
+        return i;
+    }
+
+    /**
+     * @return the index after the token starting at the index, i.e. a word, a literal, a quoted identifier or
+     * a single character otherwise
+     */
+    private static int skipToken(String sql, int index) {
+        final char c = sql.charAt(index);
+        if (c == '\'' || c == '"') {
+            final int end = sql.indexOf(c, index + 1);
+            return end < 0 ? sql.length() : end + 1;
+        } else if (c == '$') {
+            return skipDollarQuoted(sql, index);
+        } else if (isWordStart(c)) {
+            return skipWord(sql, index);
+        } else {
+            return index + 1;
+        }
+    }
+
+    /**
+     * @return the index after the dollar-quoted literal starting at the index, e.g. {@code $body$ ... $body$}, or
+     * the next index if there's no such literal, e.g. there's a parameter like {@code $1}
+     */
+    private static int skipDollarQuoted(String sql, int index) {
+        int i = index + 1;
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i++;
+        }
+        if (i >= sql.length() || sql.charAt(i) != '$' || Character.isDigit(sql.charAt(index + 1))) {
+            return index + 1;
+        }
+        final int end = sql.indexOf(sql.substring(index, i + 1), i + 1);
+        return end < 0 ? sql.length() : end + i + 1 - index;
+    }
+
+    /**
+     * @return the index after the word starting at the index, or the index if there's no word
+     */
+    private static int skipWord(String sql, int index) {
+        if (index >= sql.length() || !isWordStart(sql.charAt(index))) {
+            return index;
+        }
+        int i = index + 1;
+        while (i < sql.length() && Character.isJavaIdentifierPart(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    /**
+     * @return true if the text between the indexes is the word, ignoring the case
+     */
+    private static boolean matches(String sql, int from, int to, String word) {
+        return from >= 0 && to - from == word.length() && sql.regionMatches(true, from, word, 0, word.length());
+    }
+
+    private static boolean matches(String sql, int from, int to, String[] words) {
+        for (String word : words) {
+            if (matches(sql, from, to, word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(String sql, int index) {
+        int i = index;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return false if there's no table, e.g. there's a subquery
+     */
+    private static boolean readTable(List<String> tokens, int index, Set<String> tables) {
+        if (index >= tokens.size()) {
+            return false;
+        }
+        final String token = tokens.get(index);
+        if (token.equals("lateral") || !Character.isLetter(token.charAt(0)) && token.charAt(0) != '"') {
+            return false;
+        }
+        tables.add(token.substring(token.lastIndexOf('.') + 1).replace("\"", ""));
+        return true;
+    }
+
+    private static boolean expect(List<String> tokens, int index, String token) {
+        return index < tokens.size() && tokens.get(index).equals(token);
+    }
+
+    private static int skip(List<String> tokens, int index, String token) {
+        return expect(tokens, index, token) ? index + 1 : index;
+    }
+
+    /**
+     * Splits the query into lower-cased words and punctuation. Skips string literals.
+     */
+    private List<String> tokenize() {
+        final List<String> tokens = new ArrayList<>();
+        if (sql == null) {
+            return tokens;
+        }
+        int i = skipInsignificant(sql, 0);
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                i = sql.indexOf('\'', i + 1);
+                i = i < 0 ? sql.length() : i + 1;
+            } else if (c == ',' || c == '(' || c == ')' || c == ';') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                final int start = i;
+                boolean quoted = false;
+                while (i < sql.length()) {
+                    final char d = sql.charAt(i);
+                    if (d == '"') {
+                        quoted = !quoted;
+                    } else if (!quoted && (Character.isWhitespace(d) || d == ',' || d == '(' || d == ')' || d == ';' || d == '\'')) {
+                        break;
+                    }
+                    i++;
+                }
+                tokens.add(sql.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * What the statement does and how it's hinted. Shared by all queries with the same SQL.
+     */
+    private static final class Classification {
+        private final StatementKind kind;
+        private final Hints hints;
+        private final int start;
+        private volatile WriteCheck writeCheck;
+
+        private Classification(StatementKind kind, Hints hints, int start) {
+            this.kind = kind;
+            this.hints = hints;
+            this.start = start;
+        }
+
+        /**
+         * Collects routing hints from leading hint comments, e.g. {@code db-replica:main}, on the way to the statement.
+         */
+        private static Classification of(SqlQuery query) {
+            final String sql = query.sql;
+            Hints hints = null;
+            int i = skipWhitespace(sql, 0);
+            int end;
+            while ((end = skipComment(sql, i)) > i) {
+                if (sql.startsWith("/*+", i)) {
+                    hints = Hints.parse(sql, i + 3, end - 2, hints);
+                }
+                i = skipWhitespace(sql, end);
+            }
+            return new Classification(query.classify(i), hints, i);
+        }
+    }
+
+    /**
+     * Whether the statement writes according to the known read-only functions. Connections usually share
+     * {@link SqlFunction}, so the check is remembered along with the classification.
+     */
+    private static final class WriteCheck {
+        private final SqlFunction sqlFunction;
+        private final boolean write;
+
+        private WriteCheck(SqlFunction sqlFunction, boolean write) {
+            this.sqlFunction = sqlFunction;
+            this.write = write;
+        }
+    }
+
+    /**
+     * Routing hints found in hint comments. Words without the {@code db-replica:} prefix are left to the database.
+     */
+    private static final class Hints {
+        private boolean main = false;
+        private boolean replica = false;
+        private Duration maxStaleness = null;
+
+        private static Hints parse(String sql, int from, int to, Hints hints) {
+            Hints parsed = hints;
+            int i = skipWhitespace(sql, from);
+            while (i < to) {
+                int end = i;
+                while (end < to && !Character.isWhitespace(sql.charAt(end))) {
+                    end++;
+                }
+                if (sql.regionMatches(true, i, HINT_PREFIX, 0, HINT_PREFIX.length())) {
+                    if (parsed == null) {
+                        parsed = new Hints();
+                    }
+                    parsed.add(sql, i + HINT_PREFIX.length(), end);
+                }
+                i = skipWhitespace(sql, end);
+            }
+            return parsed;
+        }
+
+        private void add(String sql, int from, int to) {
+            if (matches(sql, from, to, "main")) {
+                main = true;
+            } else if (matches(sql, from, to, "replica")) {
+                replica = true;
+            } else if (sql.regionMatches(true, from, "max-staleness=", 0, "max-staleness=".length())) {
+                final Duration duration = parseDuration(sql, from + "max-staleness=".length(), to);
+                if (duration != null) {
+                    maxStaleness = duration;
+                }
+            }
+        }
+
+        /**
+         * @return the duration written as a number of {@code ms}, {@code s} or {@code m}, or null if it's malformed
+         */
+        private static Duration parseDuration(String sql, int from, int to) {
+            long amount = 0;
+            int i = from;
+            while (i < to && i - from < 9 && Character.isDigit(sql.charAt(i))) {
+                amount = amount * 10 + Character.digit(sql.charAt(i), 10);
+                i++;
+            }
+            if (i == from) {
+                return null;
+            } else if (matches(sql, i, to, "ms")) {
+                return Duration.ofMillis(amount);
+            } else if (matches(sql, i, to, "s")) {
+                return Duration.ofSeconds(amount);
+            } else if (matches(sql, i, to, "m")) {
+                return Duration.ofMinutes(amount);
+            } else {
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,154 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.internal.cache.CacheSession;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Remembers tables written by a single connection and reports them once the writes are committed,
+ * i.e. when {@link ReplicaConsistency#write(Connection)} is called.
+ * Doesn't parse any SQL unless the tables are needed by the {@link CacheSession} or
+ * a {@link TableAwareReplicaConsistency}.
+ */
+public final class WriteTracker {
+    private final ReplicaConsistency consistency;
+    private final CacheSession cacheSession;
+    private final boolean enabled;
+    private final Set<String> writtenTables = new HashSet<>();
+    private boolean unknownWrites = false;
+
+    public WriteTracker(ReplicaConsistency consistency, CacheSession cacheSession) {
+        this.consistency = consistency;
+        this.cacheSession = cacheSession;
+        this.enabled = cacheSession.isEnabled() || consistency instanceof TableAwareReplicaConsistency;
+    }
+
+    /**
+     * @return the consistency, which is informed about the written tables
+     */
+    public ReplicaConsistency getConsistency() {
+        if (!enabled) {
+            return consistency;
+        } else if (consistency instanceof TableAwareReplicaConsistency) {
+            return new TrackingTableAwareConsistency((TableAwareReplicaConsistency) consistency);
+        } else {
+            return new TrackingConsistency();
+        }
+    }
+
+    /**
+     * Remembers the written tables until the write is committed.
+     *
+     * @param write a decision to run a write on the main database
+     */
+    public void recordWrite(RouteDecision write) {
+        if (!enabled) {
+            return;
+        }
+        final Optional<Set<String>> tables = new SqlQuery(write.getSql().orElse(null)).getWrittenTables();
+        if (tables.isPresent()) {
+            writtenTables.addAll(tables.get());
+        } else {
+            unknownWrites = true;
+        }
+    }
+
+    /**
+     * Forgets the uncommitted writes.
+     */
+    public void reset() {
+        writtenTables.clear();
+        unknownWrites = false;
+    }
+
+    /**
+     * Tables of rolled back writes are reported with the next commit. It's wasteful, but safe.
+     * A commit without any recorded writes could have written anything, e.g. via an unwrapped connection.
+     *
+     * @return tables written since the last commit or empty if they are unknown
+     */
+    private Optional<Set<String>> commit() {
+        final Optional<Set<String>> tables = unknownWrites || writtenTables.isEmpty()
+            ? Optional.empty()
+            : Optional.of(new HashSet<>(writtenTables));
+        writtenTables.clear();
+        unknownWrites = false;
+        if (tables.isPresent()) {
+            cacheSession.invalidate(tables.get());
+        } else {
+            cacheSession.invalidateAll();
+        }
+        return tables;
+    }
+
+    private class TrackingConsistency implements ReplicaConsistency {
+
+        @Override
+        public void write(Connection main) {
+            commit();
+            consistency.write(main);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica) {
+            return consistency.isConsistent(replica);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica, Duration maxStaleness) {
+            return consistency.isConsistent(replica, maxStaleness);
+        }
+    }
+
+    private class TrackingTableAwareConsistency implements TableAwareReplicaConsistency {
+        private final TableAwareReplicaConsistency consistency;
+
+        private TrackingTableAwareConsistency(TableAwareReplicaConsistency consistency) {
+            this.consistency = consistency;
+        }
+
+        @Override
+        public void write(Connection main) {
+            final Optional<Set<String>> tables = commit();
+            if (tables.isPresent()) {
+                consistency.write(main, tables.get());
+            } else {
+                consistency.write(main);
+            }
+        }
+
+        @Override
+        public void write(Connection main, Set<String> tables) {
+            commit();
+            consistency.write(main, tables);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica) {
+            return consistency.isConsistent(replica);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica, Duration maxStaleness) {
+            return consistency.isConsistent(replica, maxStaleness);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica, Set<String> tables) {
+            return consistency.isConsistent(replica, tables);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica, Set<String> tables, Duration maxStaleness) {
+            return consistency.isConsistent(replica, tables, maxStaleness);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.atlassian.db.replica.internal.cache;
+
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Connects a single connection to the shared {@link QueryCache}.
+ */
+public final class CacheSession {
+    private static final CacheSession DISABLED = new CacheSession(null);
+    private final QueryCache cache;
+
+    public CacheSession(QueryCache cache) {
+        this.cache = cache;
+    }
+
+    public static CacheSession disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * The connection invalidates results of the tables it writes to by itself, so it skips the coarser invalidation
+     * of an {@link InvalidatingConsistency} of the same cache.
+     *
+     * @return the consistency to inform about writes of the connection
+     */
+    public ReplicaConsistency bypassInvalidation(ReplicaConsistency consistency) {
+        return cache == null ? consistency : InvalidatingConsistency.unwrap(cache, consistency);
+    }
+
+    /**
+     * @return parameters to record or null if results of the SQL should not be cached
+     */
+    public QueryParameters startRecording(String sql) {
+        return cache == null ? null : cache.startRecording(sql);
+    }
+
+    /**
+     * @return cached results or null
+     */
+    public ResultSet get(QueryKey key, Statement statement) {
+        return cache.get(key, statement);
+    }
+
+    public long getGeneration() {
+        return cache.getGeneration();
+    }
+
+    public ResultSet put(QueryKey key, long generation, ResultSet results, Statement statement) throws SQLException {
+        return cache.put(key, generation, results, statement);
+    }
+
+    public void invalidate(Set<String> tables) {
+        if (cache != null) {
+            cache.invalidate(tables);
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,1285 @@
+package com.atlassian.db.replica.internal.cache;
+
+import com.atlassian.db.replica.internal.ReadReplicaUnsupportedOperationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * A forward-only, read-only cursor over a cached query result.
+ * Values are converted by Java rules, e.g. {@code getString} of a boolean column returns {@code "true"}.
+ */
+public final class CachedResultSet implements ResultSet {
+    private final ColumnarResult result;
+    private final Statement statement;
+    private int row = -1;
+    private boolean wasNull = false;
+    private boolean closed = false;
+
+    CachedResultSet(ColumnarResult result, Statement statement) {
+        this.result = result;
+        this.statement = statement;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkClosed();
+        if (row < result.getRowCount()) {
+            row++;
+        }
+        return row < result.getRowCount();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        checkClosed();
+        return wasNull;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        } else {
+            final String text = value.toString().trim();
+            return text.equalsIgnoreCase("true") || text.equalsIgnoreCase("t") || text.equals("1");
+        }
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        return (byte) getNumber(columnIndex).intValue();
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return (short) getNumber(columnIndex).intValue();
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return getNumber(columnIndex).intValue();
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return getNumber(columnIndex).longValue();
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return getNumber(columnIndex).floatValue();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return getNumber(columnIndex).doubleValue();
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        final BigDecimal value = getBigDecimal(columnIndex);
+        return value == null ? null : value.setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return null;
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else {
+            throw cannotConvert(value, byte[].class);
+        }
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return null;
+        } else if (value instanceof java.util.Date) {
+            return new Date(((java.util.Date) value).getTime());
+        } else {
+            throw cannotConvert(value, Date.class);
+        }
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return null;
+        } else if (value instanceof java.util.Date) {
+            return new Time(((java.util.Date) value).getTime());
+        } else {
+            throw cannotConvert(value, Time.class);
+        }
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return null;
+        } else if (value instanceof Timestamp) {
+            return (Timestamp) ((Timestamp) value).clone();
+        } else if (value instanceof java.util.Date) {
+            return new Timestamp(((java.util.Date) value).getTime());
+        } else {
+            throw cannotConvert(value, Timestamp.class);
+        }
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        final String value = getString(columnIndex);
+        return value == null ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Encodes the text in UTF-8, as the PostgreSQL driver does.
+     */
+    @Override
+    @Deprecated
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        final String value = getString(columnIndex);
+        return value == null ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        final byte[] value = getBytes(columnIndex);
+        return value == null ? null : new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+        return getByte(findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+        return getShort(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+        return getFloat(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel), scale);
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel));
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+        return getTime(findColumn(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        return getAsciiStream(findColumn(columnLabel));
+    }
+
+    @Override
+    @Deprecated
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        return getUnicodeStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        return getBinaryStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkClosed();
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        checkClosed();
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkClosed();
+        return new CachedResultSetMetaData(result);
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).clone();
+        } else {
+            return value;
+        }
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        checkClosed();
+        for (int column = 1; column <= result.getColumnCount(); column++) {
+            if (result.getDescription(column).getLabel().equalsIgnoreCase(columnLabel)) {
+                return column;
+            }
+        }
+        throw new SQLException("The column name " + columnLabel + " was not found in this ResultSet.");
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        final String value = getString(columnIndex);
+        return value == null ? null : new StringReader(value);
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return null;
+        } else if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        } else {
+            try {
+                return new BigDecimal(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw cannotConvert(value, BigDecimal.class);
+            }
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        checkClosed();
+        return row < 0 && result.getRowCount() > 0;
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        checkClosed();
+        return row >= result.getRowCount() && result.getRowCount() > 0;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        checkClosed();
+        return row == 0 && result.getRowCount() > 0;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkClosed();
+        return row == result.getRowCount() - 1 && row >= 0;
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkClosed();
+        return row >= 0 && row < result.getRowCount() ? row + 1 : 0;
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        checkClosed();
+        if (direction != FETCH_FORWARD) {
+            throw new ReadReplicaUnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        checkClosed();
+        return FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkClosed();
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkClosed();
+        return 0;
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        checkClosed();
+        return TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException {
+        checkClosed();
+        return CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        checkClosed();
+        return statement;
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        return getObject(findColumn(columnLabel), map);
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        return getDate(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        return getTime(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        return getTimestamp(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public URL getURL(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public URL getURL(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        checkClosed();
+        return HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed;
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String nString) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String nString) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+        return getString(columnIndex);
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+        return getNString(findColumn(columnLabel));
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        return getCharacterStream(columnIndex);
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        return getNCharacterStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+        checkClosed();
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        final Object value = getObject(columnIndex);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        } else if (type == String.class) {
+            return type.cast(getString(columnIndex));
+        } else if (type == Integer.class) {
+            return type.cast(getInt(columnIndex));
+        } else if (type == Long.class) {
+            return type.cast(getLong(columnIndex));
+        } else if (type == Double.class) {
+            return type.cast(getDouble(columnIndex));
+        } else if (type == Boolean.class) {
+            return type.cast(getBoolean(columnIndex));
+        } else if (type == BigDecimal.class) {
+            return type.cast(getBigDecimal(columnIndex));
+        } else if (type == Timestamp.class) {
+            return type.cast(getTimestamp(columnIndex));
+        } else {
+            throw cannotConvert(value, type);
+        }
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Cannot unwrap to " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    private Object getValue(int columnIndex) throws SQLException {
+        checkClosed();
+        if (row < 0 || row >= result.getRowCount()) {
+            throw new SQLException("The cursor is not on a row.");
+        }
+        if (columnIndex < 1 || columnIndex > result.getColumnCount()) {
+            throw new SQLException("The column index is out of range: " + columnIndex);
+        }
+        final Object value = result.get(row, columnIndex);
+        wasNull = value == null;
+        return value;
+    }
+
+    private Number getNumber(int columnIndex) throws SQLException {
+        final Object value = getValue(columnIndex);
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Number) {
+            return (Number) value;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        } else {
+            try {
+                return new BigDecimal(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw cannotConvert(value, Number.class);
+            }
+        }
+    }
+
+    private static SQLException cannotConvert(Object value, Class<?> type) {
+        return new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+    }
+
+    private void checkClosed() throws SQLException {
+        if (closed) {
+            throw new SQLException("This ResultSet is closed.");
+        }
+    }
+}
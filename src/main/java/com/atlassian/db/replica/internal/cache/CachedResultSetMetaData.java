@@ -0,0 +1,142 @@
+package com.atlassian.db.replica.internal.cache;
+
+import com.atlassian.db.replica.internal.ReadReplicaUnsupportedOperationException;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+final class CachedResultSetMetaData implements ResultSetMetaData {
+    private final ColumnarResult result;
+
+    CachedResultSetMetaData(ColumnarResult result) {
+        this.result = result;
+    }
+
+    @Override
+    public int getColumnCount() throws SQLException {
+        return result.getColumnCount();
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return describe(column).getNullable();
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return describe(column).getLabel();
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return describe(column).getName();
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return describe(column).getTableName();
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        throw new ReadReplicaUnsupportedOperationException();
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return describe(column).getType();
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return describe(column).getTypeName();
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        describe(column);
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        describe(column);
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        describe(column);
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return describe(column).getClassName();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Cannot unwrap to " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    private ColumnDescription describe(int column) throws SQLException {
+        if (column < 1 || column > result.getColumnCount()) {
+            throw new SQLException("The column index is out of range: " + column);
+        }
+        return result.getDescription(column);
+    }
+}
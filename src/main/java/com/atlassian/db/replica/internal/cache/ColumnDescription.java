@@ -0,0 +1,81 @@
+package com.atlassian.db.replica.internal.cache;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The subset of {@link ResultSetMetaData} kept along cached results.
+ */
+final class ColumnDescription {
+    private final String label;
+    private final String name;
+    private final String tableName;
+    private final int type;
+    private final String typeName;
+    private final String className;
+    private final int nullable;
+
+    private ColumnDescription(
+        String label,
+        String name,
+        String tableName,
+        int type,
+        String typeName,
+        String className,
+        int nullable
+    ) {
+        this.label = label;
+        this.name = name;
+        this.tableName = tableName;
+        this.type = type;
+        this.typeName = typeName;
+        this.className = className;
+        this.nullable = nullable;
+    }
+
+    static ColumnDescription describe(ResultSetMetaData metaData, int column) throws SQLException {
+        return new ColumnDescription(
+            metaData.getColumnLabel(column),
+            metaData.getColumnName(column),
+            metaData.getTableName(column),
+            metaData.getColumnType(column),
+            metaData.getColumnTypeName(column),
+            metaData.getColumnClassName(column),
+            metaData.isNullable(column)
+        );
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    int getNullable() {
+        return nullable;
+    }
+
+    long estimateSize() {
+        return 48 + ColumnarResult.estimateSize(label) + ColumnarResult.estimateSize(name)
+            + ColumnarResult.estimateSize(tableName) + ColumnarResult.estimateSize(typeName)
+            + ColumnarResult.estimateSize(className);
+    }
+}
@@ -0,0 +1,301 @@
+package com.atlassian.db.replica.internal.cache;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * Query results materialised column by column. Numeric columns are kept in primitive arrays.
+ * It's immutable once built, so many {@link CachedResultSet}s can read it at once.
+ */
+final class ColumnarResult {
+    private final ColumnDescription[] descriptions;
+    private final Column[] columns;
+    private final int rowCount;
+    private final long size;
+
+    private ColumnarResult(ColumnDescription[] descriptions, Column[] columns, int rowCount) {
+        this.descriptions = descriptions;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        long size = 64;
+        for (int i = 0; i < columns.length; i++) {
+            size += descriptions[i].estimateSize() + columns[i].estimateSize();
+        }
+        this.size = size;
+    }
+
+    /**
+     * Reads all the remaining rows.
+     */
+    static ColumnarResult materialize(ResultSet results) throws SQLException {
+        final ResultSetMetaData metaData = results.getMetaData();
+        final int columnCount = metaData.getColumnCount();
+        final ColumnDescription[] descriptions = new ColumnDescription[columnCount];
+        final Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            descriptions[i] = ColumnDescription.describe(metaData, i + 1);
+            columns[i] = Column.of(descriptions[i].getType());
+        }
+        int rowCount = 0;
+        while (results.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].read(results, i + 1, rowCount);
+            }
+            rowCount++;
+        }
+        for (Column column : columns) {
+            column.trim(rowCount);
+        }
+        return new ColumnarResult(descriptions, columns, rowCount);
+    }
+
+    /**
+     * @return false if the results have values, which are read from their connection, e.g. LOBs, arrays or XML
+     */
+    static boolean canMaterialize(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            switch (metaData.getColumnType(i)) {
+                case Types.ARRAY:
+                case Types.BLOB:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.SQLXML:
+                case Types.STRUCT:
+                case Types.REF:
+                case Types.DATALINK:
+                    return false;
+                default:
+            }
+        }
+        return true;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    int getColumnCount() {
+        return columns.length;
+    }
+
+    ColumnDescription getDescription(int columnIndex) {
+        return descriptions[columnIndex - 1];
+    }
+
+    /**
+     * @return a value or null for SQL NULL
+     */
+    Object get(int row, int columnIndex) {
+        return columns[columnIndex - 1].get(row);
+    }
+
+    /**
+     * @return estimated number of bytes held in memory
+     */
+    long estimateSize() {
+        return size;
+    }
+
+    static long estimateSize(Object value) {
+        if (value == null) {
+            return 8;
+        } else if (value instanceof String) {
+            return 48 + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return 24 + ((byte[]) value).length;
+        } else if (value instanceof BigDecimal) {
+            return 72;
+        } else if (value instanceof Date) {
+            return 40;
+        } else {
+            return 32;
+        }
+    }
+
+    private abstract static class Column {
+        private final BitSet nulls = new BitSet();
+
+        static Column of(int type) {
+            switch (type) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    return new BooleanColumn();
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return new IntColumn();
+                case Types.BIGINT:
+                    return new LongColumn();
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return new DoubleColumn();
+                default:
+                    return new ObjectColumn();
+            }
+        }
+
+        void read(ResultSet results, int columnIndex, int row) throws SQLException {
+            readValue(results, columnIndex, row);
+            if (results.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : getValue(row);
+        }
+
+        long estimateSize() {
+            return 32 + nulls.size() / 8 + estimateValuesSize();
+        }
+
+        abstract void readValue(ResultSet results, int columnIndex, int row) throws SQLException;
+
+        abstract Object getValue(int row);
+
+        abstract long estimateValuesSize();
+
+        /**
+         * Releases the spare capacity once all rows are read.
+         */
+        void trim(int rowCount) {
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+        private final BitSet values = new BitSet();
+
+        @Override
+        void readValue(ResultSet results, int columnIndex, int row) throws SQLException {
+            values.set(row, results.getBoolean(columnIndex));
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        long estimateValuesSize() {
+            return values.size() / 8;
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+        }
+
+        @Override
+        void readValue(ResultSet results, int columnIndex, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = results.getInt(columnIndex);
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimateValuesSize() {
+            return 4L * values.length;
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+        }
+
+        @Override
+        void readValue(ResultSet results, int columnIndex, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = results.getLong(columnIndex);
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimateValuesSize() {
+            return 8L * values.length;
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+        }
+
+        @Override
+        void readValue(ResultSet results, int columnIndex, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = results.getDouble(columnIndex);
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimateValuesSize() {
+            return 8L * values.length;
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+        }
+        private long valuesSize = 0;
+
+        @Override
+        void readValue(ResultSet results, int columnIndex, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            final Object value = results.getObject(columnIndex);
+            values[row] = value;
+            valuesSize += ColumnarResult.estimateSize(value);
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimateValuesSize() {
+            return 8L * values.length + valuesSize;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.atlassian.db.replica.internal.cache;
+
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Invalidates results of the {@link QueryCache} whenever the consistency is informed about a write,
+ * including writes made outside of the connections sharing the cache.
+ */
+public class InvalidatingConsistency implements ReplicaConsistency {
+    final QueryCache cache;
+    private final ReplicaConsistency consistency;
+
+    InvalidatingConsistency(QueryCache cache, ReplicaConsistency consistency) {
+        this.cache = cache;
+        this.consistency = consistency;
+    }
+
+    /**
+     * @return a consistency, which is table-aware if the wrapped one is
+     */
+    public static ReplicaConsistency wrap(QueryCache cache, ReplicaConsistency consistency) {
+        if (consistency instanceof TableAwareReplicaConsistency) {
+            return new InvalidatingTableAwareConsistency(cache, (TableAwareReplicaConsistency) consistency);
+        } else {
+            return new InvalidatingConsistency(cache, consistency);
+        }
+    }
+
+    /**
+     * Connections sharing the cache invalidate just the tables they write to, which is finer than invalidating
+     * everything on {@link #write(Connection)}, so they use the wrapped consistency directly.
+     *
+     * @return the wrapped consistency if {@code consistency} invalidates {@code cache}
+     */
+    static ReplicaConsistency unwrap(QueryCache cache, ReplicaConsistency consistency) {
+        if (consistency instanceof InvalidatingConsistency && ((InvalidatingConsistency) consistency).cache == cache) {
+            return ((InvalidatingConsistency) consistency).consistency;
+        }
+        return consistency;
+    }
+
+    @Override
+    public void write(Connection main) {
+        cache.invalidateAll();
+        consistency.write(main);
+    }
+
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica) {
+        return consistency.isConsistent(replica);
+    }
+
+    @Override
+    public boolean isConsistent(Supplier<Connection> replica, Duration maxStaleness) {
+        return consistency.isConsistent(replica, maxStaleness);
+    }
+
+    private static final class InvalidatingTableAwareConsistency extends InvalidatingConsistency
+        implements TableAwareReplicaConsistency {
+        private final TableAwareReplicaConsistency consistency;
+
+        private InvalidatingTableAwareConsistency(QueryCache cache, TableAwareReplicaConsistency consistency) {
+            super(cache, consistency);
+            this.consistency = consistency;
+        }
+
+        @Override
+        public void write(Connection main, Set<String> tables) {
+            cache.invalidate(tables);
+            consistency.write(main, tables);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica, Set<String> tables) {
+            return consistency.isConsistent(replica, tables);
+        }
+
+        @Override
+        public boolean isConsistent(Supplier<Connection> replica, Set<String> tables, Duration maxStaleness) {
+            return consistency.isConsistent(replica, tables, maxStaleness);
+        }
+    }
+}
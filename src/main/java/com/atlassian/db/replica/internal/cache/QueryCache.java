@@ -0,0 +1,268 @@
+package com.atlassian.db.replica.internal.cache;
+
+import com.atlassian.db.replica.internal.SqlQuery;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps results of allowed queries in memory. Evicts the least recently used results to stay within the size limit.
+ * <p>
+ * Results are tagged with the tables they read, so a write can invalidate just the results it affects.
+ * A write to an unknown table invalidates everything. A result read from unknown tables is invalidated by any write.
+ */
+@ThreadSafe
+public final class QueryCache {
+    private final Set<String> fingerprints;
+    private final long maxSize;
+    private final LinkedHashMap<QueryKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<QueryKey>> keysByTable = new HashMap<>();
+    private final Set<QueryKey> keysOfUnknownTables = new HashSet<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final Lock lock = new ReentrantLock();
+    private long size = 0;
+    private long generation = 0;
+
+    public QueryCache(Collection<String> queries, long maxSize) {
+        this.fingerprints = queries.stream().map(QueryCache::fingerprint).collect(Collectors.toSet());
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return parameters to record or null if results of the SQL should not be cached
+     */
+    public QueryParameters startRecording(String sql) {
+        if (sql == null || !fingerprints.contains(fingerprint(sql))) {
+            return null;
+        }
+        return new QueryParameters(sql);
+    }
+
+    /**
+     * @return cached results or null
+     */
+    public CachedResultSet get(QueryKey key, Statement statement) {
+        final CacheEntry entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new CachedResultSet(entry.result, statement);
+    }
+
+    /**
+     * @return a token to pass to {@link #put}, so results racing with invalidations aren't cached
+     */
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads and closes the results, unless they hold values tied to their connection, e.g. LOBs or arrays.
+     * Those results are returned as they are.
+     *
+     * @param generation obtained before the query started
+     * @return the cached copy of the results or the results themselves
+     */
+    public ResultSet put(QueryKey key, long generation, ResultSet results, Statement statement) throws SQLException {
+        if (!ColumnarResult.canMaterialize(results.getMetaData())) {
+            return results;
+        }
+        final ColumnarResult result;
+        try {
+            result = ColumnarResult.materialize(results);
+        } finally {
+            results.close();
+        }
+        final CacheEntry entry = new CacheEntry(result, new SqlQuery(key.getSql()).getReadTables(), key.estimateSize());
+        if (entry.size <= maxSize) {
+            store(key, generation, entry);
+        }
+        return new CachedResultSet(result, statement);
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            invalidations.add(entries.size());
+            entries.clear();
+            keysByTable.clear();
+            keysOfUnknownTables.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param tables written to, names as returned by {@link SqlQuery#getWrittenTables()}
+     */
+    public void invalidate(Set<String> tables) {
+        lock.lock();
+        try {
+            generation++;
+            for (QueryKey key : new HashSet<>(keysOfUnknownTables)) {
+                remove(key);
+                invalidations.increment();
+            }
+            for (String table : tables) {
+                final Set<QueryKey> keys = keysByTable.get(table);
+                if (keys != null) {
+                    for (QueryKey key : new HashSet<>(keys)) {
+                        remove(key);
+                        invalidations.increment();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public long getSize() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getEntryCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ignores differences in whitespace.
+     */
+    public static String fingerprint(String sql) {
+        final StringBuilder fingerprint = new StringBuilder(sql.length());
+        boolean whitespace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = true;
+            } else {
+                if (whitespace && fingerprint.length() > 0) {
+                    fingerprint.append(' ');
+                }
+                whitespace = false;
+                fingerprint.append(c);
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private void store(QueryKey key, long generation, CacheEntry entry) {
+        lock.lock();
+        try {
+            if (generation != this.generation) {
+                return;
+            }
+            remove(key);
+            entries.put(key, entry);
+            size += entry.size;
+            if (entry.tables.isPresent()) {
+                for (String table : entry.tables.get()) {
+                    keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+                }
+            } else {
+                keysOfUnknownTables.add(key);
+            }
+            final Iterator<Map.Entry<QueryKey, CacheEntry>> leastRecentlyUsed = entries.entrySet().iterator();
+            while (size > maxSize) {
+                final Map.Entry<QueryKey, CacheEntry> evicted = leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                forget(evicted.getKey(), evicted.getValue());
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(QueryKey key) {
+        final CacheEntry entry = entries.remove(key);
+        if (entry != null) {
+            forget(key, entry);
+        }
+    }
+
+    private void forget(QueryKey key, CacheEntry entry) {
+        size -= entry.size;
+        if (entry.tables.isPresent()) {
+            for (String table : entry.tables.get()) {
+                final Set<QueryKey> keys = keysByTable.get(table);
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        } else {
+            keysOfUnknownTables.remove(key);
+        }
+    }
+
+    private static final class CacheEntry {
+        private final ColumnarResult result;
+        private final Optional<Set<String>> tables;
+        private final long size;
+
+        private CacheEntry(ColumnarResult result, Optional<Set<String>> tables, long keySize) {
+            this.result = result;
+            this.tables = tables;
+            this.size = result.estimateSize() + keySize;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.atlassian.db.replica.internal.cache;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Identifies a query result by the SQL and the parameter values.
+ */
+public final class QueryKey {
+    private final String sql;
+    private final Object[] parameters;
+    private final int hashCode;
+
+    QueryKey(String sql, Object[] parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.hashCode = 31 * sql.hashCode() + Arrays.deepHashCode(parameters);
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    long estimateSize() {
+        long size = 64 + 2L * sql.length();
+        for (Object parameter : parameters) {
+            size += ColumnarResult.estimateSize(parameter);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QueryKey that = (QueryKey) o;
+        return hashCode == that.hashCode && Objects.equals(sql, that.sql) && Arrays.deepEquals(parameters, that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryKey{" +
+            "sql='" + sql + '\'' +
+            ", parameters=" + Arrays.deepToString(parameters) +
+            '}';
+    }
+}
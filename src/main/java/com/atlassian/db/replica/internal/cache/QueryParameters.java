@@ -0,0 +1,47 @@
+package com.atlassian.db.replica.internal.cache;
+
+import java.util.Arrays;
+
+/**
+ * Remembers parameter values of a cacheable prepared statement, so they can become a part of the {@link QueryKey}.
+ */
+public final class QueryParameters {
+    private static final Object[] NONE = new Object[0];
+    private final String sql;
+    private Object[] values = NONE;
+    private boolean recordable = true;
+
+    QueryParameters(String sql) {
+        this.sql = sql;
+    }
+
+    public void record(int parameterIndex, Object value) {
+        if (parameterIndex < 1) {
+            recordable = false;
+            return;
+        }
+        if (parameterIndex > values.length) {
+            values = Arrays.copyOf(values, parameterIndex);
+        }
+        values[parameterIndex - 1] = value instanceof byte[] ? ((byte[]) value).clone() : value;
+    }
+
+    /**
+     * Gives up on caching. The statement changed in a way the key cannot capture, e.g. a stream parameter
+     * or a limit of rows.
+     */
+    public void skip() {
+        recordable = false;
+    }
+
+    public void clear() {
+        values = NONE;
+    }
+
+    /**
+     * @return null if results of the statement cannot be cached
+     */
+    public QueryKey toKey() {
+        return recordable ? new QueryKey(sql, values.clone()) : null;
+    }
+}
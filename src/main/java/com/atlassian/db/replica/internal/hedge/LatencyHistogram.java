@@ -0,0 +1,72 @@
+package com.atlassian.db.replica.internal.hedge;
+
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts latencies in buckets, which double in size, starting from a microsecond.
+ * Halves the counts once they reach the window size, so older samples fade away.
+ */
+@ThreadSafe
+final class LatencyHistogram {
+    private static final int BUCKETS = 40;
+    private final long[] buckets = new long[BUCKETS];
+    private final long window;
+    private final Lock lock = new ReentrantLock();
+    private long count = 0;
+
+    LatencyHistogram(long window) {
+        this.window = window;
+    }
+
+    void record(long nanos) {
+        final long micros = Math.max(nanos / 1000, 1);
+        final int bucket = Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        lock.lock();
+        try {
+            buckets[bucket]++;
+            count++;
+            if (count >= window) {
+                count = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets[i] /= 2;
+                    count += buckets[i];
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return the upper bound of the bucket holding the percentile, in nanoseconds
+     */
+    long getPercentile(double percentile) {
+        lock.lock();
+        try {
+            final long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return (2L << i) * 1000;
+                }
+            }
+            return (2L << (BUCKETS - 1)) * 1000;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
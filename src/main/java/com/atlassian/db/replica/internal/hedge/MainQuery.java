@@ -0,0 +1,123 @@
+package com.atlassian.db.replica.internal.hedge;
+
+import com.atlassian.db.replica.api.SqlCall;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs a query on a dedicated main connection, next to the same query running on the replica.
+ * Owns the connection, so closing the query releases the connection and its results.
+ */
+@ThreadSafe
+public final class MainQuery {
+    private final SqlCall<Connection> connection;
+    private final StatementFactory statements;
+    private final Query query;
+    private final Lock lock = new ReentrantLock();
+    private Connection mainConnection;
+    private Statement statement;
+    private boolean cancelled = false;
+    private boolean closed = false;
+
+    /**
+     * @param connection provides a main connection, which is not used by anything else
+     * @param statements prepares the statement, including its parameters
+     * @param query      runs the prepared statement
+     */
+    public MainQuery(SqlCall<Connection> connection, StatementFactory statements, Query query) {
+        this.connection = connection;
+        this.statements = statements;
+        this.query = query;
+    }
+
+    ResultSet execute() throws SQLException {
+        final Connection main = connection.call();
+        final Statement prepared;
+        try {
+            prepared = statements.create(main);
+        } catch (SQLException e) {
+            main.close();
+            throw e;
+        }
+        lock.lock();
+        try {
+            mainConnection = main;
+            statement = prepared;
+            if (cancelled) {
+                throw new SQLException("The hedged query was cancelled.");
+            }
+        } finally {
+            lock.unlock();
+        }
+        return query.execute(prepared);
+    }
+
+    /**
+     * Stops the query if it's running already and prevents it from starting otherwise.
+     */
+    void cancel() {
+        final Statement running;
+        lock.lock();
+        try {
+            cancelled = true;
+            running = statement;
+        } finally {
+            lock.unlock();
+        }
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                // Ignore. The query is not needed anyway, the connection is released when it ends.
+            }
+        }
+    }
+
+    /**
+     * Releases the connection. Safe to call many times.
+     */
+    public void close() {
+        final Connection main;
+        final Statement prepared;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            main = mainConnection;
+            prepared = statement;
+            mainConnection = null;
+            statement = null;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (prepared != null) {
+                prepared.close();
+            }
+            if (main != null) {
+                if (main.isReadOnly()) {
+                    main.setReadOnly(false);
+                }
+                main.close();
+            }
+        } catch (SQLException e) {
+            // Ignore. Nobody is waiting for the hedged query anymore.
+        }
+    }
+
+    public interface StatementFactory {
+        Statement create(Connection connection) throws SQLException;
+    }
+
+    public interface Query {
+        ResultSet execute(Statement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,254 @@
+package com.atlassian.db.replica.internal.hedge;
+
+import com.atlassian.db.replica.api.SqlCall;
+import com.atlassian.db.replica.internal.cache.QueryCache;
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Starts the same query on main, if the replica doesn't respond within a delay, and takes the first results.
+ * The delay is a percentile of recent replica latencies. Uses a fixed delay until there are enough samples.
+ * The number of hedges is limited to a fraction of reads, so a slow replica can't move all the reads to main.
+ */
+@ThreadSafe
+public final class ReadHedging {
+    private static final long MIN_SAMPLES = 100;
+    private static final long WINDOW = 10_000;
+    private final Set<String> fingerprints;
+    private final Executor executor;
+    private final double percentile;
+    private final long initialDelay;
+    private final double maxHedgeRate;
+    private final LatencyHistogram latencies = new LatencyHistogram(WINDOW);
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder mainWins = new LongAdder();
+    private final LongAdder skippedHedges = new LongAdder();
+
+    public ReadHedging(
+        Collection<String> queries,
+        Executor executor,
+        double percentile,
+        Duration initialDelay,
+        double maxHedgeRate
+    ) {
+        this.fingerprints = queries.stream().map(QueryCache::fingerprint).collect(Collectors.toSet());
+        this.executor = executor;
+        this.percentile = percentile;
+        this.initialDelay = initialDelay.toNanos();
+        this.maxHedgeRate = maxHedgeRate;
+    }
+
+    /**
+     * @return true if the query is latency-critical
+     */
+    public boolean covers(String sql) {
+        return sql != null && fingerprints.contains(QueryCache.fingerprint(sql));
+    }
+
+    /**
+     * @param replica      runs the replica query, cancelled if the main query wins
+     * @param replicaQuery runs the query on the replica
+     * @param main         runs the query on main, cancelled and closed if the replica query wins
+     * @return results of the query, which finished first
+     */
+    public ResultSet executeQuery(Statement replica, SqlCall<ResultSet> replicaQuery, MainQuery main)
+        throws SQLException {
+        reads.increment();
+        final long start = System.nanoTime();
+        final CompletableFuture<ResultSet> replicaResults;
+        try {
+            replicaResults = submit(replicaQuery);
+        } catch (RejectedExecutionException e) {
+            return replicaQuery.call();
+        }
+        if (await(replica, replicaResults, getDelayNanos())) {
+            latencies.record(System.nanoTime() - start);
+            return get(replicaResults);
+        }
+        if (hedges.sum() >= maxHedgeRate * reads.sum()) {
+            skippedHedges.increment();
+            final ResultSet results = get(replicaResults);
+            latencies.record(System.nanoTime() - start);
+            return results;
+        }
+        hedges.increment();
+        final CompletableFuture<ResultSet> mainResults = submitHedge(main);
+        final boolean replicaWon;
+        try {
+            replicaWon = get(first(replicaResults, mainResults));
+        } catch (SQLException | RuntimeException e) {
+            main.cancel();
+            mainResults.whenComplete((results, failure) -> main.close());
+            abandon(replica, replicaResults);
+            throw e;
+        }
+        latencies.record(System.nanoTime() - start);
+        if (replicaWon) {
+            main.cancel();
+            mainResults.whenComplete((results, failure) -> main.close());
+            return replicaResults.join();
+        } else {
+            mainWins.increment();
+            abandon(replica, replicaResults);
+            return mainResults.join();
+        }
+    }
+
+    /**
+     * @return how many queries could be hedged
+     */
+    public long getReads() {
+        return reads.sum();
+    }
+
+    /**
+     * @return how many queries ran on main too
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return how many hedged queries finished on main first
+     */
+    public long getMainWins() {
+        return mainWins.sum();
+    }
+
+    /**
+     * @return how many slow queries were not hedged, because of the limit
+     */
+    public long getSkippedHedges() {
+        return skippedHedges.sum();
+    }
+
+    public Duration getDelay() {
+        return Duration.ofNanos(getDelayNanos());
+    }
+
+    private long getDelayNanos() {
+        if (latencies.getCount() < MIN_SAMPLES) {
+            return initialDelay;
+        }
+        return latencies.getPercentile(percentile);
+    }
+
+    private <T> CompletableFuture<T> submit(SqlCall<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(call.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<ResultSet> submitHedge(MainQuery main) {
+        try {
+            return submit(main::execute);
+        } catch (RejectedExecutionException e) {
+            final CompletableFuture<ResultSet> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    /**
+     * @return completes with true if the replica succeeds first, false if main does, or fails if both fail
+     */
+    private static CompletableFuture<Boolean> first(
+        CompletableFuture<ResultSet> replicaResults,
+        CompletableFuture<ResultSet> mainResults
+    ) {
+        final CompletableFuture<Boolean> first = new CompletableFuture<>();
+        replicaResults.whenComplete((results, failure) -> {
+            if (failure == null) {
+                first.complete(true);
+            } else if (mainResults.isCompletedExceptionally()) {
+                first.completeExceptionally(failure);
+            }
+        });
+        mainResults.whenComplete((results, failure) -> {
+            if (failure == null) {
+                first.complete(false);
+            } else if (replicaResults.isCompletedExceptionally()) {
+                replicaResults.whenComplete((replicaResult, replicaFailure) -> first.completeExceptionally(replicaFailure));
+            }
+        });
+        return first;
+    }
+
+    /**
+     * @return true if the replica query is done
+     */
+    private static boolean await(Statement replica, CompletableFuture<ResultSet> replicaResults, long nanos)
+        throws SQLException {
+        try {
+            replicaResults.get(nanos, NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(replica, replicaResults);
+            throw new SQLException(e);
+        }
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    private static void abandon(Statement replica, CompletableFuture<ResultSet> replicaResults) {
+        try {
+            replica.cancel();
+        } catch (SQLException e) {
+            // Ignore. The results are not needed anyway.
+        }
+        replicaResults.whenComplete((results, failure) -> close(results));
+    }
+
+    private static void close(ResultSet results) {
+        if (results == null) {
+            return;
+        }
+        try {
+            results.close();
+        } catch (SQLException e) {
+            // Ignore. Nobody is waiting for these results anymore.
+        }
+    }
+}
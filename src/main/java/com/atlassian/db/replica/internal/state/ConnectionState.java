@@ -1,25 +1,33 @@
 package com.atlassian.db.replica.internal.state;
 
+import com.atlassian.db.replica.api.RoutingRule;
+import com.atlassian.db.replica.api.reason.Reason;
 import com.atlassian.db.replica.api.reason.RouteDecision;
 import com.atlassian.db.replica.api.state.State;
 import com.atlassian.db.replica.internal.ConnectionParameters;
+import com.atlassian.db.replica.internal.ConnectionPrefetch;
 import com.atlassian.db.replica.internal.DecisionAwareReference;
 import com.atlassian.db.replica.internal.RouteDecisionBuilder;
+import com.atlassian.db.replica.internal.SqlQuery;
 import com.atlassian.db.replica.internal.Warnings;
 import com.atlassian.db.replica.spi.ConnectionProvider;
 import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
 import com.atlassian.db.replica.spi.state.StateListener;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import static com.atlassian.db.replica.api.reason.Reason.HIGH_TRANSACTION_ISOLATION_LEVEL;
 import static com.atlassian.db.replica.api.reason.Reason.MAIN_CONNECTION_REUSE;
+import static com.atlassian.db.replica.api.reason.Reason.REPLICA_HINT;
 import static com.atlassian.db.replica.api.reason.Reason.REPLICA_INCONSISTENT;
-import static com.atlassian.db.replica.api.reason.Reason.RO_API_CALL;
-import static com.atlassian.db.replica.api.reason.Reason.RW_API_CALL;
 import static com.atlassian.db.replica.api.state.State.CLOSED;
 import static com.atlassian.db.replica.api.state.State.COMMITED_MAIN;
 import static com.atlassian.db.replica.api.state.State.MAIN;
@@ -34,11 +42,26 @@ public final class ConnectionState {
     private final Warnings warnings;
     private final StateListener stateListener;
     private volatile boolean replicaConsistent = true;
+    private volatile boolean readOnlyTransactions = false;
+    private volatile boolean transactionPinned = false;
+    private volatile Reason routedRead = null;
+
+    private final boolean parkReplica;
+    private volatile Connection parkedReplica = null;
+    private volatile int parkedReplicaParameters;
+    private final Executor prefetchExecutor;
+    private volatile ConnectionPrefetch mainPrefetch = null;
+    private volatile boolean mainPrefetched = false;
+    private volatile StreamingTransaction streaming = null;
 
     private final DecisionAwareReference<Connection> readConnection = new DecisionAwareReference<Connection>() {
         @Override
         public Connection create() throws SQLException {
+            if (parkedReplica != null) {
+                return unparkReplica();
+            }
             if (connectionProvider.isReplicaAvailable()) {
+                prefetchMainConnection();
                 final Connection replicaConnection = connectionProvider.getReplicaConnection();
                 parameters.initialize(replicaConnection);
                 return replicaConnection;
@@ -51,7 +74,9 @@ public final class ConnectionState {
     private final DecisionAwareReference<Connection> writeConnection = new DecisionAwareReference<Connection>() {
         @Override
         public Connection create() throws SQLException {
-            final Connection mainConnection = connectionProvider.getMainConnection();
+            final Connection mainConnection = mainPrefetch != null
+                ? claimMainConnection()
+                : connectionProvider.getMainConnection();
             parameters.initialize(mainConnection);
             return mainConnection;
         }
@@ -62,13 +87,17 @@ public final class ConnectionState {
         ReplicaConsistency consistency,
         ConnectionParameters parameters,
         Warnings warnings,
-        StateListener stateListener
+        StateListener stateListener,
+        boolean parkReplica,
+        Executor prefetchExecutor
     ) {
         this.connectionProvider = connectionProvider;
         this.consistency = consistency;
         this.parameters = parameters;
         this.warnings = warnings;
         this.stateListener = stateListener;
+        this.parkReplica = parkReplica;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     public State getState() {
@@ -92,9 +121,9 @@ public final class ConnectionState {
     public Optional<Connection> getConnection() {
         final State state = getState();
         if (state.equals(REPLICA)) {
-            return Optional.of(this.readConnection.get(new RouteDecisionBuilder(RO_API_CALL)));
+            return Optional.of(this.readConnection.get());
         } else if (hasWriteConnection()) {
-            return Optional.of(this.writeConnection.get(new RouteDecisionBuilder(MAIN_CONNECTION_REUSE)));
+            return Optional.of(this.writeConnection.get());
         } else {
             return Optional.empty();
         }
@@ -104,8 +133,18 @@ public final class ConnectionState {
      * Provides a connection that will be used for reading operation. Will use read-replica if possible.
      */
     public Connection getReadConnection(RouteDecisionBuilder decisionBuilder) throws SQLException {
+        return getReadConnection(decisionBuilder, null);
+    }
+
+    /**
+     * Provides a connection that will be used for reading operation. Will use read-replica if it's not staler than
+     * the given duration.
+     *
+     * @param maxStaleness how far the replica can fall behind main, or null if it has to be consistent
+     */
+    public Connection getReadConnection(RouteDecisionBuilder decisionBuilder, Duration maxStaleness) throws SQLException {
         final State stateBefore = getState();
-        final Connection connection = prepareReadConnection(decisionBuilder);
+        final Connection connection = prepareReadConnection(decisionBuilder, maxStaleness);
         final State stateAfter = getState();
         if (!stateAfter.equals(stateBefore)) {
             stateListener.transition(stateBefore, stateAfter);
@@ -113,6 +152,15 @@ public final class ConnectionState {
         return connection;
     }
 
+    /**
+     * Routes the next read ahead of it, e.g. to run it next to the chosen database. The read reuses the decision,
+     * so the consistency isn't checked twice.
+     */
+    public void routeRead(RouteDecisionBuilder decisionBuilder) throws SQLException {
+        getReadConnection(decisionBuilder, null);
+        routedRead = decisionBuilder.build().getReason();
+    }
+
     /**
      * Provides a connection that will be used for writing operation. It will always return a connection to the
      * main database.
@@ -120,6 +168,7 @@ public final class ConnectionState {
     public Connection getWriteConnection(RouteDecisionBuilder decisionBuilder) throws SQLException {
         final State stateBefore = getState();
         replicaConsistent = true;
+        routedRead = null;
         final Connection connection = prepareMainConnection(decisionBuilder);
         final State stateAfter = getState();
         if (!stateAfter.equals(stateBefore)) {
@@ -135,12 +184,74 @@ public final class ConnectionState {
         final Optional<Connection> connection = getConnection();
         if (connection.isPresent() && connection.get().equals(writeConnection.get(decisionBuilder))) {
             readConnection.reset();
+        } else if (parkReplica) {
+            parkReplica(decisionBuilder);
         } else {
-            closeConnection(readConnection, decisionBuilder);
+            closeConnection(readConnection);
         }
         return writeConnection.get(decisionBuilder);
     }
 
+    /**
+     * Read-only transactions run on a single connection. If the replica is consistent at the start of the transaction,
+     * the whole transaction runs on the replica, regardless of the transaction isolation level. Otherwise, it runs
+     * on main.
+     *
+     * @param readOnlyTransactions true if transactions are read-only, i.e. the connection was set read-only
+     *                             before the auto-commit was disabled
+     */
+    public void setReadOnlyTransactions(boolean readOnlyTransactions) {
+        this.readOnlyTransactions = readOnlyTransactions;
+        this.transactionPinned = false;
+    }
+
+    /**
+     * Lets the next transaction choose its connection.
+     */
+    public void endTransaction() {
+        transactionPinned = false;
+    }
+
+    /**
+     * Starts streaming results from the replica connection, unless it already runs a transaction.
+     *
+     * @return null if the connection doesn't run on the replica or runs a transaction
+     */
+    public StreamingTransaction startStreaming() throws SQLException {
+        if (!getState().equals(REPLICA)) {
+            return null;
+        }
+        if (streaming == null) {
+            final Connection replica = readConnection.get();
+            if (!replica.getAutoCommit()) {
+                return null;
+            }
+            streaming = StreamingTransaction.begin(replica);
+        }
+        streaming.hold();
+        return streaming;
+    }
+
+    /**
+     * Ends the streaming transaction once no statement holds it. Does nothing if it has already ended.
+     */
+    public void stopStreaming(StreamingTransaction transaction) throws SQLException {
+        if (transaction.release() && transaction == streaming) {
+            endStreaming();
+        }
+    }
+
+    /**
+     * Ends the streaming transaction right away, e.g. before the transaction mode of the connection changes.
+     */
+    public void endStreaming() throws SQLException {
+        final StreamingTransaction transaction = streaming;
+        if (transaction != null) {
+            streaming = null;
+            transaction.end();
+        }
+    }
+
     public Optional<RouteDecision> getDecision() {
         if (getState().equals(MAIN)) {
             return Optional.of(writeConnection.getFirstCause().build());
@@ -158,10 +269,20 @@ public final class ConnectionState {
         final State state = getState();
         final boolean haWriteConnection = hasWriteConnection();
         isClosed = true;
+        final ConnectionPrefetch prefetch = mainPrefetch;
+        if (prefetch != null) {
+            mainPrefetch = null;
+            prefetch.cancel();
+        }
         if (haWriteConnection) {
-            closeConnection(writeConnection, new RouteDecisionBuilder(RW_API_CALL));
+            closeConnection(writeConnection);
         } else if (state.equals(REPLICA)) {
-            closeConnection(readConnection, new RouteDecisionBuilder(RO_API_CALL));
+            closeConnection(readConnection);
+        }
+        final Connection replica = parkedReplica;
+        if (replica != null) {
+            parkedReplica = null;
+            release(replica);
         }
         final State stateAfter = getState();
         if (!stateAfter.equals(state)) {
@@ -169,11 +290,46 @@ public final class ConnectionState {
         }
     }
 
+    /**
+     * Makes the closed state usable again, as if it was just created.
+     */
+    public void reopen() {
+        if (!getState().equals(CLOSED)) {
+            throw new IllegalStateException("Only a closed connection can be reopened");
+        }
+        readConnection.reset();
+        writeConnection.reset();
+        replicaConsistent = true;
+        readOnlyTransactions = false;
+        transactionPinned = false;
+        routedRead = null;
+        mainPrefetched = false;
+        streaming = null;
+        isClosed = false;
+    }
+
     /**
      * Provides a connection that will be used for reading operation. Will use read-replica if possible.
      */
-    private Connection prepareReadConnection(RouteDecisionBuilder decisionBuilder) throws SQLException {
-        if (parameters.getTransactionIsolation() != null && parameters.getTransactionIsolation() > Connection.TRANSACTION_READ_COMMITTED) {
+    private Connection prepareReadConnection(RouteDecisionBuilder decisionBuilder, Duration maxStaleness) throws SQLException {
+        final Reason routed = routedRead;
+        if (routed != null) {
+            routedRead = null;
+            decisionBuilder.reason(routed);
+            return getState().equals(REPLICA)
+                ? readConnection.get(decisionBuilder)
+                : writeConnection.get(decisionBuilder);
+        }
+        if (transactionPinned) {
+            if (getState().equals(REPLICA)) {
+                return readConnection.get(decisionBuilder);
+            } else if (hasWriteConnection()) {
+                decisionBuilder.reason(MAIN_CONNECTION_REUSE);
+                decisionBuilder.cause(writeConnection.getFirstCause().build());
+                return writeConnection.get(decisionBuilder);
+            }
+        }
+        if (!readOnlyTransactions && parameters.getTransactionIsolation() != null && parameters.getTransactionIsolation() > Connection.TRANSACTION_READ_COMMITTED) {
             decisionBuilder.reason(HIGH_TRANSACTION_ISOLATION_LEVEL);
             return prepareMainConnection(decisionBuilder);
         }
@@ -182,41 +338,132 @@ public final class ConnectionState {
             decisionBuilder.cause(writeConnection.getFirstCause().build());
             return writeConnection.get(decisionBuilder);
         }
-        if (consistency.isConsistent(() -> readConnection.get(decisionBuilder))) {
+        final SqlQuery query = decisionBuilder.getQuery();
+        final boolean replicaHinted = decisionBuilder.getRule() == null && query.isReplicaHinted();
+        if (replicaHinted) {
+            decisionBuilder.reason(REPLICA_HINT);
+        }
+        if (replicaHinted || isConsistent(decisionBuilder, query, maxStaleness)) {
             if (getState().equals(COMMITED_MAIN)) {
-                closeConnection(writeConnection, decisionBuilder);
+                closeConnection(writeConnection);
             }
             final Connection connection = readConnection.get(decisionBuilder);
             replicaConsistent = true;
+            transactionPinned = readOnlyTransactions;
             return connection;
         } else {
             replicaConsistent = false;
+            transactionPinned = readOnlyTransactions;
             decisionBuilder.reason(REPLICA_INCONSISTENT);
             return prepareMainConnection(decisionBuilder);
         }
     }
 
-    private void closeConnection(
-        DecisionAwareReference<Connection> connectionReference,
-        RouteDecisionBuilder decisionBuilder
-    ) throws SQLException {
+    /**
+     * @param statementStaleness how far the replica can fall behind main, unless a rule or the query says otherwise
+     */
+    private boolean isConsistent(RouteDecisionBuilder decisionBuilder, SqlQuery query, Duration statementStaleness) {
+        final Supplier<Connection> replica = () -> readConnection.get(decisionBuilder);
+        final RoutingRule rule = decisionBuilder.getRule();
+        final Duration hintedStaleness = query.getMaxStalenessHint();
+        final Duration maxStaleness;
+        if (rule != null) {
+            maxStaleness = rule.getMaxStaleness();
+        } else if (hintedStaleness != null) {
+            maxStaleness = hintedStaleness;
+        } else {
+            maxStaleness = statementStaleness;
+        }
+        if (consistency instanceof TableAwareReplicaConsistency) {
+            final Optional<Set<String>> tables = query.getReadTables();
+            if (tables.isPresent()) {
+                final TableAwareReplicaConsistency tableAware = (TableAwareReplicaConsistency) consistency;
+                return maxStaleness == null
+                    ? tableAware.isConsistent(replica, tables.get())
+                    : tableAware.isConsistent(replica, tables.get(), maxStaleness);
+            }
+        }
+        return maxStaleness == null
+            ? consistency.isConsistent(replica)
+            : consistency.isConsistent(replica, maxStaleness);
+    }
+
+    /**
+     * Starts acquiring the main connection in parallel with the first replica connection, if configured.
+     */
+    private void prefetchMainConnection() {
+        if (prefetchExecutor != null && !mainPrefetched && !writeConnection.isInitialized()) {
+            mainPrefetched = true;
+            mainPrefetch = ConnectionPrefetch.start(connectionProvider, prefetchExecutor);
+        }
+    }
+
+    private Connection claimMainConnection() throws SQLException {
+        final ConnectionPrefetch prefetch = mainPrefetch;
+        mainPrefetch = null;
+        return prefetch.claim();
+    }
+
+    /**
+     * Keeps the replica connection aside instead of returning it to the pool, so going back to the replica is free.
+     * Ends its transaction, so it doesn't hold a snapshot on the replica in the meantime.
+     */
+    private void parkReplica(RouteDecisionBuilder decisionBuilder) throws SQLException {
+        if (!readConnection.isInitialized()) {
+            return;
+        }
+        final Connection replica = readConnection.get(decisionBuilder);
+        readConnection.reset();
+        endStreaming(replica);
+        if (!replica.getAutoCommit()) {
+            replica.commit();
+        }
+        parkedReplicaParameters = parameters.getVersion();
+        parkedReplica = replica;
+    }
+
+    /**
+     * Applies parameters to the parked replica connection only if they changed in the meantime. All of them are
+     * applied, because the parked connection may hold values other than the defaults.
+     */
+    private Connection unparkReplica() throws SQLException {
+        final Connection replica = parkedReplica;
+        parkedReplica = null;
+        if (parkedReplicaParameters != parameters.getVersion()) {
+            parameters.reapply(replica);
+        }
+        return replica;
+    }
+
+    private void closeConnection(DecisionAwareReference<Connection> connectionReference) throws SQLException {
         try {
             if (!connectionReference.isInitialized()) {
                 return;
             }
-            final Connection connection = connectionReference.get(decisionBuilder);
-            try {
-                warnings.saveWarning(connection.getWarnings());
-            } catch (Exception e) {
-                warnings.saveWarning(new SQLWarning(e));
-            }
-            if (connection.isReadOnly()) {
-                connection.setAutoCommit(true);
-                connection.setReadOnly(false);
-            }
-            connection.close();
+            release(connectionReference.get());
         } finally {
             connectionReference.reset();
         }
     }
+
+    private void release(Connection connection) throws SQLException {
+        try {
+            warnings.saveWarning(connection.getWarnings());
+        } catch (Exception e) {
+            warnings.saveWarning(new SQLWarning(e));
+        }
+        endStreaming(connection);
+        if (connection.isReadOnly()) {
+            connection.setAutoCommit(true);
+            connection.setReadOnly(false);
+        }
+        connection.close();
+    }
+
+    private void endStreaming(Connection connection) throws SQLException {
+        final StreamingTransaction transaction = streaming;
+        if (transaction != null && transaction.runsOn(connection)) {
+            endStreaming();
+        }
+    }
 }
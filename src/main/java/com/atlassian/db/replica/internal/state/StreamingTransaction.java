@@ -0,0 +1,55 @@
+package com.atlassian.db.replica.internal.state;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A read-only transaction started on an auto-commit replica connection, so drivers can fetch results with a cursor,
+ * e.g. PostgreSQL streams results only outside of the auto-commit mode.
+ * Statements hold it while they stream. It ends once no statement holds it or the replica connection is let go.
+ */
+public final class StreamingTransaction {
+    private final Connection replica;
+    private final boolean wasReadOnly;
+    private int holders = 0;
+
+    private StreamingTransaction(Connection replica, boolean wasReadOnly) {
+        this.replica = replica;
+        this.wasReadOnly = wasReadOnly;
+    }
+
+    static StreamingTransaction begin(Connection replica) throws SQLException {
+        final boolean wasReadOnly = replica.isReadOnly();
+        if (!wasReadOnly) {
+            replica.setReadOnly(true);
+        }
+        replica.setAutoCommit(false);
+        return new StreamingTransaction(replica, wasReadOnly);
+    }
+
+    void hold() {
+        holders++;
+    }
+
+    /**
+     * @return true if no statement holds the transaction anymore
+     */
+    boolean release() {
+        holders--;
+        return holders <= 0;
+    }
+
+    boolean runsOn(Connection connection) {
+        return replica == connection;
+    }
+
+    /**
+     * Commits the transaction and brings the auto-commit mode back.
+     */
+    void end() throws SQLException {
+        replica.setAutoCommit(true);
+        if (!wasReadOnly) {
+            replica.setReadOnly(false);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.atlassian.db.replica.internal.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers a bounded number of values. Evicts a value, which wasn't used recently, to stay within the size limit.
+ * <p>
+ * Lookups don't lock, so they don't contend on hot paths. Eviction approximates the least recently used value with
+ * a clock: a hand goes round the values in the order they were put, gives a used value a second chance and evicts
+ * the first value not used since the hand last passed it. A put takes constant time on average, even when every
+ * lookup misses.
+ */
+@ThreadSafe
+public final class LruCache<K, V> {
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Lock lock = new ReentrantLock();
+    private final Object[] clock;
+    private int size = 0;
+    private int hand = 0;
+
+    public LruCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.clock = new Object[maxSize];
+    }
+
+    /**
+     * @return the remembered value or null
+     */
+    public V get(K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.use();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            if (entries.put(key, new Entry<>(value)) != null) {
+                return;
+            }
+            if (size < maxSize) {
+                clock[size++] = key;
+            } else {
+                clock[evictNotRecentlyUsed()] = key;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the freed position on the clock
+     */
+    @SuppressWarnings("unchecked")
+    private int evictNotRecentlyUsed() {
+        while (true) {
+            final int position = hand;
+            hand = (hand + 1) % maxSize;
+            final K key = (K) clock[position];
+            if (!entries.get(key).secondChance()) {
+                entries.remove(key);
+                return position;
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile boolean used = false;
+
+        private Entry(V value) {
+            this.value = value;
+        }
+
+        /**
+         * Skips writing an unchanged value, so threads reading the same entry don't invalidate each other's caches.
+         */
+        private void use() {
+            if (!used) {
+                used = true;
+            }
+        }
+
+        /**
+         * @return true if the entry was used since the last chance
+         */
+        private boolean secondChance() {
+            if (used) {
+                used = false;
+                return true;
+            }
+            return false;
+        }
+    }
+}
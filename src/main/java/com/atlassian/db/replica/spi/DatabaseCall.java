@@ -10,4 +10,14 @@ import java.sql.SQLException;
  */
 public interface DatabaseCall {
     <T> T call(final SqlCall<T> call, RouteDecision decision) throws SQLException;
+
+    /**
+     * Asks to observe how results of the query are read. Observed results cost a counter increment per row.
+     * Other results are passed to the application as they come from the driver.
+     *
+     * @return null if the results shouldn't be observed
+     */
+    default ResultSetObserver observeResults(RouteDecision decision) {
+        return null;
+    }
 }
@@ -3,6 +3,7 @@ package com.atlassian.db.replica.spi;
 import com.atlassian.db.replica.internal.util.ThreadSafe;
 
 import java.sql.Connection;
+import java.time.Duration;
 import java.util.function.Supplier;
 
 /**
@@ -25,4 +26,16 @@ public interface ReplicaConsistency {
      * @return true if {@code replica} is consistent with main
      */
     boolean isConsistent(Supplier<Connection> replica);
+
+    /**
+     * Judges if {@code replica} is ready to be queried by a query, which tolerates stale data.
+     * Judges as if no staleness was tolerated by default.
+     *
+     * @param replica      connects to the replica database
+     * @param maxStaleness how far the replica can fall behind main
+     * @return true if {@code replica} is at most {@code maxStaleness} behind main
+     */
+    default boolean isConsistent(Supplier<Connection> replica, Duration maxStaleness) {
+        return isConsistent(replica);
+    }
 }
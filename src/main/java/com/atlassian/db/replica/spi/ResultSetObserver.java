@@ -0,0 +1,19 @@
+package com.atlassian.db.replica.spi;
+
+import java.time.Duration;
+
+/**
+ * Observes how the application reads results of a query, e.g. to record metrics.
+ * Only rows read with {@link java.sql.ResultSet#next()} are counted.
+ */
+public interface ResultSetObserver {
+
+    /**
+     * Called once, when the results are read to the end or closed, whichever comes first.
+     *
+     * @param rows           the number of rows read
+     * @param timeToFirstRow since the query was sent until the first row was read, null if there were no rows
+     * @param timeToLastRow  since the query was sent until the results were read to the end or closed
+     */
+    void completed(long rows, Duration timeToFirstRow, Duration timeToLastRow);
+}
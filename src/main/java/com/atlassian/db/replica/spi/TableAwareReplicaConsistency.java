@@ -0,0 +1,47 @@
+package com.atlassian.db.replica.spi;
+
+import com.atlassian.db.replica.internal.util.ThreadSafe;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Tracks data consistency between replica and main databases per table.
+ * The table-agnostic methods are still called whenever the tables are unknown, e.g. the SQL is too complex to parse.
+ * They cover all the tables.
+ */
+@ThreadSafe
+public interface TableAwareReplicaConsistency extends ReplicaConsistency {
+
+    /**
+     * Informs that {@code main} received an UPDATE, INSERT or DELETE of {@code tables}.
+     *
+     * @param main   connects to the main database
+     * @param tables lower-cased names of the written tables, without schema
+     */
+    void write(Connection main, Set<String> tables);
+
+    /**
+     * Judges if {@code replica} is ready to be queried for {@code tables}.
+     *
+     * @param replica connects to the replica database
+     * @param tables  lower-cased names of the read tables, without schema
+     * @return true if {@code tables} on {@code replica} are consistent with main
+     */
+    boolean isConsistent(Supplier<Connection> replica, Set<String> tables);
+
+    /**
+     * Judges if {@code replica} is ready to be queried for {@code tables} by a query, which tolerates stale data.
+     * Judges as if no staleness was tolerated by default.
+     *
+     * @param replica      connects to the replica database
+     * @param tables       lower-cased names of the read tables, without schema
+     * @param maxStaleness how far {@code tables} on the replica can fall behind main
+     * @return true if {@code tables} on {@code replica} are at most {@code maxStaleness} behind main
+     */
+    default boolean isConsistent(Supplier<Connection> replica, Set<String> tables, Duration maxStaleness) {
+        return isConsistent(replica, tables);
+    }
+}
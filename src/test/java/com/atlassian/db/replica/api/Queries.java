@@ -10,6 +10,9 @@ public class Queries {
     @SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
     public static final String SIMPLE_QUERY = "SELECT 1;";
 
+    @SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+    public static final String SIMPLE_INSERT = "INSERT INTO t VALUES (1);";
+
     @SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
     public static final String LARGE_SQL_QUERY = "select \"ISSUE\".\"id\", /* com.atlassian.jira.jql.dbquery.ResolutionClauseDbQueryFactory */ case when exists (select 1\n" +
         "from \"public\".\"fieldscope\" \"FIELD_SCOPE_2\"\n" +
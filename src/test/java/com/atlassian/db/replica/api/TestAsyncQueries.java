@@ -0,0 +1,244 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.api.reason.Reason;
+import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.spi.DatabaseCall;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.atlassian.db.replica.api.Queries.SELECT_FOR_UPDATE;
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentInconsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestAsyncQueries {
+    private final CountingExecutor mainExecutor = new CountingExecutor();
+    private final CountingExecutor replicaExecutor = new CountingExecutor();
+
+    @Test
+    public void shouldReadFromReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ));
+
+        final String result = queries.query(SIMPLE_QUERY, statement -> statement.setLong(1, 10L), results -> "read").join();
+
+        assertThat(result).isEqualTo("read");
+        assertThat(replicaExecutor.executions.get()).isEqualTo(1);
+        assertThat(mainExecutor.executions.get()).isEqualTo(0);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        final PreparedStatement statement = (PreparedStatement) connectionProvider.singleStatement();
+        verify(statement).setLong(1, 10L);
+    }
+
+    @Test
+    public void shouldWriteToMain() {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ));
+
+        queries.update("UPDATE issue SET summary = ?", statement -> statement.setString(1, "summary")).join();
+
+        assertThat(mainExecutor.executions.get()).isEqualTo(1);
+        assertThat(replicaExecutor.executions.get()).isEqualTo(0);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldLockOnMain() {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ));
+
+        queries.query(SELECT_FOR_UPDATE, statement -> {
+        }, results -> null).join();
+
+        assertThat(mainExecutor.executions.get()).isEqualTo(1);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldCheckConsistencyLikeBlockingCalls() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentInconsistency().build()
+        ));
+
+        queries.query(SIMPLE_QUERY, statement -> {
+        }, results -> null).join();
+
+        assertThat(replicaExecutor.executions.get()).isEqualTo(1);
+        assertThat(mainExecutor.executions.get()).isEqualTo(1);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+        verify(connectionProvider.getProvidedConnections().get(1)).close();
+    }
+
+    @Test
+    public void shouldRouteToMainByRule() {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final RoutingRules rules = new RoutingRules.Builder()
+            .rule(new RoutingRule.Builder("main-counts")
+                .callingFunctions(ImmutableList.of("count_issues"))
+                .routeToMain()
+                .build())
+            .build();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).routingRules(rules));
+
+        queries.query("SELECT count_issues(?)", statement -> statement.setLong(1, 10L), results -> null).join();
+
+        assertThat(mainExecutor.executions.get()).isEqualTo(1);
+        assertThat(replicaExecutor.executions.get()).isEqualTo(0);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldRouteToMainByHint() {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ));
+
+        queries.query("/*+ db-replica:main */ SELECT 1", statement -> {
+        }, results -> null).join();
+
+        assertThat(mainExecutor.executions.get()).isEqualTo(1);
+        assertThat(replicaExecutor.executions.get()).isEqualTo(0);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldCheckConsistencyOnce() {
+        final AtomicInteger checks = new AtomicInteger();
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            new ReplicaConsistency() {
+                @Override
+                public void write(Connection main) {
+                }
+
+                @Override
+                public boolean isConsistent(Supplier<Connection> replica) {
+                    checks.incrementAndGet();
+                    return true;
+                }
+            }
+        ));
+
+        queries.query(SIMPLE_QUERY, statement -> {
+        }, results -> null).join();
+
+        assertThat(checks.get()).isEqualTo(1);
+        assertThat(replicaExecutor.executions.get()).isEqualTo(1);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldInstrumentCalls() throws Exception {
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenAnswer(invocation -> ((SqlCall<?>) invocation.getArgument(0)).call());
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            new ConnectionProviderMock(),
+            permanentConsistency().build()
+        ).databaseCall(databaseCall));
+
+        queries.query(SIMPLE_QUERY, statement -> {
+        }, results -> null).join();
+
+        final ArgumentCaptor<RouteDecision> decision = ArgumentCaptor.forClass(RouteDecision.class);
+        verify(databaseCall).call(any(), decision.capture());
+        assertThat(decision.getValue().getReason()).isEqualTo(Reason.READ_OPERATION);
+    }
+
+    @Test
+    public void shouldCloseConnections() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = asyncQueries(DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ));
+
+        queries.query(SIMPLE_QUERY, statement -> {
+        }, results -> null).join();
+
+        verify(connectionProvider.singleProvidedConnection()).close();
+    }
+
+    @Test
+    public void shouldFailWhenRejected() {
+        final AsyncQueries queries = AsyncQueries.create(
+            DualConnection.builder(new ConnectionProviderMock(), permanentConsistency().build()),
+            mainExecutor,
+            command -> {
+                throw new RejectedExecutionException("Too many queries");
+            }
+        );
+
+        final CompletableFuture<Object> result = queries.query(SIMPLE_QUERY, statement -> {
+        }, results -> null);
+
+        assertThat(result).isCompletedExceptionally();
+    }
+
+    @Test
+    public void shouldCloseConnectionWhenMainRejectsRead() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final AsyncQueries queries = AsyncQueries.create(
+            DualConnection.builder(connectionProvider, permanentInconsistency().build()),
+            command -> {
+                throw new RejectedExecutionException("Too many queries");
+            },
+            replicaExecutor
+        );
+
+        final CompletableFuture<Object> result = queries.query(SIMPLE_QUERY, statement -> {
+        }, results -> null);
+
+        assertThat(result).isCompletedExceptionally();
+        verify(connectionProvider.getProvidedConnections().get(1)).close();
+    }
+
+    private AsyncQueries asyncQueries(DualConnection.Builder connections) {
+        return AsyncQueries.create(connections, mainExecutor, replicaExecutor);
+    }
+
+    private static class CountingExecutor implements Executor {
+        private final AtomicInteger executions = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable command) {
+            executions.incrementAndGet();
+            command.run();
+        }
+    }
+}
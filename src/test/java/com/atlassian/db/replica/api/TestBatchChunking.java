@@ -0,0 +1,142 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.spi.DatabaseCall;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_INSERT;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestBatchChunking {
+
+    @Test
+    public void shouldExecuteChunksWhileAddingRows() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenReturn(new int[]{1, 1}, new int[]{1, 1}, new int[]{1});
+        final Connection connection = chunkingBuilder(connectionProvider, 2, Long.MAX_VALUE)
+            .databaseCall(databaseCall)
+            .build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        for (int row = 0; row < 4; row++) {
+            statement.setLong(1, row);
+            statement.addBatch();
+        }
+        verify(databaseCall, times(2)).call(any(), any());
+        statement.setLong(1, 4);
+        statement.addBatch();
+        final int[] counts = statement.executeBatch();
+
+        assertThat(counts).containsExactly(1, 1, 1, 1, 1);
+        verify((PreparedStatement) connectionProvider.singleStatement(), times(5)).addBatch();
+    }
+
+    @Test
+    public void shouldExecuteChunksBySize() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenReturn(new int[]{1});
+        final Connection connection = chunkingBuilder(connectionProvider, 1000, 20)
+            .databaseCall(databaseCall)
+            .build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        for (int row = 0; row < 3; row++) {
+            statement.setString(1, "0123456789");
+            statement.addBatch();
+        }
+
+        verify(databaseCall, times(2)).call(any(), any());
+    }
+
+    @Test
+    public void shouldChunkSqlBatches() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenReturn(new int[]{1}, new long[]{2});
+        final Connection connection = chunkingBuilder(connectionProvider, 1, Long.MAX_VALUE)
+            .databaseCall(databaseCall)
+            .build();
+        final Statement statement = connection.createStatement();
+
+        statement.addBatch(SIMPLE_INSERT);
+
+        assertThat(statement.executeLargeBatch()).containsExactly(1, 2);
+    }
+
+    @Test
+    public void shouldReportUpdateCountsOfAllChunksOnFailure() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any()))
+            .thenReturn(new int[]{1, 1})
+            .thenThrow(new BatchUpdateException(new int[]{1, Statement.EXECUTE_FAILED}));
+        final Connection connection = chunkingBuilder(connectionProvider, 2, Long.MAX_VALUE)
+            .databaseCall(databaseCall)
+            .build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        for (int row = 0; row < 3; row++) {
+            statement.setLong(1, row);
+            statement.addBatch();
+        }
+        final BatchUpdateException thrown = catchThrowableOfType(statement::executeBatch, BatchUpdateException.class);
+
+        assertThat(thrown.getUpdateCounts()).containsExactly(1, 1, 1, Statement.EXECUTE_FAILED);
+    }
+
+    @Test
+    public void shouldForgetExecutedChunksOnClear() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenReturn(new int[]{1, 1}, new int[]{1});
+        final Connection connection = chunkingBuilder(connectionProvider, 2, Long.MAX_VALUE)
+            .databaseCall(databaseCall)
+            .build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        statement.addBatch();
+        statement.addBatch();
+        statement.clearBatch();
+        statement.addBatch();
+
+        assertThat(statement.executeBatch()).containsExactly(1);
+    }
+
+    @Test
+    public void shouldNotChunkByDefault() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        final Connection connection = DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .databaseCall(databaseCall)
+            .build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        for (int row = 0; row < 1000; row++) {
+            statement.setLong(1, row);
+            statement.addBatch();
+        }
+
+        verify(databaseCall, never()).call(any(), any());
+    }
+
+    private DualConnection.Builder chunkingBuilder(ConnectionProviderMock connectionProvider, int rows, long bytes) {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .chunkBatches(rows, bytes);
+    }
+}
@@ -0,0 +1,125 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import org.junit.Test;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_INSERT;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestCallableStatement {
+    private static final String READ_ONLY_CALL = "{? = call get_issue(?)}";
+
+    @Test
+    public void shouldCallReadOnlyFunctionOnReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final CallableStatement statement = connection(connectionProvider).prepareCall(READ_ONLY_CALL);
+
+        statement.registerOutParameter(1, Types.VARCHAR);
+        statement.setLong(2, 10);
+        statement.execute();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        final CallableStatement call = (CallableStatement) connectionProvider.singleStatement();
+        verify(call).registerOutParameter(1, Types.VARCHAR);
+        verify(call).setLong(2, 10);
+    }
+
+    @Test
+    public void shouldCallOtherFunctionsOnMain() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final CallableStatement statement = connection(connectionProvider).prepareCall("{call update_issue(?)}");
+
+        statement.execute();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldKeepCallsOnMainWhenCompatibleWithPreviousVersion() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .readOnlyFunctions(Collections.singletonList("get_issue"))
+            .compatibleWithPreviousVersion()
+            .build();
+
+        connection.prepareCall(READ_ONLY_CALL).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldReadOutParametersOfLastCall() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final CallableStatement statement = connection(connectionProvider).prepareCall(READ_ONLY_CALL);
+        statement.registerOutParameter(1, Types.VARCHAR);
+        statement.execute();
+        when(((CallableStatement) connectionProvider.singleStatement()).getString(1)).thenReturn("summary");
+
+        assertThat(statement.getString(1)).isEqualTo("summary");
+    }
+
+    @Test
+    public void shouldRegisterOutParametersOnEveryStatement() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connection(connectionProvider);
+        final CallableStatement statement = connection.prepareCall(READ_ONLY_CALL);
+        statement.registerOutParameter(1, Types.VARCHAR);
+        statement.execute();
+
+        connection.prepareStatement(SIMPLE_INSERT).executeUpdate();
+        statement.execute();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+        final CallableStatement mainCall = (CallableStatement) connectionProvider.getPreparedStatements().get(2);
+        verify(mainCall).registerOutParameter(1, Types.VARCHAR);
+    }
+
+    @Test
+    public void shouldReplaceEarlierRegistrationOfOutParameter() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connection(connectionProvider);
+        final CallableStatement statement = connection.prepareCall(READ_ONLY_CALL);
+        statement.registerOutParameter(1, Types.VARCHAR);
+        statement.registerOutParameter("summary", Types.VARCHAR);
+        statement.execute();
+        statement.registerOutParameter(1, Types.INTEGER);
+        statement.registerOutParameter("summary", Types.CLOB);
+
+        connection.prepareStatement(SIMPLE_INSERT).executeUpdate();
+        statement.execute();
+
+        final CallableStatement mainCall = (CallableStatement) connectionProvider.getPreparedStatements().get(2);
+        verify(mainCall).registerOutParameter(1, Types.INTEGER);
+        verify(mainCall).registerOutParameter("summary", Types.CLOB);
+        verify(mainCall, never()).registerOutParameter(1, Types.VARCHAR);
+        verify(mainCall, never()).registerOutParameter("summary", Types.VARCHAR);
+    }
+
+    @Test
+    public void shouldFailToReadOutParametersBeforeCall() throws SQLException {
+        final CallableStatement statement = connection(new ConnectionProviderMock()).prepareCall(READ_ONLY_CALL);
+
+        final Throwable thrown = catchThrowable(() -> statement.getString(1));
+
+        assertThat(thrown).isInstanceOf(SQLException.class);
+    }
+
+    private Connection connection(ConnectionProviderMock connectionProvider) throws SQLException {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .readOnlyFunctions(Collections.singletonList("get_issue"))
+            .build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.api.state.State;
+import com.atlassian.db.replica.spi.state.StateListener;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TestConnectionRecycling {
+
+    @Test
+    public void shouldHandOutNewHandle() throws SQLException {
+        final DualConnection.Builder builder = recyclingBuilder(new ConnectionProviderMock());
+
+        final Connection first = builder.build();
+        first.close();
+        final Connection second = builder.build();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(first.isClosed()).isTrue();
+        assertThat(second.isClosed()).isFalse();
+    }
+
+    @Test
+    public void shouldNotCloseReusedConnectionViaStaleHandle() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection.Builder builder = recyclingBuilder(connectionProvider);
+
+        final Connection stale = builder.build();
+        stale.close();
+        final Connection reused = builder.build();
+        reused.prepareStatement(SIMPLE_QUERY).executeQuery();
+        stale.close();
+
+        assertThat(reused.isClosed()).isFalse();
+        verify(connectionProvider.singleProvidedConnection(), never()).close();
+        reused.prepareStatement(SIMPLE_QUERY).executeQuery();
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldNotUseReusedConnectionViaStaleHandle() throws SQLException {
+        final DualConnection.Builder builder = recyclingBuilder(new ConnectionProviderMock());
+
+        final Connection stale = builder.build();
+        stale.close();
+        final Connection reused = builder.build();
+        reused.setAutoCommit(false);
+
+        assertThat(stale.isClosed()).isTrue();
+        assertThat(catchThrowable(() -> stale.setAutoCommit(true))).isInstanceOf(SQLException.class);
+        assertThat(catchThrowable(() -> stale.prepareStatement(SIMPLE_QUERY))).isInstanceOf(SQLException.class);
+        assertThat(reused.getAutoCommit()).isFalse();
+    }
+
+    @Test
+    public void shouldNotUseReusedConnectionViaLeakedStatement() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection.Builder builder = recyclingBuilder(connectionProvider);
+
+        final Connection first = builder.build();
+        final Statement leaked = first.createStatement();
+        first.close();
+        final Connection second = builder.build();
+        second.setAutoCommit(false);
+
+        assertThat(leaked.isClosed()).isTrue();
+        assertThat(catchThrowable(() -> leaked.executeUpdate("DELETE FROM a"))).isInstanceOf(SQLException.class);
+        assertThat(connectionProvider.getProvidedConnectionTypes()).isEmpty();
+        assertThat(second.getAutoCommit()).isFalse();
+    }
+
+    @Test
+    public void shouldRecycleOnceWhenClosedTwice() throws SQLException {
+        final DualConnection.Builder builder = recyclingBuilder(new ConnectionProviderMock())
+            .recycleConnections(2);
+
+        final Connection connection = builder.build();
+        connection.close();
+        connection.close();
+        final Connection first = builder.build();
+        final Connection second = builder.build();
+        first.setAutoCommit(false);
+        first.close();
+
+        assertThat(second.isClosed()).isFalse();
+        assertThat(second.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    public void shouldStartFromReplicaAfterWrite() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection.Builder builder = recyclingBuilder(connectionProvider);
+
+        final Connection first = builder.build();
+        first.prepareStatement(SIMPLE_QUERY).executeUpdate();
+        first.close();
+        final Connection second = builder.build();
+        second.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN, REPLICA);
+    }
+
+    @Test
+    public void shouldForgetConnectionParameters() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection.Builder builder = recyclingBuilder(connectionProvider);
+
+        final Connection first = builder.build();
+        first.setAutoCommit(false);
+        first.setCatalog("catalog");
+        first.close();
+        final Connection second = builder.build();
+        second.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(second.getAutoCommit()).isTrue();
+        assertThat(second.getCatalog()).isNull();
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        verify(replica, never()).setAutoCommit(false);
+        verify(replica, never()).setCatalog("catalog");
+    }
+
+    @Test
+    public void shouldNotNotifyAboutReopening() throws SQLException {
+        final StateListener stateListener = mock(StateListener.class);
+        final DualConnection.Builder builder = recyclingBuilder(new ConnectionProviderMock())
+            .stateListener(stateListener);
+
+        builder.build().close();
+        builder.build();
+
+        verify(stateListener, never()).transition(State.CLOSED, State.NOT_INITIALISED);
+    }
+
+    private DualConnection.Builder recyclingBuilder(ConnectionProviderMock connectionProvider) {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .circuitBreaker(null)
+            .recycleConnections(1);
+    }
+}
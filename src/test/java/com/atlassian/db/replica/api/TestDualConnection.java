@@ -8,6 +8,7 @@ import com.atlassian.db.replica.api.mocks.NoOpConnectionProvider;
 import com.atlassian.db.replica.api.mocks.ReadOnlyAwareConnection;
 import com.atlassian.db.replica.api.mocks.SingleConnectionProvider;
 import com.atlassian.db.replica.api.reason.Reason;
+import com.atlassian.db.replica.api.reason.RouteDecision;
 import com.atlassian.db.replica.api.state.State;
 import com.atlassian.db.replica.internal.RouteDecisionBuilder;
 import com.atlassian.db.replica.spi.DatabaseCall;
@@ -19,6 +20,7 @@ import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.sql.Connection;
@@ -33,15 +35,18 @@ import java.util.Map;
 
 import static com.atlassian.db.replica.api.Queries.LARGE_SQL_QUERY;
 import static com.atlassian.db.replica.api.Queries.SELECT_FOR_UPDATE;
+import static com.atlassian.db.replica.api.Queries.SIMPLE_INSERT;
 import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
 import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
 import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentInconsistency;
 import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
 import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static java.sql.Connection.TRANSACTION_READ_COMMITTED;
 import static java.sql.Connection.TRANSACTION_SERIALIZABLE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.doCallRealMethod;
@@ -57,15 +62,17 @@ import static org.mockito.Mockito.when;
 @RunWith(Parameterized.class)
 public class TestDualConnection {
 
-    @Parameterized.Parameters
-    public static Collection<Boolean> isCompatibleWithPreviousVersion() {
-        return Arrays.asList(true, false);
+    @Parameterized.Parameters(name = "compatible={0}, recycled={1}")
+    public static Collection<Object[]> isCompatibleWithPreviousVersion() {
+        return Arrays.asList(new Object[][]{{true, false}, {false, false}, {true, true}, {false, true}});
     }
 
     private final boolean shouldUseCompatibleWithPreviousVersion;
+    private final boolean shouldRecycleConnections;
 
-    public TestDualConnection(boolean shouldUseCompatibleWithPreviousVersion) {
+    public TestDualConnection(boolean shouldUseCompatibleWithPreviousVersion, boolean shouldRecycleConnections) {
         this.shouldUseCompatibleWithPreviousVersion = shouldUseCompatibleWithPreviousVersion;
+        this.shouldRecycleConnections = shouldRecycleConnections;
     }
 
 
@@ -90,6 +97,9 @@ public class TestDualConnection {
         if (shouldUseCompatibleWithPreviousVersion) {
             builder1.compatibleWithPreviousVersion();
         }
+        if (shouldRecycleConnections) {
+            builder1.recycleConnections(1);
+        }
         return builder1;
     }
 
@@ -135,19 +145,55 @@ public class TestDualConnection {
         final Connection connection = dualConnectionBuilder(connectionProvider,
                                                             permanentConsistency()).databaseCall(databaseCall).build();
 
-        connection.prepareStatement(SIMPLE_QUERY).execute();
-        connection.prepareStatement(SIMPLE_QUERY).execute(SIMPLE_QUERY);
-        connection.prepareStatement(SIMPLE_QUERY).execute(SIMPLE_QUERY, Statement.RETURN_GENERATED_KEYS);
-        connection.prepareStatement(SIMPLE_QUERY).execute(SIMPLE_QUERY, new String[]{"test"});
-        connection.prepareStatement(SIMPLE_QUERY).execute(SIMPLE_QUERY, new int[]{123});
-        connection.prepareStatement(SIMPLE_QUERY, new int[]{123}).execute(SIMPLE_QUERY, new int[]{123});
+        connection.prepareStatement(SIMPLE_INSERT).execute();
+        connection.prepareStatement(SIMPLE_INSERT).execute(SIMPLE_INSERT);
+        connection.prepareStatement(SIMPLE_INSERT).execute(SIMPLE_INSERT, Statement.RETURN_GENERATED_KEYS);
+        connection.prepareStatement(SIMPLE_INSERT).execute(SIMPLE_INSERT, new String[]{"test"});
+        connection.prepareStatement(SIMPLE_INSERT).execute(SIMPLE_INSERT, new int[]{123});
+        connection.prepareStatement(SIMPLE_INSERT, new int[]{123}).execute(SIMPLE_INSERT, new int[]{123});
 
         assertThat(connectionProvider.getProvidedConnectionTypes())
             .hasSize(1);
         assertThat(connectionProvider.getProvidedConnectionTypes())
             .containsOnly(MAIN);
 
-        verify(databaseCall, times(6)).call(any(), eq(new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_QUERY).build()));
+        verify(databaseCall, times(6)).call(any(), eq(new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_INSERT).build()));
+    }
+
+    @Test
+    public void shouldUseReplicaConnectionForExecuteOfSelect() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenReturn(true);
+        final Connection connection = dualConnectionBuilder(connectionProvider,
+                                                            permanentConsistency()).databaseCall(databaseCall).build();
+
+        connection.prepareStatement(SIMPLE_QUERY).execute();
+        connection.createStatement().execute(SIMPLE_QUERY);
+
+        if (shouldUseCompatibleWithPreviousVersion) {
+            assertThat(connectionProvider.getProvidedConnectionTypes()).containsOnly(MAIN);
+            verify(databaseCall, times(2)).call(any(), eq(new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_QUERY).build()));
+        } else {
+            assertThat(connectionProvider.getProvidedConnectionTypes()).containsOnly(REPLICA);
+            verify(databaseCall, times(2)).call(any(), eq(new RouteDecisionBuilder(Reason.READ_VIA_EXECUTE).sql(SIMPLE_QUERY).build()));
+        }
+    }
+
+    @Test
+    public void shouldUseMainConnectionForExecuteOfSelectWhenReplicaIsInconsistent() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        when(databaseCall.call(any(), any())).thenReturn(true);
+        final Connection connection = dualConnectionBuilder(connectionProvider,
+                                                            permanentInconsistency()).databaseCall(databaseCall).build();
+
+        connection.createStatement().execute(SIMPLE_QUERY);
+        connection.prepareStatement(SELECT_FOR_UPDATE).execute();
+
+        final ArgumentCaptor<RouteDecision> decisions = ArgumentCaptor.forClass(RouteDecision.class);
+        verify(databaseCall, times(2)).call(any(), decisions.capture());
+        assertThat(decisions.getAllValues()).allMatch(RouteDecision::willRunOnMain);
     }
 
     @Test
@@ -245,6 +291,35 @@ public class TestDualConnection {
         );
     }
 
+    @Test
+    public void shouldUseMainConnectionForDataModifyingQueries() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        final Connection connection = dualConnectionBuilder(connectionProvider, permanentConsistency())
+            .databaseCall(databaseCall)
+            .build();
+        final String insert = "WITH x AS (INSERT INTO t VALUES (1) RETURNING id) SELECT id FROM x";
+
+        connection.prepareStatement(insert).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsOnly(MAIN);
+        verify(databaseCall).call(
+            any(),
+            eq(new RouteDecisionBuilder(Reason.WRITE_OPERATION).sql(insert).build())
+        );
+    }
+
+    @Test
+    public void shouldReadWithQueriesViaExecuteFromReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = dualConnectionBuilder(connectionProvider, permanentConsistency()).build();
+
+        connection.createStatement().execute("WITH x AS (SELECT 1) SELECT * FROM x");
+
+        assertThat(connectionProvider.getProvidedConnectionTypes())
+            .containsOnly(shouldUseCompatibleWithPreviousVersion ? MAIN : REPLICA);
+    }
+
     @Test
     public void shouldUseMainConnectionForSelectFunctionCalls() throws SQLException {
         final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
@@ -720,7 +795,7 @@ public class TestDualConnection {
         dualConnection.prepareStatement(SIMPLE_QUERY).executeQuery();
         dualConnection.prepareStatement(SIMPLE_QUERY).executeQuery();
         when(databaseCall.call(any(), any())).thenReturn(true);
-        dualConnection.prepareStatement(SIMPLE_QUERY).execute();
+        dualConnection.prepareStatement(SIMPLE_INSERT).execute();
         Mockito.reset(databaseCall);
         dualConnection.prepareStatement(SIMPLE_QUERY).executeQuery();
 
@@ -734,7 +809,7 @@ public class TestDualConnection {
                         new RouteDecisionBuilder(Reason.MAIN_CONNECTION_REUSE)
                                 .sql(SIMPLE_QUERY)
                                 .cause(
-                                        new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_QUERY).build()
+                                        new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_INSERT).build()
                                 )
                                 .build()
                 )
@@ -756,7 +831,7 @@ public class TestDualConnection {
         dualConnection.prepareStatement(SIMPLE_QUERY).executeQuery();
         dualConnection.prepareStatement(SIMPLE_QUERY).executeQuery();
         when(databaseCall.call(any(), any())).thenReturn(true);
-        dualConnection.prepareStatement(SIMPLE_QUERY).execute();
+        dualConnection.prepareStatement(SIMPLE_INSERT).execute();
         Mockito.reset(databaseCall);
         when(databaseCall.call(any(), any())).thenReturn(mock(ResultSet.class));
         dualConnection.prepareStatement(SIMPLE_QUERY).executeQuery();
@@ -850,6 +925,62 @@ public class TestDualConnection {
         assertThat(connection.isReadOnly()).isFalse();
     }
 
+    @Test
+    public void shouldNotSetParametersEqualToDefaults() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = dualConnectionBuilder(connectionProvider, permanentConsistency())
+            .connectionDefaults(new ConnectionDefaults.Builder()
+                .autoCommit(false)
+                .transactionIsolation(TRANSACTION_READ_COMMITTED)
+                .readOnly(false)
+                .build())
+            .build();
+
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(TRANSACTION_READ_COMMITTED);
+        connection.setReadOnly(false);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        verify(replica, never()).setAutoCommit(anyBoolean());
+        verify(replica, never()).setTransactionIsolation(anyInt());
+        verify(replica, never()).setReadOnly(anyBoolean());
+        verify(replica, never()).getAutoCommit();
+        verify(replica, never()).getTransactionIsolation();
+        verify(replica, never()).isReadOnly();
+    }
+
+    @Test
+    public void shouldSetParametersDifferentFromDefaults() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = dualConnectionBuilder(connectionProvider, permanentConsistency())
+            .connectionDefaults(new ConnectionDefaults.Builder().readOnly(true).build())
+            .build();
+
+        connection.setReadOnly(false);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        verify(replica).setReadOnly(false);
+        verify(replica, never()).isReadOnly();
+    }
+
+    @Test
+    public void shouldSetParametersWithoutReadingUnknownDefaults() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = dualConnectionBuilder(connectionProvider, permanentConsistency()).build();
+
+        connection.setCatalog("reports");
+        connection.setReadOnly(false);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        verify(replica).setCatalog("reports");
+        verify(replica).setReadOnly(false);
+        verify(replica, never()).getCatalog();
+        verify(replica, never()).isReadOnly();
+    }
+
     @Test
     public void shouldUtiliseReplicaEvenAfterDisablingReadOnly() throws SQLException {
         final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
@@ -932,12 +1063,12 @@ public class TestDualConnection {
 
         connection.setTransactionIsolation(TRANSACTION_SERIALIZABLE);
         when(databaseCall.call(any(), any())).thenReturn(true);
-        connection.prepareStatement(SIMPLE_QUERY).execute();
+        connection.prepareStatement(SIMPLE_INSERT).execute();
 
         verify(connectionProvider.singleProvidedConnection()).setTransactionIsolation(TRANSACTION_SERIALIZABLE);
         verify(databaseCall).call(
                 any(),
-                eq(new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_QUERY).build())
+                eq(new RouteDecisionBuilder(Reason.RW_API_CALL).sql(SIMPLE_INSERT).build())
         );
     }
 
@@ -0,0 +1,130 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestDualDataSource {
+
+    @Test
+    public void shouldProvideDualConnections() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DataSource dataSource = DualDataSource.builder(
+            main(connectionProvider),
+            replica(connectionProvider),
+            permanentConsistency().build()
+        ).build();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+            connection.prepareStatement("UPDATE foo SET bar = 1").executeUpdate();
+        }
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldShareConfigurationBetweenConnections() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DataSource dataSource = DualDataSource.builder(
+            main(connectionProvider),
+            replica(connectionProvider),
+            permanentConsistency().build()
+        ).connections(connections -> connections.readOnlyFunctions(ImmutableSet.of("myFunction"))).build();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("SELECT myFunction() FROM user").executeQuery();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("SELECT myFunction() FROM user").executeQuery();
+        }
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, REPLICA);
+    }
+
+    @Test
+    public void shouldNotChangeBuiltDataSource() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualDataSource.Builder builder = DualDataSource.builder(
+            main(connectionProvider),
+            replica(connectionProvider),
+            permanentConsistency().build()
+        );
+        final DataSource dataSource = builder.build();
+
+        builder.connections(connections -> connections.readOnlyFunctions(ImmutableSet.of("myFunction")));
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("SELECT myFunction() FROM user").executeQuery();
+        }
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldUseMainWithoutReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DataSource dataSource = DualDataSource.builder(
+            main(connectionProvider),
+            null,
+            permanentConsistency().build()
+        ).build();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        }
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldNotSupportCredentials() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DataSource dataSource = DualDataSource.builder(
+            main(connectionProvider),
+            replica(connectionProvider),
+            permanentConsistency().build()
+        ).build();
+
+        assertThatThrownBy(() -> dataSource.getConnection("user", "password"))
+            .isInstanceOf(SQLFeatureNotSupportedException.class);
+    }
+
+    @Test
+    public void shouldUnwrapItself() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DataSource dataSource = DualDataSource.builder(
+            main(connectionProvider),
+            replica(connectionProvider),
+            permanentConsistency().build()
+        ).build();
+
+        assertThat(dataSource.isWrapperFor(DualDataSource.class)).isTrue();
+        assertThat(dataSource.unwrap(DualDataSource.class)).isSameAs(dataSource);
+    }
+
+    private DataSource main(ConnectionProviderMock connectionProvider) throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> connectionProvider.getMainConnection());
+        return dataSource;
+    }
+
+    private DataSource replica(ConnectionProviderMock connectionProvider) throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> connectionProvider.getReplicaConnection());
+        return dataSource;
+    }
+}
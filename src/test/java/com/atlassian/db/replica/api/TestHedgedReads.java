@@ -0,0 +1,255 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.spi.ConnectionProvider;
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestHedgedReads {
+    private static final String CRITICAL_QUERY = "SELECT * FROM issue WHERE id = ?";
+    private ExecutorService executor;
+    private HedgingProvider connectionProvider;
+
+    @Before
+    public void setUp() throws SQLException {
+        executor = Executors.newCachedThreadPool();
+        connectionProvider = new HedgingProvider();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldUseMainWhenReplicaIsSlow() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        connectionProvider.blockReplicaUntilCancelled();
+
+        final ResultSet results = connect(hedgedReads).prepareStatement(CRITICAL_QUERY).executeQuery();
+
+        assertThat(results).isSameAs(connectionProvider.mainResults);
+        verify(connectionProvider.replicaStatement).cancel();
+        assertThat(hedgedReads.getHedges()).isEqualTo(1);
+        assertThat(hedgedReads.getMainWins()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotHedgeFastReplica() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+
+        final ResultSet results = connect(hedgedReads).prepareStatement(CRITICAL_QUERY).executeQuery();
+
+        assertThat(results).isSameAs(connectionProvider.replicaResults);
+        assertThat(connectionProvider.mainConnections).isEmpty();
+        assertThat(hedgedReads.getReads()).isEqualTo(1);
+        assertThat(hedgedReads.getHedges()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotHedgeOtherQueries() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+
+        connect(hedgedReads).prepareStatement("SELECT * FROM project").executeQuery();
+
+        assertThat(hedgedReads.getReads()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotHedgeTransactions() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        final Connection connection = connect(hedgedReads);
+        connection.setAutoCommit(false);
+
+        connection.prepareStatement(CRITICAL_QUERY).executeQuery();
+
+        assertThat(hedgedReads.getReads()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldStayWithinBudget() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(0.0);
+        connectionProvider.delayReplica();
+
+        final ResultSet results = connect(hedgedReads).prepareStatement(CRITICAL_QUERY).executeQuery();
+
+        assertThat(results).isSameAs(connectionProvider.replicaResults);
+        assertThat(connectionProvider.mainConnections).isEmpty();
+        assertThat(hedgedReads.getSkippedHedges()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReplayParameters() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        connectionProvider.blockReplicaUntilCancelled();
+        final PreparedStatement statement = connect(hedgedReads).prepareStatement(CRITICAL_QUERY);
+        statement.setFetchSize(10);
+        statement.setLong(1, 123L);
+
+        statement.executeQuery();
+
+        verify(connectionProvider.mainStatement).setFetchSize(10);
+        verify(connectionProvider.mainStatement).setLong(1, 123L);
+    }
+
+    @Test
+    public void shouldReplayParametersWhenExecutedAgain() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        connectionProvider.delayReplica();
+        final PreparedStatement statement = connect(hedgedReads).prepareStatement(CRITICAL_QUERY);
+        statement.setLong(1, 123L);
+
+        statement.executeQuery();
+        final ResultSet results = statement.executeQuery();
+
+        assertThat(results).isSameAs(connectionProvider.mainResults);
+        verify(connectionProvider.mainStatement, times(2)).setLong(1, 123L);
+        assertThat(hedgedReads.getMainWins()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReleaseMainConnectionWithStatement() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        connectionProvider.blockReplicaUntilCancelled();
+        final PreparedStatement statement = connect(hedgedReads).prepareStatement(CRITICAL_QUERY);
+
+        statement.executeQuery();
+        final Connection main = connectionProvider.mainConnections.get(0);
+        verify(main, never()).close();
+        statement.close();
+
+        verify(main).close();
+    }
+
+    @Test
+    public void shouldUseReplicaWhenHedgeFails() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        connectionProvider.delayReplica();
+        connectionProvider.failMain();
+
+        final ResultSet results = connect(hedgedReads).prepareStatement(CRITICAL_QUERY).executeQuery();
+
+        assertThat(results).isSameAs(connectionProvider.replicaResults);
+        assertThat(hedgedReads.getHedges()).isEqualTo(1);
+        assertThat(hedgedReads.getMainWins()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCancelMainWhenReplicaWins() throws SQLException {
+        final HedgedReads hedgedReads = hedgedReads(1.0);
+        connectionProvider.delayReplica();
+        connectionProvider.blockMainUntilCancelled();
+
+        final ResultSet results = connect(hedgedReads).prepareStatement(CRITICAL_QUERY).executeQuery();
+
+        assertThat(results).isSameAs(connectionProvider.replicaResults);
+        verify(connectionProvider.mainStatement, timeout(1000)).cancel();
+        verify(connectionProvider.mainConnections.get(0), timeout(1000)).close();
+    }
+
+    private HedgedReads hedgedReads(double maxHedgeRate) {
+        return new HedgedReads.Builder(executor)
+            .hedgeQueries(ImmutableList.of(CRITICAL_QUERY))
+            .initialDelay(Duration.ofMillis(10))
+            .maxHedgeRate(maxHedgeRate)
+            .build();
+    }
+
+    private Connection connect(HedgedReads hedgedReads) throws SQLException {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .hedgedReads(hedgedReads)
+            .build();
+    }
+
+    private static class HedgingProvider implements ConnectionProvider {
+        private final Connection replica = mock(Connection.class);
+        private final PreparedStatement replicaStatement = mock(PreparedStatement.class);
+        private final ResultSet replicaResults = mock(ResultSet.class);
+        private final PreparedStatement mainStatement = mock(PreparedStatement.class);
+        private final ResultSet mainResults = mock(ResultSet.class);
+        private final List<Connection> mainConnections = new CopyOnWriteArrayList<>();
+        private boolean mainFails = false;
+
+        private HedgingProvider() throws SQLException {
+            when(replica.prepareStatement(anyString())).thenReturn(replicaStatement);
+            when(replicaStatement.executeQuery()).thenReturn(replicaResults);
+            when(mainStatement.executeQuery()).thenReturn(mainResults);
+        }
+
+        void blockReplicaUntilCancelled() throws SQLException {
+            blockUntilCancelled(replicaStatement);
+        }
+
+        void blockMainUntilCancelled() throws SQLException {
+            blockUntilCancelled(mainStatement);
+        }
+
+        void delayReplica() throws SQLException {
+            when(replicaStatement.executeQuery()).thenAnswer(invocation -> {
+                Thread.sleep(100);
+                return replicaResults;
+            });
+        }
+
+        void failMain() {
+            mainFails = true;
+        }
+
+        private static void blockUntilCancelled(PreparedStatement statement) throws SQLException {
+            final CountDownLatch cancelled = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                cancelled.countDown();
+                return null;
+            }).when(statement).cancel();
+            when(statement.executeQuery()).thenAnswer(invocation -> {
+                cancelled.await(5, SECONDS);
+                throw new SQLException("Cancelled");
+            });
+        }
+
+        @Override
+        public boolean isReplicaAvailable() {
+            return true;
+        }
+
+        @Override
+        public synchronized Connection getMainConnection() throws SQLException {
+            if (mainFails) {
+                throw new SQLException("Main is not available");
+            }
+            final Connection main = mock(Connection.class);
+            when(main.prepareStatement(anyString())).thenReturn(mainStatement);
+            mainConnections.add(main);
+            return main;
+        }
+
+        @Override
+        public Connection getReplicaConnection() {
+            return replica;
+        }
+    }
+}
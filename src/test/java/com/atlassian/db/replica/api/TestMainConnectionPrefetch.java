@@ -0,0 +1,123 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+public class TestMainConnectionPrefetch {
+    private final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+    private final QueuedExecutor executor = new QueuedExecutor();
+
+    @Test
+    public void shouldPrefetchMainWithFirstRead() throws SQLException {
+        final Connection connection = connect();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        executor.runAll();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldWriteOnPrefetchedMain() throws SQLException {
+        final Connection connection = connect();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        executor.runAll();
+        connection.prepareStatement("UPDATE users SET name = ?").executeUpdate();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+        final Connection main = connectionProvider.getProvidedConnections().get(1);
+        verify(main).prepareStatement("UPDATE users SET name = ?");
+    }
+
+    @Test
+    public void shouldNotWaitForQueuedPrefetch() throws SQLException {
+        final Connection connection = connect();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement("UPDATE users SET name = ?").executeUpdate();
+        executor.runAll();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldNotPrefetchWithoutHint() throws SQLException {
+        final Connection connection = DualConnection.builder(connectionProvider, permanentConsistency().build()).build();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldReleaseUnusedMain() throws SQLException {
+        final Connection connection = connect();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        executor.runAll();
+        connection.close();
+
+        final Connection main = connectionProvider.getProvidedConnections().get(1);
+        verify(main).close();
+    }
+
+    @Test
+    public void shouldReleaseMainAcquiredAfterClose() throws SQLException {
+        final Connection connection = connect();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.close();
+        executor.runAll();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldNotReleaseUsedMain() throws SQLException {
+        final Connection connection = connect();
+        connection.setAutoCommit(false);
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        executor.runAll();
+        connection.prepareStatement("UPDATE users SET name = ?").executeUpdate();
+
+        final Connection main = connectionProvider.getProvidedConnections().get(1);
+        verify(main, never()).close();
+    }
+
+    private Connection connect() throws SQLException {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .prefetchMainConnection(executor)
+            .build();
+    }
+
+    private static class QueuedExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            tasks.forEach(Runnable::run);
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.extra.MutableClock;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestMaxStaleness {
+    private static final String ISSUES_QUERY = "SELECT * FROM jiraissue";
+    private static final String UPDATE_ISSUES = "UPDATE jiraissue SET summary = 'stale'";
+    private final MutableClock clock = MutableClock.epochUTC();
+    private ReplicaConsistency consistency;
+
+    @Before
+    public void writeRecently() {
+        consistency = new PessimisticPropagationConsistency.Builder()
+            .assumeMaxPropagation(Duration.ofSeconds(1))
+            .measureTime(clock)
+            .build();
+        consistency.write(null);
+        clock.add(Duration.ofMillis(100));
+    }
+
+    @Test
+    public void shouldReadFromReplicaWhenStalenessIsTolerated() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final PreparedStatement statement = connection(connectionProvider).prepareStatement(SIMPLE_QUERY);
+
+        statement.unwrap(DualStatement.class).setMaxStaleness(Duration.ofSeconds(5));
+        statement.executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldReadFromMainWhenStalenessIsNotTolerated() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+
+        connection(connectionProvider).prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldReadFromMainWhenToleratedStalenessIsTooShort() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final PreparedStatement statement = connection(connectionProvider).prepareStatement(SIMPLE_QUERY);
+
+        statement.unwrap(DualStatement.class).setMaxStaleness(Duration.ofMillis(10));
+        statement.executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldReadFromReplicaWhenHintToleratesStaleness() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+
+        connection(connectionProvider)
+            .prepareStatement("/*+ db-replica:max-staleness=5s */ " + SIMPLE_QUERY)
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldTolerateStalenessOfWrittenTables() throws SQLException {
+        final ReplicaConsistency tableAware = new TableAwarePropagationConsistency.Builder()
+            .assumeMaxPropagation(Duration.ofSeconds(1))
+            .measureTime(clock)
+            .build();
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(connectionProvider, tableAware).build();
+        connection.prepareStatement(UPDATE_ISSUES).executeUpdate();
+        connection.close();
+        clock.add(Duration.ofMillis(100));
+        final PreparedStatement statement = DualConnection.builder(connectionProvider, tableAware)
+            .build()
+            .prepareStatement(ISSUES_QUERY);
+
+        statement.unwrap(DualStatement.class).setMaxStaleness(Duration.ofSeconds(5));
+        statement.executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN, REPLICA);
+    }
+
+    @Test
+    public void shouldTolerateStalenessWithResultCache() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final ResultCache resultCache = new ResultCache.Builder()
+            .cacheQueries(ImmutableList.of(ISSUES_QUERY))
+            .build();
+        final DualConnection.Builder connections = DualConnection.builder(connectionProvider, consistency)
+            .resultCache(resultCache);
+        final PreparedStatement stale = connections.build().prepareStatement(ISSUES_QUERY);
+
+        stale.unwrap(DualStatement.class).setMaxStaleness(Duration.ofSeconds(5));
+        stale.executeQuery();
+        connections.build().prepareStatement(ISSUES_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldNotCacheResultsOfRuleToleratingStaleness() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final ResultCache resultCache = new ResultCache.Builder()
+            .cacheQueries(ImmutableList.of(ISSUES_QUERY))
+            .build();
+        final RoutingRules rules = new RoutingRules.Builder()
+            .rule(new RoutingRule.Builder("stale-issues")
+                .readingTables(ImmutableList.of("jiraissue"))
+                .tolerateStaleness(Duration.ofSeconds(5))
+                .build())
+            .build();
+        final Connection connection = DualConnection.builder(connectionProvider, consistency)
+            .resultCache(resultCache)
+            .routingRules(rules)
+            .build();
+
+        connection.prepareStatement(ISSUES_QUERY).executeQuery();
+        connection.prepareStatement(ISSUES_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        assertThat(connectionProvider.getPreparedStatements()).hasSize(2);
+    }
+
+    @Test
+    public void shouldExtendEveryStatement() throws SQLException {
+        final Connection connection = connection(new ConnectionProviderMock());
+
+        assertThat(connection.createStatement().isWrapperFor(DualStatement.class)).isTrue();
+        assertThat(connection.prepareStatement(SIMPLE_QUERY).isWrapperFor(DualStatement.class)).isTrue();
+        assertThat(connection.prepareCall("{call refresh()}").isWrapperFor(DualStatement.class)).isTrue();
+    }
+
+    private Connection connection(ConnectionProviderMock connectionProvider) throws SQLException {
+        return DualConnection.builder(connectionProvider, consistency).build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.CircularConsistency;
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TestParkedReplica {
+
+    @Test
+    public void shouldReuseParkedReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connectWithTemporaryInconsistency(connectionProvider);
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+        final Connection replica = connectionProvider.getProvidedConnections().get(0);
+        final Connection main = connectionProvider.getProvidedConnections().get(1);
+        verify(replica, never()).close();
+        verify(main).close();
+    }
+
+    @Test
+    public void shouldReleaseReplicaWithoutParking() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(true, false, true)).build()
+        ).build();
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN, REPLICA);
+    }
+
+    @Test
+    public void shouldCloseParkedReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connectWithTemporaryInconsistency(connectionProvider);
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.close();
+
+        final Connection replica = connectionProvider.getProvidedConnections().get(0);
+        final Connection main = connectionProvider.getProvidedConnections().get(1);
+        verify(replica).close();
+        verify(main).close();
+    }
+
+    @Test
+    public void shouldEndTransactionOfParkedReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connectWithTemporaryInconsistency(connectionProvider);
+        connection.setAutoCommit(false);
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.getProvidedConnections().get(0);
+        verify(replica).commit();
+    }
+
+    @Test
+    public void shouldApplyParametersChangedWhileParked() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connectWithTemporaryInconsistency(connectionProvider);
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.setCatalog("reports");
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.getProvidedConnections().get(0);
+        verify(replica).setCatalog("reports");
+    }
+
+    @Test
+    public void shouldNotReapplyUnchangedParameters() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connectWithTemporaryInconsistency(connectionProvider);
+        connection.setCatalog("reports");
+
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.getProvidedConnections().get(0);
+        verify(replica, times(1)).setCatalog("reports");
+    }
+
+    @Test
+    public void shouldReapplyParametersEqualToDefaultsToParkedReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(true, false, true)).build()
+        ).parkReplicaConnection().connectionDefaults(new ConnectionDefaults.Builder().autoCommit(true).build()).build();
+        connection.setAutoCommit(false);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.commit();
+
+        connection.setAutoCommit(true);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        final Connection replica = connectionProvider.getProvidedConnections().get(0);
+        verify(replica).setAutoCommit(true);
+    }
+
+    private Connection connectWithTemporaryInconsistency(ConnectionProviderMock connectionProvider) throws SQLException {
+        return DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(true, false, true)).build()
+        ).parkReplicaConnection().build();
+    }
+}
@@ -0,0 +1,262 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static com.google.common.collect.Iterables.getLast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+public class TestResultCache {
+    private static final String PERMISSIONS_QUERY = "SELECT * FROM permissions WHERE user_id = ?";
+    private static final String PROPERTIES_QUERY = "SELECT * FROM properties";
+
+    private final ResultCache cache = new ResultCache.Builder()
+        .cacheQueries(ImmutableList.of(PERMISSIONS_QUERY, PROPERTIES_QUERY))
+        .build();
+
+    @Test
+    public void shouldServeRepeatedQueryFromCache() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+
+        queryPermissions(connectionProvider, 1);
+        queryPermissions(connectionProvider, 1);
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCacheResultsPerParameters() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+
+        queryPermissions(connectionProvider, 1);
+        queryPermissions(connectionProvider, 2);
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, REPLICA);
+        assertThat(cache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldIgnoreWhitespaceInAllowedQueries() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connect(connectionProvider);
+
+        connection.prepareStatement("SELECT *\n  FROM properties").executeQuery();
+        connection.prepareStatement("SELECT *\n  FROM properties").executeQuery();
+
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheOtherQueries() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connect(connectionProvider);
+
+        connection.prepareStatement("SELECT * FROM users").executeQuery();
+        connection.prepareStatement("SELECT * FROM users").executeQuery();
+
+        assertThat(cache.getHits()).isEqualTo(0);
+        assertThat(cache.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldInvalidateWrittenTable() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        queryPermissions(connectionProvider, 1);
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+
+        connect(connectionProvider).prepareStatement("UPDATE permissions SET level = 2").executeUpdate();
+
+        queryPermissions(connectionProvider, 1);
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldInvalidateEverythingOnUnknownWrite() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        queryPermissions(connectionProvider, 1);
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+
+        connect(connectionProvider).prepareStatement("WITH x AS (SELECT 1) UPDATE permissions SET level = 2")
+            .executeUpdate();
+
+        assertThat(cache.getInvalidations()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldInvalidateWritesReportedToConsistency() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final ReplicaConsistency consistency = cache.invalidateOnWrite(permanentConsistency().build());
+        final Connection connection = DualConnection.builder(connectionProvider, consistency)
+            .resultCache(cache)
+            .build();
+        connection.prepareStatement(PROPERTIES_QUERY).executeQuery();
+
+        consistency.write(mock(Connection.class));
+        connection.prepareStatement(PROPERTIES_QUERY).executeQuery();
+
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldInvalidateTablesReportedToTableAwareConsistency() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        queryPermissions(connectionProvider, 1);
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+        final ReplicaConsistency consistency = cache.invalidateOnWrite(
+            new TableAwarePropagationConsistency.Builder().build()
+        );
+
+        ((TableAwareReplicaConsistency) consistency).write(mock(Connection.class), ImmutableSet.of("permissions"));
+
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldInvalidateJustWrittenTablesWithInvalidatingConsistency() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final ReplicaConsistency consistency = cache.invalidateOnWrite(permanentConsistency().build());
+        queryPermissions(connectionProvider, 1);
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+
+        DualConnection.builder(connectionProvider, consistency)
+            .resultCache(cache)
+            .build()
+            .prepareStatement("UPDATE permissions SET level = 2")
+            .executeUpdate();
+
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldInvalidateOnCommit() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        queryPermissions(connectionProvider, 1);
+        final Connection connection = connect(connectionProvider);
+        connection.setAutoCommit(false);
+        connection.prepareStatement("DELETE FROM permissions WHERE user_id = 1").executeUpdate();
+        assertThat(cache.getInvalidations()).isEqualTo(0);
+
+        connection.commit();
+
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotServeCachedResultsAfterWriteInTransaction() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        queryPermissions(connectionProvider, 1);
+        final Connection connection = connect(connectionProvider);
+        connection.setAutoCommit(false);
+        connection.prepareStatement("UPDATE users SET name = 'x'").executeUpdate();
+
+        final PreparedStatement query = connection.prepareStatement(PERMISSIONS_QUERY);
+        query.setInt(1, 1);
+        query.executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+        assertThat(cache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotCacheResultsFromMainDatabase() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connect(connectionProvider);
+        connection.setAutoCommit(false);
+        connection.prepareStatement("UPDATE users SET name = 'x'").executeUpdate();
+        connection.prepareStatement(PROPERTIES_QUERY).executeQuery();
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        connect(connectionProvider).prepareStatement(PROPERTIES_QUERY).executeQuery();
+
+        assertThat(cache.getHits()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotCacheStatementsWithLimitedRows() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = connect(connectionProvider);
+
+        final PreparedStatement query = connection.prepareStatement(PROPERTIES_QUERY);
+        query.setMaxRows(1);
+        query.executeQuery();
+        query.executeQuery();
+
+        assertThat(cache.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedResults() throws SQLException {
+        final ResultCache smallCache = new ResultCache.Builder()
+            .cacheQueries(ImmutableList.of(PERMISSIONS_QUERY))
+            .maxSize(1_000)
+            .build();
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .resultCache(smallCache)
+            .build();
+
+        for (int user = 0; user < 10; user++) {
+            final PreparedStatement query = connection.prepareStatement(PERMISSIONS_QUERY);
+            query.setInt(1, user);
+            query.executeQuery();
+        }
+
+        assertThat(smallCache.getEvictions()).isPositive();
+        assertThat(smallCache.getSize()).isLessThanOrEqualTo(1_000);
+    }
+
+    @Test
+    public void shouldKeepLatestParametersOfStatementServedFromCache() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        queryPermissions(connectionProvider, 1);
+        final PreparedStatement query = connect(connectionProvider).prepareStatement(PERMISSIONS_QUERY);
+        for (int i = 0; i < 1_000; i++) {
+            query.setInt(1, 1);
+            query.executeQuery();
+        }
+
+        query.setInt(1, 2);
+        query.executeQuery();
+
+        final PreparedStatement replica = (PreparedStatement) getLast(connectionProvider.getPreparedStatements());
+        assertThat(cache.getHits()).isEqualTo(1_000);
+        verify(replica, never()).setInt(1, 1);
+        verify(replica).setInt(1, 2);
+    }
+
+    private ResultSet queryPermissions(ConnectionProviderMock connectionProvider, int user) throws SQLException {
+        final PreparedStatement query = connect(connectionProvider).prepareStatement(PERMISSIONS_QUERY);
+        query.setInt(1, user);
+        return query.executeQuery();
+    }
+
+    private Connection connect(ConnectionProviderMock connectionProvider) throws SQLException {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .resultCache(cache)
+            .build();
+    }
+}
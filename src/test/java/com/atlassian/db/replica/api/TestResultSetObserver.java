@@ -0,0 +1,127 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.spi.DatabaseCall;
+import com.atlassian.db.replica.spi.ResultSetObserver;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+public class TestResultSetObserver {
+
+    @Test
+    public void shouldObserveRowsReadToTheEnd() throws SQLException {
+        final ObservingCall databaseCall = new ObservingCall(2);
+        final ResultSet results = connection(databaseCall).prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        while (results.next()) {
+            assertThat(databaseCall.completions).isEmpty();
+        }
+
+        assertThat(databaseCall.completions).hasSize(1);
+        final Completion completion = databaseCall.completions.get(0);
+        assertThat(completion.rows).isEqualTo(2);
+        assertThat(completion.timeToFirstRow).isNotNull();
+        assertThat(completion.timeToLastRow).isGreaterThanOrEqualTo(completion.timeToFirstRow);
+    }
+
+    @Test
+    public void shouldObserveResultsClosedEarlyOnce() throws SQLException {
+        final ObservingCall databaseCall = new ObservingCall(5);
+        final ResultSet results = connection(databaseCall).prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        results.next();
+        results.close();
+        results.close();
+
+        assertThat(databaseCall.completions).hasSize(1);
+        assertThat(databaseCall.completions.get(0).rows).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldObserveEmptyResults() throws SQLException {
+        final ObservingCall databaseCall = new ObservingCall(0);
+        final ResultSet results = connection(databaseCall).prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        results.next();
+
+        final Completion completion = databaseCall.completions.get(0);
+        assertThat(completion.rows).isZero();
+        assertThat(completion.timeToFirstRow).isNull();
+        assertThat(completion.timeToLastRow).isNotNull();
+    }
+
+    @Test
+    public void shouldPassResultsThroughByDefault() throws SQLException {
+        final Connection connection = DualConnection.builder(
+            new ConnectionProviderMock(),
+            permanentConsistency().build()
+        ).build();
+
+        final ResultSet results = connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(mockingDetails(results).isMock()).isTrue();
+    }
+
+    private Connection connection(DatabaseCall databaseCall) throws SQLException {
+        return DualConnection.builder(new ConnectionProviderMock(), permanentConsistency().build())
+            .databaseCall(databaseCall)
+            .build();
+    }
+
+    /**
+     * Makes the results return the given number of rows and records their observations.
+     */
+    private static final class ObservingCall implements DatabaseCall {
+        private final int rows;
+        private final List<Completion> completions = new ArrayList<>();
+
+        private ObservingCall(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public <T> T call(SqlCall<T> call, RouteDecision decision) throws SQLException {
+            final T result = call.call();
+            if (result instanceof ResultSet) {
+                final Boolean[] next = new Boolean[rows + 1];
+                Arrays.fill(next, 0, rows, true);
+                next[rows] = false;
+                when(((ResultSet) result).next()).thenReturn(next[0], Arrays.copyOfRange(next, 1, next.length));
+            }
+            return result;
+        }
+
+        @Override
+        public ResultSetObserver observeResults(RouteDecision decision) {
+            return (rows, timeToFirstRow, timeToLastRow) -> completions.add(
+                new Completion(rows, timeToFirstRow, timeToLastRow)
+            );
+        }
+    }
+
+    private static final class Completion {
+        private final long rows;
+        private final Duration timeToFirstRow;
+        private final Duration timeToLastRow;
+
+        private Completion(long rows, Duration timeToFirstRow, Duration timeToLastRow) {
+            this.rows = rows;
+            this.timeToFirstRow = timeToFirstRow;
+            this.timeToLastRow = timeToLastRow;
+        }
+    }
+}
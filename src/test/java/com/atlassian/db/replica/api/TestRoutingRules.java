@@ -0,0 +1,145 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.api.reason.Reason;
+import com.atlassian.db.replica.api.reason.RouteDecision;
+import com.atlassian.db.replica.spi.DatabaseCall;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.threeten.extra.MutableClock;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+public class TestRoutingRules {
+    private final RoutingRules rules = new RoutingRules.Builder()
+        .rule(new RoutingRule.Builder("strict-issues")
+            .readingTables(ImmutableList.of("jiraissue"))
+            .requireConsistency()
+            .build())
+        .rule(new RoutingRule.Builder("stale-audit")
+            .readingTables(ImmutableList.of("audit_*"))
+            .tolerateStaleness(Duration.ofSeconds(10))
+            .build())
+        .rule(new RoutingRule.Builder("main-counts")
+            .callingFunctions(ImmutableList.of("count_issues"))
+            .routeToMain()
+            .build())
+        .build();
+
+    @Test
+    public void shouldRouteToMainByRule() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+
+        connection(connectionProvider, permanentConsistency().build(), databaseCall)
+            .prepareStatement("SELECT count_issues(?)")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+        final RouteDecision decision = decision(databaseCall);
+        assertThat(decision.getReason()).isEqualTo(Reason.MAIN_RULE);
+        assertThat(decision.getRule()).contains("main-counts");
+    }
+
+    @Test
+    public void shouldTolerateStalenessByRule() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+
+        connection(connectionProvider, recentlyWritten(), databaseCall)
+            .prepareStatement("SELECT * FROM audit_log WHERE id = ?")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        final RouteDecision decision = decision(databaseCall);
+        assertThat(decision.getReason()).isEqualTo(Reason.READ_OPERATION);
+        assertThat(decision.getRule()).contains("stale-audit");
+    }
+
+    @Test
+    public void shouldRequireConsistencyByRuleDespiteStatementStaleness() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+        final PreparedStatement statement = connection(connectionProvider, recentlyWritten(), databaseCall)
+            .prepareStatement("/*+ db-replica:replica */ SELECT * FROM jiraissue i JOIN audit_log a ON a.issue = i.id");
+
+        statement.unwrap(DualStatement.class).setMaxStaleness(Duration.ofMinutes(1));
+        statement.executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+        final RouteDecision decision = decision(databaseCall);
+        assertThat(decision.getReason()).isEqualTo(Reason.REPLICA_INCONSISTENT);
+        assertThat(decision.getRule()).contains("strict-issues");
+    }
+
+    @Test
+    public void shouldNotRouteWritesByRules() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+
+        connection(connectionProvider, permanentConsistency().build(), databaseCall)
+            .prepareStatement("UPDATE audit_log SET id = ?")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+        final RouteDecision decision = decision(databaseCall);
+        assertThat(decision.getReason()).isEqualTo(Reason.WRITE_OPERATION);
+        assertThat(decision.getRule()).isEmpty();
+    }
+
+    @Test
+    public void shouldRouteUnmatchedReadsAsUsual() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+
+        connection(connectionProvider, permanentConsistency().build(), databaseCall)
+            .prepareStatement("SELECT * FROM project")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        assertThat(decision(databaseCall).getRule()).isEmpty();
+    }
+
+    private Connection connection(
+        ConnectionProviderMock connectionProvider,
+        ReplicaConsistency consistency,
+        DatabaseCall databaseCall
+    ) throws SQLException {
+        return DualConnection.builder(connectionProvider, consistency)
+            .databaseCall(databaseCall)
+            .readOnlyFunctions(ImmutableList.of("count_issues"))
+            .routingRules(rules)
+            .build();
+    }
+
+    private static ReplicaConsistency recentlyWritten() {
+        final MutableClock clock = MutableClock.epochUTC();
+        final ReplicaConsistency consistency = new PessimisticPropagationConsistency.Builder()
+            .assumeMaxPropagation(Duration.ofSeconds(1))
+            .measureTime(clock)
+            .build();
+        consistency.write(null);
+        clock.add(Duration.ofMillis(100));
+        return consistency;
+    }
+
+    private static RouteDecision decision(DatabaseCall databaseCall) throws SQLException {
+        final ArgumentCaptor<RouteDecision> decision = ArgumentCaptor.forClass(RouteDecision.class);
+        verify(databaseCall).call(any(), decision.capture());
+        return decision.getValue();
+    }
+}
@@ -0,0 +1,85 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.api.reason.Reason;
+import com.atlassian.db.replica.internal.RouteDecisionBuilder;
+import com.atlassian.db.replica.spi.DatabaseCall;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentInconsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TestSqlHints {
+    private static final String MAIN_HINTED = "/*+ db-replica:main */ SELECT * FROM users";
+    private static final String REPLICA_HINTED = "/* dashboard */ /*+ db-replica:replica */ SELECT * FROM users";
+
+    @Test
+    public void shouldReadOnMainWhenHinted() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+
+        connection(connectionProvider, permanentConsistency().build(), databaseCall)
+            .prepareStatement(MAIN_HINTED)
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+        verify(databaseCall).call(any(), eq(new RouteDecisionBuilder(Reason.MAIN_HINT).sql(MAIN_HINTED).build()));
+    }
+
+    @Test
+    public void shouldReadOnReplicaWhenHintedDespiteInconsistency() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DatabaseCall databaseCall = mock(DatabaseCall.class);
+
+        connection(connectionProvider, permanentInconsistency().build(), databaseCall)
+            .prepareStatement(REPLICA_HINTED)
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        verify(databaseCall).call(any(), eq(new RouteDecisionBuilder(Reason.REPLICA_HINT).sql(REPLICA_HINTED).build()));
+    }
+
+    @Test
+    public void shouldWriteOnMainDespiteReplicaHint() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final String sql = "/*+ db-replica:replica */ UPDATE users SET name = 'x'";
+
+        connection(connectionProvider, permanentConsistency().build(), mock(DatabaseCall.class))
+            .prepareStatement(sql)
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    @Test
+    public void shouldPreferMainHint() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+
+        connection(connectionProvider, permanentConsistency().build(), mock(DatabaseCall.class))
+            .prepareStatement("/*+ db-replica:replica db-replica:main */ SELECT 1")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN);
+    }
+
+    private Connection connection(
+        ConnectionProviderMock connectionProvider,
+        ReplicaConsistency consistency,
+        DatabaseCall databaseCall
+    ) throws SQLException {
+        return DualConnection.builder(connectionProvider, consistency)
+            .databaseCall(databaseCall)
+            .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.atlassian.db.replica.api;
 
 import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -10,12 +11,15 @@ import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 
+import static com.atlassian.db.replica.api.Queries.SIMPLE_INSERT;
 import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
 import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @SuppressWarnings("ThrowableNotThrown")
@@ -285,6 +289,28 @@ public class TestStatement {
         verify(connectionProvider.singleStatement()).setFetchSize(10);
     }
 
+    @Test
+    public void shouldSetFetchSizeOnEveryStatement() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_QUERY);
+
+        statement.setFetchSize(10);
+        statement.executeQuery();
+        statement.executeUpdate();
+        statement.setFetchSize(20);
+
+        assertThat(connectionProvider.getPreparedStatements()).hasSize(2);
+        for (Statement underlying : connectionProvider.getPreparedStatements()) {
+            final InOrder inOrder = inOrder(underlying);
+            inOrder.verify(underlying).setFetchSize(10);
+            inOrder.verify(underlying).setFetchSize(20);
+        }
+    }
+
     @Test
     public void shouldAddBatchOnMain() throws SQLException {
         final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
@@ -349,6 +375,96 @@ public class TestStatement {
         verify(connectionProvider.singleStatement(), never()).addBatch(SIMPLE_QUERY);
     }
 
+    @Test
+    public void shouldReplayBatchedRowsInOrder() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        statement.setLong(1, 1);
+        statement.setString(2, "first");
+        statement.addBatch();
+        statement.setLong(1, 2);
+        statement.setString(2, "second");
+        statement.addBatch();
+        statement.executeBatch();
+
+        final PreparedStatement main = (PreparedStatement) connectionProvider.singleStatement();
+        final InOrder inOrder = inOrder(main);
+        inOrder.verify(main).setLong(1, 1);
+        inOrder.verify(main).setString(2, "first");
+        inOrder.verify(main).addBatch();
+        inOrder.verify(main).setLong(1, 2);
+        inOrder.verify(main).setString(2, "second");
+        inOrder.verify(main).addBatch();
+        inOrder.verify(main).executeBatch();
+    }
+
+    @Test
+    public void shouldStreamBatchOnMain() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).build();
+        connection.prepareStatement(SIMPLE_INSERT).executeUpdate();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        statement.setLong(1, 1);
+        statement.addBatch();
+        statement.setLong(1, 2);
+        statement.addBatch();
+
+        final PreparedStatement main = (PreparedStatement) connectionProvider.getPreparedStatements().get(1);
+        verify(main).setLong(1, 1);
+        verify(main).setLong(1, 2);
+        verify(main, times(2)).addBatch();
+    }
+
+    @Test
+    public void shouldClearStreamedBatch() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).build();
+        connection.prepareStatement(SIMPLE_INSERT).executeUpdate();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        statement.setLong(1, 1);
+        statement.addBatch();
+        statement.clearBatch();
+
+        verify(connectionProvider.getPreparedStatements().get(1)).clearBatch();
+    }
+
+    @Test
+    public void shouldClearParametersOfUnfinishedRow() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).build();
+        final PreparedStatement statement = connection.prepareStatement(SIMPLE_INSERT);
+
+        statement.setLong(1, 1);
+        statement.addBatch();
+        statement.setLong(1, 2);
+        statement.clearParameters();
+        statement.setLong(1, 3);
+        statement.addBatch();
+        statement.executeBatch();
+
+        final PreparedStatement main = (PreparedStatement) connectionProvider.singleStatement();
+        verify(main).setLong(1, 1);
+        verify(main, never()).setLong(1, 2);
+        verify(main).setLong(1, 3);
+        verify(main, times(2)).addBatch();
+    }
+
     @Test
     public void shouldUnwrapStatement() throws SQLException {
         final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
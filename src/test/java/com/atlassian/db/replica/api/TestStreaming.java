@@ -0,0 +1,142 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_INSERT;
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TestStreaming {
+
+    @Test
+    public void shouldStreamFromReplicaInReadOnlyTransaction() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+
+        connection.prepareStreamingStatement(SIMPLE_QUERY, 100).executeQuery();
+
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA);
+        verify(replica).prepareStatement(SIMPLE_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        verify((PreparedStatement) connectionProvider.singleStatement()).setFetchSize(100);
+        final InOrder inOrder = inOrder(replica);
+        inOrder.verify(replica).setReadOnly(true);
+        inOrder.verify(replica).setAutoCommit(false);
+        assertThat(replica.getAutoCommit()).isFalse();
+    }
+
+    @Test
+    public void shouldEndTransactionWhenStatementCloses() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+        final PreparedStatement statement = connection.prepareStreamingStatement(SIMPLE_QUERY, 100);
+        statement.executeQuery();
+
+        statement.close();
+
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        final InOrder inOrder = inOrder(replica);
+        inOrder.verify(replica).setAutoCommit(true);
+        inOrder.verify(replica).setReadOnly(false);
+        assertThat(replica.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    public void shouldEndTransactionWhenOtherStatementsStopStreaming() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+        final PreparedStatement first = connection.prepareStreamingStatement(SIMPLE_QUERY, 100);
+        final PreparedStatement second = connection.prepareStreamingStatement(SIMPLE_QUERY, 100);
+        first.executeQuery();
+        second.executeQuery();
+        final Connection replica = connectionProvider.singleProvidedConnection();
+
+        first.close();
+        final boolean autoCommitWhileStreaming = replica.getAutoCommit();
+        second.close();
+
+        assertThat(autoCommitWhileStreaming).isFalse();
+        assertThat(replica.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    public void shouldEndTransactionBeforeReleasingReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+        final PreparedStatement streaming = connection.prepareStreamingStatement(SIMPLE_QUERY, 100);
+        streaming.executeQuery();
+        final Connection replica = connectionProvider.singleProvidedConnection();
+
+        connection.prepareStatement(SIMPLE_INSERT).executeUpdate();
+        streaming.close();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(REPLICA, MAIN);
+        final InOrder inOrder = inOrder(replica);
+        inOrder.verify(replica).setAutoCommit(true);
+        inOrder.verify(replica).close();
+        verify(replica).setReadOnly(false);
+    }
+
+    @Test
+    public void shouldEndTransactionBeforeTransactionModeChanges() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+        connection.prepareStreamingStatement(SIMPLE_QUERY, 100).executeQuery();
+        final Connection replica = connectionProvider.singleProvidedConnection();
+
+        connection.setAutoCommit(false);
+
+        final InOrder inOrder = inOrder(replica);
+        inOrder.verify(replica).setAutoCommit(true);
+        inOrder.verify(replica).setReadOnly(false);
+        inOrder.verify(replica).setAutoCommit(false);
+    }
+
+    @Test
+    public void shouldStreamInTransactionOfApplication() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+        connection.setAutoCommit(false);
+        final PreparedStatement statement = connection.prepareStreamingStatement(SIMPLE_QUERY, 100);
+
+        statement.executeQuery();
+        statement.close();
+
+        final Connection replica = connectionProvider.singleProvidedConnection();
+        verify(replica, never()).setReadOnly(anyBoolean());
+        assertThat(replica.getAutoCommit()).isFalse();
+    }
+
+    @Test
+    public void shouldNotOpenTransactionOnMain() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final DualConnection connection = dualConnection(connectionProvider);
+        connection.prepareStatement(SIMPLE_INSERT).executeUpdate();
+
+        connection.prepareStreamingStatement(SIMPLE_QUERY, 100).executeQuery();
+
+        final Connection main = connectionProvider.singleProvidedConnection();
+        verify(main, never()).setReadOnly(anyBoolean());
+        verify(main, never()).setAutoCommit(anyBoolean());
+    }
+
+    private DualConnection dualConnection(ConnectionProviderMock connectionProvider) throws SQLException {
+        return DualConnection.builder(connectionProvider, permanentConsistency().build())
+            .build()
+            .unwrap(DualConnection.class);
+    }
+}
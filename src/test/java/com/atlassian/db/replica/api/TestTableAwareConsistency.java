@@ -0,0 +1,123 @@
+package com.atlassian.db.replica.api;
+
+import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.extra.MutableClock;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.MAIN;
+import static com.atlassian.db.replica.api.mocks.ConnectionProviderMock.ConnectionType.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+public class TestTableAwareConsistency {
+    private final MutableClock clock = MutableClock.epochUTC();
+    private final TableAwarePropagationConsistency.Builder consistencyBuilder = new TableAwarePropagationConsistency.Builder()
+        .assumeMaxPropagation(Duration.ofMillis(100))
+        .measureTime(clock);
+
+    private TableAwareReplicaConsistency consistency;
+
+    @Before
+    public void assumeLongAgoWrite() {
+        consistency = (TableAwareReplicaConsistency) consistencyBuilder.build();
+        consistency.write(null);
+        clock.add(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void shouldReadOtherTableFromReplicaAfterWrite() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        DualConnection.builder(connectionProvider, consistency).build()
+            .prepareStatement("INSERT INTO audit_log (event) VALUES (?)")
+            .executeUpdate();
+
+        DualConnection.builder(connectionProvider, consistency).build()
+            .prepareStatement("SELECT * FROM users WHERE id = ?")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN, REPLICA);
+    }
+
+    @Test
+    public void shouldReadWrittenTableFromMain() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        DualConnection.builder(connectionProvider, consistency).build()
+            .prepareStatement("UPDATE public.users SET name = ? WHERE id = ?")
+            .executeUpdate();
+
+        DualConnection.builder(connectionProvider, consistency).build()
+            .prepareStatement("SELECT u.* FROM groups g JOIN users u ON u.group_id = g.id")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN, MAIN);
+    }
+
+    @Test
+    public void shouldReadFromMainAfterUnknownWrite() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        DualConnection.builder(connectionProvider, consistency).build()
+            .prepareStatement("SELECT doSomething(1234)")
+            .executeQuery();
+
+        DualConnection.builder(connectionProvider, consistency).build()
+            .prepareStatement("SELECT * FROM users WHERE id = ?")
+            .executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes()).containsExactly(MAIN, MAIN);
+    }
+
+    @Test
+    public void shouldReportTablesWrittenInTransaction() throws SQLException {
+        final TableAwareReplicaConsistency consistency = mock(TableAwareReplicaConsistency.class);
+        final Connection connection = DualConnection.builder(new ConnectionProviderMock(), consistency).build();
+
+        connection.setAutoCommit(false);
+        connection.prepareStatement("INSERT INTO audit_log (event) VALUES (?)").executeUpdate();
+        connection.prepareStatement("DELETE FROM sessions WHERE user_id = ?").executeUpdate();
+        connection.commit();
+
+        verify(consistency).write(any(), eq(ImmutableSet.of("audit_log", "sessions")));
+        verify(consistency, never()).write(any());
+    }
+
+    @Test
+    public void shouldReportUnknownWrites() throws SQLException {
+        final TableAwareReplicaConsistency consistency = mock(TableAwareReplicaConsistency.class);
+        final Connection connection = DualConnection.builder(new ConnectionProviderMock(), consistency).build();
+
+        connection.setAutoCommit(false);
+        connection.prepareStatement("INSERT INTO audit_log (event) VALUES (?)").executeUpdate();
+        connection.prepareStatement(SIMPLE_QUERY).executeUpdate();
+        connection.commit();
+
+        verify(consistency).write(any());
+        verify(consistency, never()).write(any(), anySet());
+    }
+
+    @Test
+    public void shouldAskAboutReadTables() throws SQLException {
+        final TableAwareReplicaConsistency consistency = mock(TableAwareReplicaConsistency.class);
+        when(consistency.isConsistent(any(), anySet())).thenReturn(true);
+        final Connection connection = DualConnection.builder(new ConnectionProviderMock(), consistency).build();
+
+        connection.prepareStatement("SELECT * FROM users WHERE id = ?").executeQuery();
+
+        verify(consistency).isConsistent(any(), eq(ImmutableSet.of("users")));
+        verify(consistency, never()).isConsistent(any());
+    }
+}
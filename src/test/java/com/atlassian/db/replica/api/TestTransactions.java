@@ -1,6 +1,8 @@
 package com.atlassian.db.replica.api;
 
+import com.atlassian.db.replica.api.mocks.CircularConsistency;
 import com.atlassian.db.replica.api.mocks.ConnectionProviderMock;
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -8,6 +10,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
+import static com.atlassian.db.replica.api.Queries.SIMPLE_INSERT;
 import static com.atlassian.db.replica.api.Queries.SIMPLE_QUERY;
 import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
 import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentInconsistency;
@@ -47,7 +50,7 @@ public class TestTransactions {
 
         startTransaction(connection);
         connection.prepareStatement(SIMPLE_QUERY).executeQuery();
-        connection.prepareStatement(SIMPLE_QUERY).execute();
+        connection.prepareStatement(SIMPLE_INSERT).execute();
 
         assertThat(connectionProvider.getProvidedConnectionTypes())
             .containsExactly(REPLICA, MAIN);
@@ -67,7 +70,7 @@ public class TestTransactions {
 
         connection.prepareStatement(SIMPLE_QUERY).executeQuery();
         startTransaction(connection);
-        connection.prepareStatement(SIMPLE_QUERY).execute();
+        connection.prepareStatement(SIMPLE_INSERT).execute();
 
         assertThat(connectionProvider.getProvidedConnectionTypes())
             .containsExactly(REPLICA, MAIN);
@@ -86,7 +89,7 @@ public class TestTransactions {
         ).build();
 
         connection.prepareStatement(SIMPLE_QUERY).executeQuery();
-        connection.prepareStatement(SIMPLE_QUERY).execute();
+        connection.prepareStatement(SIMPLE_INSERT).execute();
         startTransaction(connection);
 
         assertThat(connectionProvider.getProvidedConnectionTypes())
@@ -108,7 +111,7 @@ public class TestTransactions {
         final PreparedStatement preparedStatement = connection.prepareStatement(SIMPLE_QUERY);
         preparedStatement.executeQuery();
         startTransaction(connection);
-        preparedStatement.execute();
+        preparedStatement.executeUpdate();
 
 
         assertThat(connectionProvider.getProvidedConnectionTypes())
@@ -165,7 +168,7 @@ public class TestTransactions {
         startTransaction(connection);
         preparedStatement.executeQuery();
         connection.commit();
-        preparedStatement.execute();
+        preparedStatement.executeUpdate();
         connection.commit();
 
         final Connection replica = connectionProvider.getProvidedConnections().get(0);
@@ -202,6 +205,96 @@ public class TestTransactions {
             .containsExactly(MAIN);
     }
 
+    @Test
+    public void shouldPinReadOnlyTransactionToReplica() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(true, false)).build()
+        ).build();
+
+        connection.setReadOnly(true);
+        startTransaction(connection);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.commit();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes())
+            .containsExactly(REPLICA);
+    }
+
+    @Test
+    public void shouldPinInconsistentReadOnlyTransactionToMain() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(false, true)).build()
+        ).build();
+
+        connection.setReadOnly(true);
+        startTransaction(connection);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes())
+            .containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldCheckConsistencyForNextReadOnlyTransaction() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(true, false)).build()
+        ).build();
+
+        connection.setReadOnly(true);
+        startTransaction(connection);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.commit();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes())
+            .containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldNotPinTransactionMadeReadOnlyAfterItStarted() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            new CircularConsistency.Builder(ImmutableList.of(true, false)).build()
+        ).build();
+
+        startTransaction(connection);
+        connection.setReadOnly(true);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes())
+            .containsExactly(REPLICA, MAIN);
+    }
+
+    @Test
+    public void shouldUseReplicaForRepeatableReadInReadOnlyTransaction() throws SQLException {
+        final ConnectionProviderMock connectionProvider = new ConnectionProviderMock();
+        final Connection connection = DualConnection.builder(
+            connectionProvider,
+            permanentConsistency().build()
+        ).build();
+
+        connection.setReadOnly(true);
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        connection.prepareStatement(SIMPLE_QUERY).executeQuery();
+
+        assertThat(connectionProvider.getProvidedConnectionTypes())
+            .containsExactly(REPLICA);
+        Mockito.verify(connectionProvider.singleProvidedConnection())
+            .setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+    }
+
     private void startTransaction(Connection connection) throws SQLException {
         connection.setAutoCommit(false);
         connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
@@ -8,6 +8,7 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
@@ -184,7 +185,11 @@ public class ConnectionProviderMock implements ConnectionProvider {
 
     private PreparedStatement prepareStatement(Connection connection) throws SQLException {
         final PreparedStatement statement = mock(PreparedStatement.class);
-        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            final ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getMetaData()).thenReturn(mock(ResultSetMetaData.class));
+            return resultSet;
+        });
         initializeConnection(connection, statement);
         preparedStatements.add(statement);
         return statement;
@@ -199,6 +204,7 @@ public class ConnectionProviderMock implements ConnectionProvider {
     private CallableStatement prepareCall(Connection connection) throws SQLException {
         final CallableStatement statement = mock(CallableStatement.class);
         initializeConnection(connection, statement);
+        preparedStatements.add(statement);
         return statement;
     }
 
@@ -0,0 +1,592 @@
+package com.atlassian.db.replica.api.mocks;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.RowId;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+public class NoOpCallableStatement extends NoOpPreparedStatement implements CallableStatement {
+
+    public NoOpCallableStatement(Connection connection) {
+        super(connection);
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public boolean wasNull() {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public String getString(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public boolean getBoolean(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public byte getByte(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public short getShort(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public int getInt(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public long getLong(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public float getFloat(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public double getDouble(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public byte[] getBytes(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Date getDate(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Time getTime(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Object getObject(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Object getObject(int parameterIndex, Map<String, Class<?>> map) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Ref getRef(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Blob getBlob(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Clob getClob(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Array getArray(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Date getDate(int parameterIndex, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Time getTime(int parameterIndex, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, int scale) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public URL getURL(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setURL(String parameterName, URL val) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBoolean(String parameterName, boolean x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setByte(String parameterName, byte x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setShort(String parameterName, short x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setInt(String parameterName, int x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setLong(String parameterName, long x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setFloat(String parameterName, float x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setDouble(String parameterName, double x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBigDecimal(String parameterName, BigDecimal x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setString(String parameterName, String x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBytes(String parameterName, byte[] x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setDate(String parameterName, Date x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setTime(String parameterName, Time x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, Timestamp x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x, int length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x, int length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType, int scale) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x, int targetSqlType) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setObject(String parameterName, Object x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader, int length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setDate(String parameterName, Date x, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setTime(String parameterName, Time x, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setTimestamp(String parameterName, Timestamp x, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNull(String parameterName, int sqlType, String typeName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public String getString(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public boolean getBoolean(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public byte getByte(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public short getShort(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public int getInt(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public long getLong(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public float getFloat(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public double getDouble(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public byte[] getBytes(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Date getDate(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Time getTime(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Object getObject(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Object getObject(String parameterName, Map<String, Class<?>> map) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Ref getRef(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Blob getBlob(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Clob getClob(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Array getArray(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Date getDate(String parameterName, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Time getTime(String parameterName, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String parameterName, Calendar cal) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public URL getURL(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public RowId getRowId(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public RowId getRowId(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setRowId(String parameterName, RowId x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNString(String parameterName, String value) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNClob(String parameterName, NClob value) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public NClob getNClob(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public NClob getNClob(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setSQLXML(String parameterName, SQLXML xmlObject) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public SQLXML getSQLXML(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public SQLXML getSQLXML(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public String getNString(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public String getNString(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Reader getNCharacterStream(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Reader getNCharacterStream(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Reader getCharacterStream(int parameterIndex) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public Reader getCharacterStream(String parameterName) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBlob(String parameterName, Blob x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setClob(String parameterName, Clob x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader, long length) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setAsciiStream(String parameterName, InputStream x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBinaryStream(String parameterName, InputStream x) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setCharacterStream(String parameterName, Reader reader) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNCharacterStream(String parameterName, Reader value) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setClob(String parameterName, Reader reader) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setBlob(String parameterName, InputStream inputStream) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public void setNClob(String parameterName, Reader reader) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public <T> T getObject(int parameterIndex, Class<T> type) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    @Override
+    public <T> T getObject(String parameterName, Class<T> type) {
+        throw new RuntimeException("Not implemented");
+    }
+}
@@ -19,6 +19,10 @@ import java.util.Properties;
 import java.util.concurrent.Executor;
 
 public class NoOpConnection implements Connection {
+    private boolean autoCommit = true;
+    private boolean readOnly = false;
+    private boolean closed = false;
+
     @Override
     public Statement createStatement() {
         throw new RuntimeException("Not implemented");
@@ -26,12 +30,12 @@ public class NoOpConnection implements Connection {
 
     @Override
     public PreparedStatement prepareStatement(String sql) {
-        return new NoOpPreparedStatement();
+        return new NoOpPreparedStatement(this);
     }
 
     @Override
     public CallableStatement prepareCall(String sql) {
-        throw new RuntimeException("Not implemented");
+        return new NoOpCallableStatement(this);
     }
 
     @Override
@@ -41,32 +45,30 @@ public class NoOpConnection implements Connection {
 
     @Override
     public void setAutoCommit(boolean autoCommit) {
-        throw new RuntimeException("Not implemented");
+        this.autoCommit = autoCommit;
     }
 
     @Override
     public boolean getAutoCommit() {
-        throw new RuntimeException("Not implemented");
+        return autoCommit;
     }
 
     @Override
     public void commit() {
-        throw new RuntimeException("Not implemented");
     }
 
     @Override
     public void rollback() {
-        throw new RuntimeException("Not implemented");
     }
 
     @Override
     public void close() {
-        throw new RuntimeException("Not implemented");
+        this.closed = true;
     }
 
     @Override
     public boolean isClosed() {
-        throw new RuntimeException("Not implemented");
+        return closed;
     }
 
     @Override
@@ -76,12 +78,12 @@ public class NoOpConnection implements Connection {
 
     @Override
     public void setReadOnly(boolean readOnly) {
-        throw new RuntimeException("Not implemented");
+        this.readOnly = readOnly;
     }
 
     @Override
     public boolean isReadOnly() {
-        throw new RuntimeException("Not implemented");
+        return readOnly;
     }
 
     @Override
@@ -106,12 +108,11 @@ public class NoOpConnection implements Connection {
 
     @Override
     public SQLWarning getWarnings() {
-        throw new RuntimeException("Not implemented");
+        return null;
     }
 
     @Override
     public void clearWarnings() {
-        throw new RuntimeException("Not implemented");
     }
 
     @Override
@@ -0,0 +1,104 @@
+package com.atlassian.db.replica.internal;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static com.atlassian.db.replica.internal.BatchBuffer.Kind.DOUBLE;
+import static com.atlassian.db.replica.internal.BatchBuffer.Kind.LONG;
+import static com.atlassian.db.replica.internal.BatchBuffer.Kind.STRING;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class BatchBufferTest {
+
+    @Test
+    public void shouldReplayRowsAcrossChunks() throws SQLException {
+        final BatchBuffer buffer = new BatchBuffer();
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        for (int row = 0; row < 3000; row++) {
+            buffer.add(LONG, 1, row, null);
+            buffer.add(STRING, 2, 0, "row " + row);
+            buffer.addRow();
+        }
+
+        buffer.replay(statement);
+
+        final InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).setLong(1, 0);
+        inOrder.verify(statement).setString(2, "row 0");
+        inOrder.verify(statement).setLong(1, 2999);
+        inOrder.verify(statement).setString(2, "row 2999");
+        verify(statement, times(3000)).addBatch();
+    }
+
+    @Test
+    public void shouldKeepTypedValues() throws SQLException {
+        final BatchBuffer buffer = new BatchBuffer();
+        final PreparedStatement statement = mock(PreparedStatement.class);
+
+        buffer.add(DOUBLE, 1, Double.doubleToRawLongBits(-0.5), null);
+        buffer.replay(statement);
+
+        verify(statement).setDouble(1, -0.5);
+    }
+
+    @Test
+    public void shouldClearParametersSpanningChunks() throws SQLException {
+        final BatchBuffer buffer = new BatchBuffer();
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        buffer.add(LONG, 1, 1, null);
+        buffer.addRow();
+        for (int i = 0; i < 2000; i++) {
+            buffer.add(LONG, 1, 2, null);
+        }
+
+        buffer.clearParameters();
+        buffer.add(LONG, 1, 3, null);
+        buffer.addRow();
+        buffer.replay(statement);
+
+        verify(statement).setLong(1, 1);
+        verify(statement, never()).setLong(1, 2);
+        verify(statement).setLong(1, 3);
+        verify(statement, times(2)).addBatch();
+    }
+
+    @Test
+    public void shouldDropClearedRows() throws SQLException {
+        final BatchBuffer buffer = new BatchBuffer();
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        for (int row = 0; row < 3000; row++) {
+            buffer.add(LONG, 1, row, null);
+            buffer.addRow();
+        }
+
+        buffer.clear();
+        buffer.replay(statement);
+
+        verifyNoInteractions(statement);
+    }
+
+    @Test
+    public void shouldKeepParametersOfUnfinishedRowWhenClearing() throws SQLException {
+        final BatchBuffer buffer = new BatchBuffer();
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        for (int row = 0; row < 3000; row++) {
+            buffer.add(LONG, 1, row, null);
+            buffer.addRow();
+        }
+        buffer.add(STRING, 2, 0, "unfinished");
+
+        buffer.clear();
+        buffer.replay(statement);
+
+        verify(statement).setString(2, "unfinished");
+        verify(statement, never()).addBatch();
+    }
+}
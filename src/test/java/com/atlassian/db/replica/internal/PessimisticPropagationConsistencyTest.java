@@ -81,4 +81,30 @@ public class PessimisticPropagationConsistencyTest {
         assertThat(isConsistent).isFalse();
         assertThat(isConsistentLater).isTrue();
     }
+
+    @Test
+    public void shouldTolerateStalenessAsLongAsPropagation() {
+        ReplicaConsistency consistency = consistencyBuilder
+            .assumeMaxPropagation(Duration.ofMillis(200))
+            .build();
+
+        consistency.write(main);
+        clock.add(Duration.ofMillis(50));
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), Duration.ofMillis(200));
+
+        assertThat(consistent).isTrue();
+    }
+
+    @Test
+    public void shouldNotTolerateStalenessShorterThanPropagation() {
+        ReplicaConsistency consistency = consistencyBuilder
+            .assumeMaxPropagation(Duration.ofMillis(200))
+            .build();
+
+        consistency.write(main);
+        clock.add(Duration.ofMillis(150));
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), Duration.ofMillis(100));
+
+        assertThat(consistent).isFalse();
+    }
 }
@@ -0,0 +1,19 @@
+package com.atlassian.db.replica.internal;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecyclingPoolTest {
+
+    @Test
+    public void shouldKeepLimitedNumberOfIdleObjects() {
+        final RecyclingPool<String> pool = new RecyclingPool<>(1);
+
+        pool.release("first");
+        pool.release("second");
+
+        assertThat(pool.acquire()).isEqualTo("first");
+        assertThat(pool.acquire()).isNull();
+    }
+}
@@ -0,0 +1,124 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.api.RoutingRule;
+import com.atlassian.db.replica.api.StatementKind;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static com.atlassian.db.replica.api.state.State.COMMITED_MAIN;
+import static com.atlassian.db.replica.api.state.State.NOT_INITIALISED;
+import static com.atlassian.db.replica.api.state.State.REPLICA;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+public class RuleMatcherTest {
+    private final RoutingRule issues = new RoutingRule.Builder("issues")
+        .readingTables(ImmutableList.of("JiraIssue"))
+        .build();
+    private final RoutingRule audit = new RoutingRule.Builder("audit")
+        .readingTables(ImmutableList.of("audit_*"))
+        .tolerateStaleness(Duration.ofSeconds(10))
+        .build();
+    private final RoutingRule permissions = new RoutingRule.Builder("permissions")
+        .runningQueries(ImmutableList.of("SELECT * FROM permissions"))
+        .callingFunctions(ImmutableList.of("has_permission"))
+        .routeToMain()
+        .build();
+    private final RuleMatcher matcher = new RuleMatcher(ImmutableList.of(issues, audit, permissions));
+
+    @Test
+    public void shouldMatchTables() {
+        assertThat(matcher.match(new SqlQuery("select * from public.jiraissue where id = ?"), REPLICA)).isSameAs(issues);
+        assertThat(matcher.match(new SqlQuery("select * from audit_log"), REPLICA)).isSameAs(audit);
+        assertThat(matcher.match(new SqlQuery("select * from project"), REPLICA)).isNull();
+    }
+
+    @Test
+    public void shouldMatchTablesWithoutDescendants() {
+        assertThat(matcher.match(new SqlQuery("SELECT * FROM ONLY audit_log"), REPLICA)).isSameAs(audit);
+        assertThat(matcher.match(new SqlQuery("select * from project p join only jiraissue i on p.id = i.project"), REPLICA))
+            .isSameAs(issues);
+    }
+
+    @Test
+    public void shouldMatchTablesOfCommonTableExpressions() {
+        assertThat(matcher.match(new SqlQuery("WITH recent AS (SELECT * FROM audit_log) SELECT * FROM recent"), REPLICA))
+            .isSameAs(audit);
+        assertThat(matcher.match(
+            new SqlQuery("with recursive tree (id) as (select id from project union select id from tree) select * from tree"),
+            REPLICA
+        )).isNull();
+    }
+
+    @Test
+    public void shouldMatchTablesOfSubqueries() {
+        assertThat(matcher.match(new SqlQuery("select * from project where id in (select project from audit_log)"), REPLICA))
+            .isSameAs(audit);
+        assertThat(matcher.match(new SqlQuery("select * from (select * from audit_log) a"), REPLICA)).isNull();
+    }
+
+    @Test
+    public void shouldPreferEarlierRules() {
+        assertThat(matcher.match(new SqlQuery("select * from audit_log a join jiraissue i on a.issue = i.id"), REPLICA)).isSameAs(issues);
+    }
+
+    @Test
+    public void shouldMatchQueriesAndFunctions() {
+        assertThat(matcher.match(new SqlQuery("SELECT *\n  FROM permissions"), REPLICA)).isSameAs(permissions);
+        assertThat(matcher.match(new SqlQuery("{? = call has_permission(?)}"), REPLICA)).isSameAs(permissions);
+        assertThat(matcher.match(new SqlQuery("select public.has_permission(?)"), REPLICA)).isSameAs(permissions);
+    }
+
+    @Test
+    public void shouldRememberMatches() {
+        final String sql = "select * from audit_log";
+
+        assertThat(matcher.match(new SqlQuery(sql), REPLICA)).isSameAs(matcher.match(new SqlQuery(sql), REPLICA));
+        assertThat(matcher.match(new SqlQuery("select * from project"), REPLICA)).isNull();
+        assertThat(matcher.match(new SqlQuery("select * from project"), REPLICA)).isNull();
+    }
+
+    @Test
+    public void shouldMatchAllReadsByRuleWithoutConditions() {
+        final RoutingRule all = new RoutingRule.Builder("all").build();
+        final RuleMatcher matcher = new RuleMatcher(ImmutableList.of(audit, all));
+
+        assertThat(matcher.match(new SqlQuery("select * from project"), REPLICA)).isSameAs(all);
+        assertThat(matcher.match(new SqlQuery("select * from audit_log"), REPLICA)).isSameAs(audit);
+    }
+
+    @Test
+    public void shouldMatchStatementKinds() {
+        final RoutingRule session = new RoutingRule.Builder("session")
+            .runningStatements(ImmutableList.of(StatementKind.SESSION))
+            .routeToMain()
+            .build();
+        final RoutingRule queries = new RoutingRule.Builder("queries")
+            .readingTables(ImmutableList.of("audit_*"))
+            .runningStatements(ImmutableList.of(StatementKind.QUERY))
+            .build();
+        final RuleMatcher matcher = new RuleMatcher(ImmutableList.of(session, queries));
+
+        assertThat(matcher.match(new SqlQuery("SET search_path TO public"), REPLICA)).isSameAs(session);
+        assertThat(matcher.match(new SqlQuery("select * from audit_log"), REPLICA)).isSameAs(queries);
+        assertThat(matcher.match(new SqlQuery("show search_path"), REPLICA)).isNull();
+        assertThat(matcher.match(new SqlQuery("select * from audit_log for update"), REPLICA)).isNull();
+    }
+
+    @Test
+    public void shouldMatchConnectionStates() {
+        final RoutingRule afterWrite = new RoutingRule.Builder("after write")
+            .readingTables(ImmutableList.of("jiraissue"))
+            .inStates(ImmutableList.of(COMMITED_MAIN))
+            .routeToMain()
+            .build();
+        final RuleMatcher matcher = new RuleMatcher(ImmutableList.of(afterWrite, issues));
+        final String sql = "select * from jiraissue";
+
+        assertThat(matcher.match(new SqlQuery(sql), COMMITED_MAIN)).isSameAs(afterWrite);
+        assertThat(matcher.match(new SqlQuery(sql), NOT_INITIALISED)).isSameAs(issues);
+        assertThat(matcher.match(new SqlQuery(sql), COMMITED_MAIN)).isSameAs(afterWrite);
+    }
+}
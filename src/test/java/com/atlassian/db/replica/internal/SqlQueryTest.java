@@ -0,0 +1,151 @@
+package com.atlassian.db.replica.internal;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static com.atlassian.db.replica.api.Queries.SELECT_FOR_UPDATE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings({"SqlDialectInspection", "SqlNoDataSourceInspection"})
+public class SqlQueryTest {
+
+    @Test
+    public void shouldFindReadTables() {
+        final SqlQuery query = new SqlQuery(
+            "SELECT p.* FROM public.permissions p JOIN \"Users\" u ON u.id = p.user_id, groups AS g WHERE g.name = 'from x'"
+        );
+
+        assertThat(query.getReadTables()).contains(ImmutableSet.of("permissions", "users", "groups"));
+    }
+
+    @Test
+    public void shouldFindReadTablesOfSubqueries() {
+        final SqlQuery query = new SqlQuery("select id from issues where project in (select id from projects)");
+
+        assertThat(query.getReadTables()).contains(ImmutableSet.of("issues", "projects"));
+    }
+
+    @Test
+    public void shouldFindReadTablesOfCommonTableExpressions() {
+        final SqlQuery query = new SqlQuery(
+            "WITH RECURSIVE tree (id) AS (SELECT id FROM project UNION SELECT p.id FROM project p JOIN tree t ON p.parent = t.id), "
+                + "recent AS NOT MATERIALIZED (SELECT * FROM audit_log) SELECT * FROM tree, recent"
+        );
+
+        assertThat(query.getReadTables()).contains(ImmutableSet.of("project", "audit_log"));
+        assertThat(new SqlQuery("with deleted as (delete from issues returning *) select * from deleted").getReadTables())
+            .isEmpty();
+    }
+
+    @Test
+    public void shouldNotKnowReadTablesOfDerivedTables() {
+        assertThat(new SqlQuery("select * from (select 1) t").getReadTables()).isEmpty();
+    }
+
+    @Test
+    public void shouldFindReadTablesWithoutDescendants() {
+        assertThat(new SqlQuery("SELECT * FROM ONLY jiraissue").getReadTables()).contains(ImmutableSet.of("jiraissue"));
+        assertThat(new SqlQuery("select * from a join only b on a.id = b.id").getReadTables())
+            .contains(ImmutableSet.of("a", "b"));
+    }
+
+    @Test
+    public void shouldNotKnowReadTablesOfFunctions() {
+        assertThat(new SqlQuery("SELECT * FROM lateral_fn(1)").getReadTables()).isEmpty();
+        assertThat(new SqlQuery("select * from issues i join public.visible_issues(?) v on v.id = i.id").getReadTables())
+            .isEmpty();
+        assertThat(new SqlQuery("select * from issues, generate_series(1, 3)").getReadTables()).isEmpty();
+    }
+
+    @Test
+    public void shouldFindReadTablesOfMultilineQuery() {
+        assertThat(new SqlQuery(SELECT_FOR_UPDATE).getReadTables()).contains(ImmutableSet.of("propertyentry"));
+    }
+
+    @Test
+    public void shouldRecogniseQueries() {
+        assertThat(new SqlQuery("  (SELECT 1) UNION (SELECT 2)").isQuery()).isTrue();
+        assertThat(new SqlQuery("select id from issues").isQuery()).isTrue();
+        assertThat(new SqlQuery("INSERT INTO issues SELECT * FROM drafts").isQuery()).isFalse();
+        assertThat(new SqlQuery("selection").isQuery()).isFalse();
+        assertThat(new SqlQuery("WITH t AS (SELECT 1) SELECT * FROM t").isQuery()).isTrue();
+        assertThat(new SqlQuery("select * into backup from issues").isQuery()).isFalse();
+    }
+
+    @Test
+    public void shouldRecogniseCallsOfReadOnlyFunctions() {
+        final SqlFunction sqlFunction = new SqlFunction(ImmutableSet.of("get_issue"));
+
+        assertThat(new SqlQuery("{call get_issue(?)}").isReadOnlyCall(sqlFunction)).isTrue();
+        assertThat(new SqlQuery(" { ? = CALL public.get_issue ( ? ) } ").isReadOnlyCall(sqlFunction)).isTrue();
+        assertThat(new SqlQuery("{?=call get_issue}").isReadOnlyCall(sqlFunction)).isTrue();
+        assertThat(new SqlQuery("{call lower(?)}").isReadOnlyCall(sqlFunction)).isTrue();
+        assertThat(new SqlQuery("{call update_issue(?)}").isReadOnlyCall(sqlFunction)).isFalse();
+        assertThat(new SqlQuery("{call get_issues(?)}").isReadOnlyCall(sqlFunction)).isFalse();
+        assertThat(new SqlQuery("{call get_iss(?)}").isReadOnlyCall(sqlFunction)).isFalse();
+        assertThat(new SqlQuery("{call get_issue.update(?)}").isReadOnlyCall(sqlFunction)).isFalse();
+        assertThat(new SqlQuery("{call update_issue(?)}").isWriteOperation(sqlFunction)).isTrue();
+        assertThat(new SqlQuery("{? = call update_issue(?)}").isWriteOperation(sqlFunction)).isTrue();
+        assertThat(new SqlQuery("{? = call get_issue(?)}").isWriteOperation(sqlFunction)).isFalse();
+        assertThat(new SqlQuery("{callget_issue(?)}").isCall()).isFalse();
+        assertThat(new SqlQuery("select get_issue(?)").isCall()).isFalse();
+    }
+
+    @Test
+    public void shouldFindWrittenTables() {
+        assertThat(new SqlQuery("INSERT INTO public.permissions VALUES (1)").getWrittenTables())
+            .contains(ImmutableSet.of("permissions"));
+        assertThat(new SqlQuery("INSERT INTO ONLY t VALUES (1)").getWrittenTables())
+            .contains(ImmutableSet.of("t"));
+        assertThat(new SqlQuery("update ONLY permissions set level = 1").getWrittenTables())
+            .contains(ImmutableSet.of("permissions"));
+        assertThat(new SqlQuery("delete from \"Permissions\" where id = 1").getWrittenTables())
+            .contains(ImmutableSet.of("permissions"));
+        assertThat(new SqlQuery("TRUNCATE TABLE permissions, users").getWrittenTables())
+            .contains(ImmutableSet.of("permissions", "users"));
+    }
+
+    @Test
+    public void shouldNotKnowWrittenTablesOfOtherStatements() {
+        assertThat(new SqlQuery("select nextval('seq')").getWrittenTables()).isEmpty();
+        assertThat(new SqlQuery("with x as (delete from a returning *) select * from x").getWrittenTables()).isEmpty();
+        assertThat(new SqlQuery(null).getWrittenTables()).isEmpty();
+    }
+
+    @Test
+    public void shouldClassifyStatementsAfterLeadingComments() {
+        final SqlFunction sqlFunction = new SqlFunction(ImmutableSet.of());
+
+        assertThat(new SqlQuery("/* dao */ select id from issues").isQuery()).isTrue();
+        assertThat(new SqlQuery("-- dao\n/*+ db-replica:replica */ UPDATE issues SET id = 1").isWriteOperation(sqlFunction))
+            .isTrue();
+        assertThat(new SqlQuery("/* dao */ select id from issues").getReadTables()).contains(ImmutableSet.of("issues"));
+    }
+
+    @Test
+    public void shouldRecogniseHints() {
+        assertThat(new SqlQuery("/*+ db-replica:main */ select 1").isMainHinted()).isTrue();
+        assertThat(new SqlQuery("/*+ INDEX(i) DB-REPLICA:REPLICA */ select 1").isReplicaHinted()).isTrue();
+        assertThat(new SqlQuery("/*+ db-replica:max-staleness=2s */ select 1").getMaxStalenessHint())
+            .isEqualTo(Duration.ofSeconds(2));
+        assertThat(new SqlQuery("/*+ db-replica:max-staleness=500ms */ select 1").getMaxStalenessHint())
+            .isEqualTo(Duration.ofMillis(500));
+    }
+
+    @Test
+    public void shouldIgnoreHintsOutsideOfLeadingHintComments() {
+        assertThat(new SqlQuery("/* db-replica:main */ select 1").isMainHinted()).isFalse();
+        assertThat(new SqlQuery("select 1 /*+ db-replica:main */").isMainHinted()).isFalse();
+        assertThat(new SqlQuery("/*+ db-replica:max-staleness=2h */ select 1").getMaxStalenessHint()).isNull();
+        assertThat(new SqlQuery(null).isReplicaHinted()).isFalse();
+    }
+
+    @Test
+    public void shouldFindCalledFunctions() {
+        assertThat(new SqlQuery("{? = call PUBLIC.Get_Issue(?)}").getCalledFunction()).contains("get_issue");
+        assertThat(new SqlQuery("select get_issue(?)").getCalledFunction()).contains("get_issue");
+        assertThat(new SqlQuery("select id from issues").getCalledFunction()).isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.api.StatementKind;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementKindTest {
+    private static final String EXPECT = "-- expect: ";
+
+    private final SqlFunction sqlFunction = new SqlFunction(ImmutableSet.of());
+
+    @Test
+    public void shouldClassifyCorpus() throws IOException {
+        final List<String> misclassified = new ArrayList<>();
+
+        corpus().forEach((sql, expected) -> {
+            final StatementKind kind = new SqlQuery(sql).getKind();
+            if (kind != expected) {
+                misclassified.add(expected + " classified as " + kind + ": " + sql);
+            }
+        });
+
+        assertThat(misclassified).isEmpty();
+    }
+
+    @Test
+    public void shouldRouteCorpusWritesToMain() throws IOException {
+        final List<String> misrouted = new ArrayList<>();
+
+        corpus().forEach((sql, expected) -> {
+            final SqlQuery query = new SqlQuery(sql);
+            if (expected.isWrite() != query.isWriteOperation(sqlFunction)) {
+                misrouted.add(expected + " routed as a " + (expected.isWrite() ? "read" : "write") + ": " + sql);
+            }
+        });
+
+        assertThat(misrouted).isEmpty();
+    }
+
+    @Test
+    public void shouldRunOnlyQueriesViaExecuteOnReplica() throws IOException {
+        final List<String> misrouted = new ArrayList<>();
+
+        corpus().forEach((sql, expected) -> {
+            final boolean query = expected == StatementKind.QUERY || expected == StatementKind.LOCKING_QUERY;
+            if (query != new SqlQuery(sql).isQuery()) {
+                misrouted.add(expected + ": " + sql);
+            }
+        });
+
+        assertThat(misrouted).isEmpty();
+    }
+
+    @Test
+    public void shouldCoverEveryKind() throws IOException {
+        final Set<StatementKind> covered = EnumSet.copyOf(corpus().values());
+
+        assertThat(covered).containsExactlyInAnyOrder(StatementKind.values());
+        assertThat(corpus()).hasSizeGreaterThan(200);
+    }
+
+    @Test
+    public void shouldNotClassifyMissingStatement() {
+        assertThat(new SqlQuery(null).getKind()).isEqualTo(StatementKind.UNKNOWN);
+        assertThat(new SqlQuery(null).isWriteOperation(sqlFunction)).isFalse();
+    }
+
+    /**
+     * Reads statements, each following a line with the expected kind, e.g. {@code -- expect: DML}.
+     */
+    private static Map<String, StatementKind> corpus() throws IOException {
+        final String text = Resources.toString(
+            Resources.getResource(StatementKindTest.class, "statement-kinds.sql"),
+            StandardCharsets.UTF_8
+        );
+        final Map<String, StatementKind> corpus = new LinkedHashMap<>();
+        StatementKind kind = null;
+        StringBuilder sql = new StringBuilder();
+        for (String line : text.split("\n")) {
+            if (line.startsWith(EXPECT)) {
+                if (kind != null) {
+                    corpus.put(sql.toString().trim(), kind);
+                }
+                kind = StatementKind.valueOf(line.substring(EXPECT.length()).trim());
+                sql = new StringBuilder();
+            } else if (kind != null) {
+                sql.append(line).append('\n');
+            }
+        }
+        if (kind != null) {
+            corpus.put(sql.toString().trim(), kind);
+        }
+        return corpus;
+    }
+}
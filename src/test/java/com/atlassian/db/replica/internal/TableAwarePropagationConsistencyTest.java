@@ -0,0 +1,97 @@
+package com.atlassian.db.replica.internal;
+
+import com.atlassian.db.replica.api.TableAwarePropagationConsistency;
+import com.atlassian.db.replica.internal.util.ConnectionSupplier;
+import com.atlassian.db.replica.spi.TableAwareReplicaConsistency;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.extra.MutableClock;
+
+import java.sql.Connection;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableAwarePropagationConsistencyTest {
+
+    private TableAwareReplicaConsistency consistency;
+    private MutableClock clock;
+    private Connection main;
+    private Connection replica;
+
+    @Before
+    public void resetState() {
+        clock = MutableClock.epochUTC();
+        consistency = (TableAwareReplicaConsistency) new TableAwarePropagationConsistency.Builder()
+            .measureTime(clock)
+            .assumeMaxPropagation(Duration.ofMillis(200))
+            .build();
+        main = null;
+        replica = null;
+        consistency.write(main);
+        clock.add(Duration.ofMillis(300));
+    }
+
+    @Test
+    public void shouldBeConsistentForOtherTables() {
+        consistency.write(main, ImmutableSet.of("audit_log"));
+        clock.add(Duration.ofMillis(50));
+
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), ImmutableSet.of("users"));
+
+        assertThat(consistent).isTrue();
+    }
+
+    @Test
+    public void shouldBeInconsistentForWrittenTableBeforePropagation() {
+        consistency.write(main, ImmutableSet.of("audit_log", "users"));
+        clock.add(Duration.ofMillis(50));
+
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), ImmutableSet.of("groups", "users"));
+
+        assertThat(consistent).isFalse();
+    }
+
+    @Test
+    public void shouldBeConsistentForWrittenTableAfterPropagation() {
+        consistency.write(main, ImmutableSet.of("users"));
+        clock.add(Duration.ofMillis(300));
+
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), ImmutableSet.of("users"));
+
+        assertThat(consistent).isTrue();
+    }
+
+    @Test
+    public void shouldBeInconsistentForAllTablesAfterUnknownWrite() {
+        consistency.write(main);
+        clock.add(Duration.ofMillis(50));
+
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), ImmutableSet.of("users"));
+
+        assertThat(consistent).isFalse();
+    }
+
+    @Test
+    public void shouldBeInconsistentForUnknownTablesAfterAnyWrite() {
+        consistency.write(main, ImmutableSet.of("audit_log"));
+        clock.add(Duration.ofMillis(50));
+
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica));
+
+        assertThat(consistent).isFalse();
+    }
+
+    @Test
+    public void shouldAssumeInconsistencyWhenUnknown() {
+        final TableAwareReplicaConsistency consistency = (TableAwareReplicaConsistency) new TableAwarePropagationConsistency.Builder()
+            .measureTime(clock)
+            .assumeMaxPropagation(Duration.ofMillis(200))
+            .build();
+
+        boolean consistent = consistency.isConsistent(new ConnectionSupplier(replica), ImmutableSet.of("users"));
+
+        assertThat(consistent).isFalse();
+    }
+}
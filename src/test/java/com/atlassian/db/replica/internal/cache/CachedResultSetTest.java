@@ -0,0 +1,140 @@
+package com.atlassian.db.replica.internal.cache;
+
+import com.atlassian.db.replica.internal.ReadReplicaUnsupportedOperationException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachedResultSetTest {
+    private ResultSet results;
+
+    @Before
+    public void mockResults() throws SQLException {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("name");
+        when(metaData.getColumnLabel(3)).thenReturn("created");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(metaData.getColumnType(3)).thenReturn(Types.TIMESTAMP);
+        results = mock(ResultSet.class);
+        when(results.getMetaData()).thenReturn(metaData);
+        when(results.next()).thenReturn(true, true, false);
+        when(results.getLong(1)).thenReturn(1L, 0L);
+        when(results.getObject(2)).thenReturn("first", "second");
+        when(results.getObject(3)).thenReturn(new Timestamp(1000), null);
+        when(results.wasNull()).thenReturn(false, false, false, true, false, true);
+    }
+
+    @Test
+    public void shouldReadMaterializedRows() throws SQLException {
+        final ResultSet cached = new CachedResultSet(ColumnarResult.materialize(results), null);
+
+        assertThat(cached.next()).isTrue();
+        assertThat(cached.getLong("id")).isEqualTo(1L);
+        assertThat(cached.getInt(1)).isEqualTo(1);
+        assertThat(cached.getBigDecimal(1)).isEqualTo(BigDecimal.ONE);
+        assertThat(cached.getString("NAME")).isEqualTo("first");
+        assertThat(cached.getTimestamp(3)).isEqualTo(new Timestamp(1000));
+        assertThat(cached.next()).isTrue();
+        assertThat(cached.getObject(1)).isNull();
+        assertThat(cached.wasNull()).isTrue();
+        assertThat(cached.getString(2)).isEqualTo("second");
+        assertThat(cached.wasNull()).isFalse();
+        assertThat(cached.getTimestamp(3)).isNull();
+        assertThat(cached.next()).isFalse();
+        assertThat(cached.getMetaData().getColumnLabel(2)).isEqualTo("name");
+    }
+
+    @Test
+    public void shouldReplayToManyReaders() throws SQLException {
+        final ColumnarResult result = ColumnarResult.materialize(results);
+        final ResultSet first = new CachedResultSet(result, null);
+        final ResultSet second = new CachedResultSet(result, null);
+
+        first.next();
+        first.next();
+        second.next();
+
+        assertThat(first.getString(2)).isEqualTo("second");
+        assertThat(second.getString(2)).isEqualTo("first");
+    }
+
+    @Test
+    public void shouldNotLeakMutableValues() throws SQLException {
+        final ResultSet cached = new CachedResultSet(ColumnarResult.materialize(results), null);
+        cached.next();
+
+        cached.getTimestamp(3).setTime(2000);
+
+        assertThat(cached.getTimestamp(3)).isEqualTo(new Timestamp(1000));
+    }
+
+    @Test
+    public void shouldReadResultsOnce() throws SQLException {
+        final ColumnarResult result = ColumnarResult.materialize(results);
+
+        assertThat(result.getRowCount()).isEqualTo(2);
+        verify(results, org.mockito.Mockito.times(3)).next();
+    }
+
+    @Test
+    public void shouldNotSupportUpdates() throws SQLException {
+        final ResultSet cached = new CachedResultSet(ColumnarResult.materialize(results), null);
+        cached.next();
+
+        final Throwable throwable = catchThrowable(() -> cached.updateLong(1, 2));
+
+        assertThat(throwable).isInstanceOf(ReadReplicaUnsupportedOperationException.class);
+    }
+
+    @Test
+    public void shouldReadTextAsStreams() throws SQLException, IOException {
+        final ResultSet cached = new CachedResultSet(ColumnarResult.materialize(results), null);
+        cached.next();
+
+        assertThat(CharStreams.toString(new InputStreamReader(cached.getAsciiStream(2), StandardCharsets.US_ASCII)))
+            .isEqualTo("first");
+        assertThat(CharStreams.toString(new InputStreamReader(cached.getAsciiStream("created"), StandardCharsets.US_ASCII)))
+            .isEqualTo(new Timestamp(1000).toString());
+    }
+
+    @Test
+    public void shouldNotCacheValuesTiedToConnection() throws SQLException {
+        final String sql = "SELECT * FROM attachments";
+        final QueryCache cache = new QueryCache(ImmutableList.of(sql), 1_000_000);
+        final QueryKey key = cache.startRecording(sql).toKey();
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(2)).thenReturn(Types.BLOB);
+        final ResultSet lobs = mock(ResultSet.class);
+        when(lobs.getMetaData()).thenReturn(metaData);
+
+        final ResultSet returned = cache.put(key, cache.getGeneration(), lobs, null);
+
+        assertThat(returned).isSameAs(lobs);
+        assertThat(cache.get(key, null)).isNull();
+        verify(lobs, never()).next();
+        verify(lobs, never()).close();
+    }
+}
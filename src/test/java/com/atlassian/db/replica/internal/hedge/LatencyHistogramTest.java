@@ -0,0 +1,37 @@
+package com.atlassian.db.replica.internal.hedge;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldBoundPercentile() {
+        final LatencyHistogram histogram = new LatencyHistogram(1000);
+        for (int i = 0; i < 95; i++) {
+            histogram.record(MILLISECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 5; i++) {
+            histogram.record(MILLISECONDS.toNanos(100));
+        }
+
+        assertThat(histogram.getPercentile(0.95)).isBetween(MILLISECONDS.toNanos(1), MILLISECONDS.toNanos(2));
+        assertThat(histogram.getPercentile(0.99)).isBetween(MILLISECONDS.toNanos(100), MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void shouldFadeOldSamples() {
+        final LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(MILLISECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 150; i++) {
+            histogram.record(MILLISECONDS.toNanos(1));
+        }
+
+        assertThat(histogram.getCount()).isLessThan(100);
+        assertThat(histogram.getPercentile(0.8)).isLessThanOrEqualTo(MILLISECONDS.toNanos(2));
+    }
+}
@@ -0,0 +1,58 @@
+package com.atlassian.db.replica.internal.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestLruCache {
+
+    @Test
+    public void shouldRememberValues() {
+        final LruCache<String, Integer> cache = new LruCache<>(2);
+
+        cache.put("one", 1);
+
+        assertThat(cache.get("one")).isEqualTo(1);
+        assertThat(cache.get("two")).isNull();
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        final LruCache<String, Integer> cache = new LruCache<>(2);
+
+        cache.put("one", 1);
+        cache.put("two", 2);
+        cache.get("one");
+        cache.put("three", 3);
+
+        assertThat(cache.get("one")).isEqualTo(1);
+        assertThat(cache.get("two")).isNull();
+        assertThat(cache.get("three")).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldKeepRememberingNewValuesWhenFull() {
+        final LruCache<Integer, Integer> cache = new LruCache<>(10);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+
+        assertThat(cache.get(99)).isEqualTo(99);
+        assertThat(cache.get(89)).isNull();
+    }
+
+    @Test
+    public void shouldKeepUsedValueWhileOthersMiss() {
+        final LruCache<Integer, Integer> cache = new LruCache<>(10);
+        cache.put(-1, -1);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(-1);
+            cache.put(i, i);
+        }
+
+        assertThat(cache.get(-1)).isEqualTo(-1);
+        assertThat(cache.get(99)).isEqualTo(99);
+    }
+}
@@ -0,0 +1,155 @@
+package com.atlassian.db.replica.it;
+
+import com.atlassian.db.replica.api.DualConnection;
+import com.atlassian.db.replica.api.mocks.NoOpConnectionProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static com.atlassian.db.replica.api.Queries.LARGE_SQL_QUERY;
+import static com.atlassian.db.replica.api.mocks.CircularConsistency.permanentConsistency;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the number of bytes allocated by a single call routed through {@link DualConnection}.
+ * The underlying connections are no-ops, so the allocations come from the routing code.
+ * <p>
+ * Budgets are set slightly above the current allocations. Lower them whenever the allocations drop.
+ */
+public class DualConnectionAllocationIT {
+    private static final String UPDATE = "UPDATE jiraissue SET summary = ? WHERE id = ?";
+    private static final String INSERT = "INSERT INTO jiraissue (id, summary) VALUES (?, ?)";
+    private static final String CALL = "{call update_issue_count(?)}";
+    private static final int WARM_UP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 50_000;
+
+    private com.sun.management.ThreadMXBean threads;
+
+    @Before
+    public void enableAllocationAccounting() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertThat(threads.isThreadAllocatedMemorySupported())
+            .as("thread allocated memory support")
+            .isTrue();
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void shouldReadWithinBudget() throws SQLException {
+        final Connection connection = dualConnection();
+
+        final long bytesPerCall = measure(() -> {
+            try (PreparedStatement statement = connection.prepareStatement(LARGE_SQL_QUERY)) {
+                statement.setLong(1, 10000L);
+                statement.executeQuery();
+            }
+        });
+
+        assertThat(bytesPerCall).as("bytes per read").isLessThanOrEqualTo(700);
+    }
+
+    @Test
+    public void shouldWriteWithinBudget() throws SQLException {
+        final Connection connection = dualConnection();
+
+        final long bytesPerCall = measure(() -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+                statement.setString(1, "summary");
+                statement.setLong(2, 10000L);
+                statement.executeUpdate();
+            }
+        });
+
+        assertThat(bytesPerCall).as("bytes per write").isLessThanOrEqualTo(600);
+    }
+
+    @Test
+    public void shouldReadAfterWriteWithinBudget() throws SQLException {
+        final long bytesPerCall = measure(() -> {
+            try (Connection connection = dualConnection()) {
+                connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+                connection.prepareStatement(UPDATE).executeUpdate();
+                connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+            }
+        });
+
+        assertThat(bytesPerCall).as("bytes per read-write-read connection").isLessThanOrEqualTo(2_250);
+    }
+
+    @Test
+    public void shouldReadAfterWriteOnRecycledConnectionWithinBudget() throws SQLException {
+        final DualConnection.Builder connections = DualConnection
+            .builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .recycleConnections(1);
+
+        final long bytesPerCall = measure(() -> {
+            try (Connection connection = connections.build()) {
+                connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+                connection.prepareStatement(UPDATE).executeUpdate();
+                connection.prepareStatement(LARGE_SQL_QUERY).executeQuery();
+            }
+        });
+
+        assertThat(bytesPerCall).as("bytes per recycled read-write-read connection").isLessThanOrEqualTo(1_500);
+    }
+
+    @Test
+    public void shouldBatchWithinBudget() throws SQLException {
+        final Connection connection = dualConnection();
+
+        final long bytesPerCall = measure(() -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                for (int row = 0; row < 10; row++) {
+                    statement.setLong(1, row);
+                    statement.setString(2, "summary");
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+
+        assertThat(bytesPerCall).as("bytes per batch of 10 rows").isLessThanOrEqualTo(1_850);
+    }
+
+    @Test
+    public void shouldCallWithinBudget() throws SQLException {
+        final Connection connection = dualConnection();
+
+        final long bytesPerCall = measure(() -> {
+            try (CallableStatement statement = connection.prepareCall(CALL)) {
+                statement.setLong(1, 10000L);
+                statement.execute();
+            }
+        });
+
+        assertThat(bytesPerCall).as("bytes per call").isLessThanOrEqualTo(700);
+    }
+
+    private Connection dualConnection() throws SQLException {
+        return DualConnection
+            .builder(new NoOpConnectionProvider(), permanentConsistency().build())
+            .build();
+    }
+
+    private long measure(Scenario scenario) throws SQLException {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            scenario.run();
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            scenario.run();
+        }
+        final long after = threads.getThreadAllocatedBytes(threadId);
+        return (after - before) / MEASURED_CALLS;
+    }
+
+    private interface Scenario {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,82 @@
+package com.atlassian.db.replica.it;
+
+import com.atlassian.db.replica.api.PessimisticPropagationConsistency;
+import com.atlassian.db.replica.internal.LsnReplicaConsistency;
+import com.atlassian.db.replica.simulation.Distribution;
+import com.atlassian.db.replica.simulation.LoadReport;
+import com.atlassian.db.replica.simulation.LoadGenerator;
+import com.atlassian.db.replica.simulation.SimulatedCluster;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Evaluates consistency strategies against a simulated main and replica, without real databases.
+ */
+public class ReplicationLagSimulationIT {
+
+    @Test
+    public void shouldServeStaleReadsWhenPropagationIsUnderestimated() throws Exception {
+        final SimulatedCluster cluster = simulateCluster();
+
+        final LoadReport report = LoadGenerator
+            .builder(
+                cluster,
+                new PessimisticPropagationConsistency.Builder()
+                    .assumeMaxPropagation(Duration.ofMillis(1))
+                    .build()
+            )
+            .build()
+            .run();
+
+        assertThat(report.getStaleReads()).as(report.toString()).isPositive();
+    }
+
+    @Test
+    public void shouldRarelyServeStaleReadsWhenPropagationIsOverestimated() throws Exception {
+        final SimulatedCluster cluster = simulateCluster();
+
+        final LoadReport report = LoadGenerator
+            .builder(
+                cluster,
+                new PessimisticPropagationConsistency.Builder()
+                    .assumeMaxPropagation(Duration.ofMillis(60))
+                    .build()
+            )
+            .writeProbability(0.01)
+            .build()
+            .run();
+
+        assertThat(report.getReplicaReads()).as(report.toString()).isPositive();
+        assertThat(report.getStaleFraction()).as(report.toString()).isLessThan(0.01);
+    }
+
+    @Test
+    public void shouldRarelyServeStaleReadsWithLsn() throws Exception {
+        final SimulatedCluster cluster = simulateCluster();
+
+        final LoadReport report = LoadGenerator
+            .builder(cluster, new LsnReplicaConsistency())
+            .writeProbability(0.01)
+            .build()
+            .run();
+
+        assertThat(report.getReplicaReads()).as(report.toString()).isPositive();
+        assertThat(report.getStaleFraction()).as(report.toString()).isLessThan(0.01);
+    }
+
+    /**
+     * Writes racing with reads make some of them stale regardless of the strategy,
+     * so the assertions only bound the stale fraction.
+     */
+    private SimulatedCluster simulateCluster() {
+        return SimulatedCluster.builder()
+            .replicationDelay(Distribution.uniform(Duration.ofMillis(5), Duration.ofMillis(50)))
+            .mainLatency(Distribution.constant(Duration.ofMillis(1)))
+            .replicaLatency(Distribution.exponential(Duration.ofMillis(1)))
+            .writeLatency(Distribution.constant(Duration.ofMillis(2)))
+            .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.atlassian.db.replica.it;
+
+import com.atlassian.db.replica.api.PessimisticPropagationConsistency;
+import com.atlassian.db.replica.internal.LsnReplicaConsistency;
+import com.atlassian.db.replica.simulation.Distribution;
+import com.atlassian.db.replica.simulation.LoadGenerator;
+import com.atlassian.db.replica.simulation.LoadReport;
+import com.atlassian.db.replica.simulation.SimulatedCluster;
+import com.atlassian.db.replica.simulation.StaleReadDetector;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Proves consistency implementations never let callers miss their own writes.
+ * Run longer with {@code ./gradlew testIntegration --tests '*StaleReadSoakIT' -PsoakDuration=PT10M}.
+ */
+public class StaleReadSoakIT {
+    private static final Duration MAX_REPLICATION_DELAY = Duration.ofMillis(50);
+    private static final Duration SOAK_DURATION = Duration.parse(System.getProperty("soak.duration", "PT5S"));
+
+    @Test
+    public void shouldNotMissOwnWritesWithPessimisticPropagation() throws Exception {
+        final Soak soak = soak(
+            new PessimisticPropagationConsistency.Builder()
+                .assumeMaxPropagation(MAX_REPLICATION_DELAY.plusMillis(10))
+                .build()
+        );
+
+        assertThat(soak.detector.getChecks()).as(soak.toString()).isPositive();
+        assertThat(soak.detector.getViolations()).as(soak.toString()).isZero();
+    }
+
+    @Test
+    public void shouldNotMissOwnWritesWithLsn() throws Exception {
+        final Soak soak = soak(new LsnReplicaConsistency());
+
+        assertThat(soak.detector.getChecks()).as(soak.toString()).isPositive();
+        assertThat(soak.detector.getViolations()).as(soak.toString()).isZero();
+    }
+
+    @Test
+    public void shouldDetectMissedWritesWhenPropagationIsUnderestimated() throws Exception {
+        final Soak soak = soak(
+            new PessimisticPropagationConsistency.Builder()
+                .assumeMaxPropagation(Duration.ofMillis(1))
+                .build()
+        );
+
+        assertThat(soak.detector.getViolations()).as(soak.toString()).isPositive();
+    }
+
+    private Soak soak(ReplicaConsistency consistency) throws Exception {
+        final SimulatedCluster cluster = SimulatedCluster.builder()
+            .replicationDelay(Distribution.uniform(Duration.ofMillis(1), MAX_REPLICATION_DELAY))
+            .mainLatency(Distribution.constant(Duration.ofMillis(1)))
+            .replicaLatency(Distribution.exponential(Duration.ofMillis(1)))
+            .writeLatency(Distribution.constant(Duration.ofMillis(2)))
+            .build();
+        final StaleReadDetector detector = new StaleReadDetector(cluster.replicaPosition());
+
+        final LoadReport report = LoadGenerator.builder(cluster, consistency)
+            .threads(8)
+            .duration(SOAK_DURATION)
+            .writeProbability(0.01)
+            .detectStaleReads(detector)
+            .build()
+            .run();
+
+        return new Soak(report, detector);
+    }
+
+    private static final class Soak {
+        private final LoadReport report;
+        private final StaleReadDetector detector;
+
+        private Soak(LoadReport report, StaleReadDetector detector) {
+            this.report = report;
+            this.detector = detector;
+        }
+
+        @Override
+        public String toString() {
+            return report + " " + detector;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.atlassian.db.replica.it;
+
+import com.atlassian.db.replica.api.DualConnection;
+import com.atlassian.db.replica.api.TableAwarePropagationConsistency;
+import com.atlassian.db.replica.simulation.Distribution;
+import com.atlassian.db.replica.simulation.SimulatedCluster;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs {@link DualConnection}s on virtual threads and checks that none of them pins its carrier thread,
+ * i.e. blocks on I/O while holding a monitor.
+ * <p>
+ * Needs JDK 21 or newer and {@code -Djdk.tracePinnedThreads=short}, which prints the monitors held by pinned threads.
+ * Skipped otherwise. Run it with {@code ./gradlew testIntegration -PintegrationJavaHome=<JDK 21 home>}.
+ */
+public class VirtualThreadPinningIT {
+    private static final int VIRTUAL_THREADS = 10_000;
+    private static final String READ = "SELECT version FROM simulated";
+    private static final String WRITE = "UPDATE simulated SET version = version + 1";
+
+    @Test
+    public void shouldNotPinCarrierThreads() throws Exception {
+        assumeTrue("pinned threads are traced", System.getProperty("jdk.tracePinnedThreads") != null);
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        final SimulatedCluster cluster = SimulatedCluster.builder()
+            .replicationDelay(Distribution.constant(Duration.ofMillis(5)))
+            .mainLatency(Distribution.constant(Duration.ofMillis(1)))
+            .replicaLatency(Distribution.constant(Duration.ofMillis(1)))
+            .writeLatency(Distribution.constant(Duration.ofMillis(1)))
+            .build();
+        final ReplicaConsistency consistency = new TableAwarePropagationConsistency.Builder()
+            .assumeMaxPropagation(Duration.ofMillis(10))
+            .build();
+        final DualConnection.Builder connections = DualConnection.builder(cluster.connectionProvider(), consistency)
+            .recycleConnections(100);
+
+        final String trace = captureStandardOutput(() -> {
+            final List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < VIRTUAL_THREADS; i++) {
+                final boolean write = i % 10 == 0;
+                requests.add(executor.submit(() -> runRequest(connections, write)));
+            }
+            for (Future<?> request : requests) {
+                request.get();
+            }
+            executor.shutdown();
+        });
+
+        final List<String> pinnedFrames = Arrays.stream(trace.split("\n"))
+            .filter(line -> line.contains("com.atlassian.db.replica"))
+            .filter(line -> line.contains("monitors"))
+            .collect(Collectors.toList());
+        assertThat(pinnedFrames).isEmpty();
+    }
+
+    private Void runRequest(DualConnection.Builder connections, boolean write) throws SQLException {
+        try (Connection connection = connections.build()) {
+            read(connection);
+            if (write) {
+                try (PreparedStatement update = connection.prepareStatement(WRITE)) {
+                    update.executeUpdate();
+                }
+            }
+            read(connection);
+        }
+        return null;
+    }
+
+    private void read(Connection connection) throws SQLException {
+        try (
+            PreparedStatement query = connection.prepareStatement(READ);
+            ResultSet results = query.executeQuery()
+        ) {
+            results.next();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            assumeTrue("virtual threads are available", false);
+            throw new IllegalStateException(e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String captureStandardOutput(Scenario scenario) throws Exception {
+        final PrintStream standardOutput = System.out;
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try {
+            scenario.run();
+        } finally {
+            System.setOut(standardOutput);
+        }
+        return captured.toString();
+    }
+
+    private interface Scenario {
+        void run() throws Exception;
+    }
+}
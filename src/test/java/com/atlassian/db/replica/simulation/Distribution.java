@@ -0,0 +1,30 @@
+package com.atlassian.db.replica.simulation;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws durations, e.g. replication delays or query latencies.
+ */
+public interface Distribution {
+
+    Duration sample();
+
+    static Distribution constant(Duration duration) {
+        return () -> duration;
+    }
+
+    static Distribution uniform(Duration min, Duration max) {
+        final long minNanos = min.toNanos();
+        final long maxNanos = max.toNanos();
+        return () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1));
+    }
+
+    /**
+     * Mostly short durations with a long tail, e.g. a replica struggling to keep up from time to time.
+     */
+    static Distribution exponential(Duration mean) {
+        final double meanNanos = mean.toNanos();
+        return () -> Duration.ofNanos((long) (-meanNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble())));
+    }
+}
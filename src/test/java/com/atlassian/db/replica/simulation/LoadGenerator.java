@@ -0,0 +1,173 @@
+package com.atlassian.db.replica.simulation;
+
+import com.atlassian.db.replica.api.DualConnection;
+import com.atlassian.db.replica.spi.ReplicaConsistency;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs requests against a {@link SimulatedCluster} from many threads. Each request opens a {@link DualConnection},
+ * sometimes writes, reads a few times and closes the connection.
+ * <p>
+ * A read is stale when it's served by the replica, which doesn't have all the writes committed on the main database
+ * by the time the read started. It's a strict measure, reads racing with writes of other callers are stale too.
+ * The {@link StaleReadDetector} verifies the actual guarantee: callers read their own writes.
+ */
+public final class LoadGenerator {
+    private final SimulatedCluster cluster;
+    private final ReplicaConsistency consistency;
+    private final int threads;
+    private final Duration duration;
+    private final double writeProbability;
+    private final int readsPerRequest;
+    private final StaleReadDetector detector;
+
+    private LoadGenerator(
+        SimulatedCluster cluster,
+        ReplicaConsistency consistency,
+        int threads,
+        Duration duration,
+        double writeProbability,
+        int readsPerRequest,
+        StaleReadDetector detector
+    ) {
+        this.cluster = cluster;
+        this.consistency = consistency;
+        this.threads = threads;
+        this.duration = duration;
+        this.writeProbability = writeProbability;
+        this.readsPerRequest = readsPerRequest;
+        this.detector = detector;
+    }
+
+    public LoadReport run() throws InterruptedException, ExecutionException {
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<LoadReport.Recorder>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> runUntil(deadline)));
+            }
+            final LoadReport.Recorder total = new LoadReport.Recorder();
+            for (Future<LoadReport.Recorder> future : futures) {
+                total.merge(future.get());
+            }
+            return total.report();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LoadReport.Recorder runUntil(long deadline) throws SQLException {
+        final LoadReport.Recorder recorder = new LoadReport.Recorder();
+        while (System.nanoTime() < deadline) {
+            runRequest(recorder);
+        }
+        return recorder;
+    }
+
+    private void runRequest(LoadReport.Recorder recorder) throws SQLException {
+        try (Connection connection = DualConnection.builder(cluster.connectionProvider(), consistency).build()) {
+            if (ThreadLocalRandom.current().nextDouble() < writeProbability) {
+                try (PreparedStatement update = connection.prepareStatement("UPDATE simulated SET version = version + 1")) {
+                    update.executeUpdate();
+                }
+                recorder.recordWrite();
+                detector.recordWrite(Thread.currentThread(), cluster.getLastWriteOfCurrentThread());
+            }
+            for (int i = 0; i < readsPerRequest; i++) {
+                read(connection, recorder);
+            }
+        }
+    }
+
+    private void read(Connection connection, LoadReport.Recorder recorder) throws SQLException {
+        final long expectedVersion = cluster.getMainVersion();
+        final long start = System.nanoTime();
+        try (
+            PreparedStatement query = connection.prepareStatement("SELECT version FROM simulated");
+            ResultSet results = query.executeQuery()
+        ) {
+            final long latency = System.nanoTime() - start;
+            results.next();
+            final SimulatedCluster.Node node = SimulatedCluster.Node.valueOf(results.getString("node"));
+            final long version = results.getLong("version");
+            recorder.recordRead(node, version < expectedVersion, latency);
+            detector.checkRead(Thread.currentThread(), results);
+        }
+    }
+
+    public static Builder builder(SimulatedCluster cluster, ReplicaConsistency consistency) {
+        return new Builder(cluster, consistency);
+    }
+
+    public static class Builder {
+        private final SimulatedCluster cluster;
+        private final ReplicaConsistency consistency;
+        private int threads = 4;
+        private Duration duration = Duration.ofSeconds(2);
+        private double writeProbability = 0.1;
+        private int readsPerRequest = 5;
+        private StaleReadDetector detector;
+
+        private Builder(SimulatedCluster cluster, ReplicaConsistency consistency) {
+            this.cluster = cluster;
+            this.consistency = consistency;
+            this.detector = new StaleReadDetector(cluster.replicaPosition());
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * @param writeProbability the chance a request starts with a write, from 0 to 1
+         */
+        public Builder writeProbability(double writeProbability) {
+            this.writeProbability = writeProbability;
+            return this;
+        }
+
+        public Builder readsPerRequest(int readsPerRequest) {
+            this.readsPerRequest = readsPerRequest;
+            return this;
+        }
+
+        /**
+         * @param detector verifies read-your-writes, each worker thread acts as a separate caller
+         */
+        public Builder detectStaleReads(StaleReadDetector detector) {
+            this.detector = detector;
+            return this;
+        }
+
+        public LoadGenerator build() {
+            return new LoadGenerator(
+                cluster,
+                consistency,
+                threads,
+                duration,
+                writeProbability,
+                readsPerRequest,
+                detector
+            );
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.atlassian.db.replica.simulation;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Outcome of a {@link LoadGenerator}.
+ */
+public final class LoadReport {
+    private final long reads;
+    private final long replicaReads;
+    private final long staleReads;
+    private final long writes;
+    private final long[] sortedLatencies;
+
+    private LoadReport(long reads, long replicaReads, long staleReads, long writes, long[] sortedLatencies) {
+        this.reads = reads;
+        this.replicaReads = replicaReads;
+        this.staleReads = staleReads;
+        this.writes = writes;
+        this.sortedLatencies = sortedLatencies;
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads;
+    }
+
+    public long getStaleReads() {
+        return staleReads;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * @return the fraction of reads served by the replica
+     */
+    public double getOffload() {
+        return reads == 0 ? 0 : (double) replicaReads / reads;
+    }
+
+    /**
+     * @return the fraction of reads which missed some of the writes
+     */
+    public double getStaleFraction() {
+        return reads == 0 ? 0 : (double) staleReads / reads;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return read latency at the given percentile
+     */
+    public Duration getLatency(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return Duration.ZERO;
+        }
+        final int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return Duration.ofNanos(sortedLatencies[Math.max(0, Math.min(rank, sortedLatencies.length) - 1)]);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadReport{" +
+            "reads=" + reads +
+            ", replicaReads=" + replicaReads +
+            ", staleReads=" + staleReads +
+            ", writes=" + writes +
+            ", offload=" + String.format("%.3f", getOffload()) +
+            ", p50=" + getLatency(50) +
+            ", p95=" + getLatency(95) +
+            ", p99=" + getLatency(99) +
+            ", max=" + getLatency(100) +
+            '}';
+    }
+
+    /**
+     * Collects the results of a single thread.
+     */
+    static final class Recorder {
+        private long reads;
+        private long replicaReads;
+        private long staleReads;
+        private long writes;
+        private long[] latencies = new long[1024];
+
+        void recordRead(SimulatedCluster.Node node, boolean stale, long latencyNanos) {
+            if (reads == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[(int) reads] = latencyNanos;
+            reads++;
+            if (node == SimulatedCluster.Node.REPLICA) {
+                replicaReads++;
+                if (stale) {
+                    staleReads++;
+                }
+            }
+        }
+
+        void recordWrite() {
+            writes++;
+        }
+
+        void merge(Recorder other) {
+            final long[] merged = Arrays.copyOf(latencies, (int) (reads + other.reads));
+            System.arraycopy(other.latencies, 0, merged, (int) reads, (int) other.reads);
+            latencies = merged;
+            reads += other.reads;
+            replicaReads += other.replicaReads;
+            staleReads += other.staleReads;
+            writes += other.writes;
+        }
+
+        LoadReport report() {
+            final long[] sorted = Arrays.copyOf(latencies, (int) reads);
+            Arrays.sort(sorted);
+            return new LoadReport(reads, replicaReads, staleReads, writes, sorted);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.atlassian.db.replica.simulation;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+
+/**
+ * Tells which writes a read observed, e.g. the LSN a Postgres replica replayed by the time it served the read.
+ */
+@FunctionalInterface
+public interface ReplicaPosition {
+
+    /**
+     * @param read results of the read, positioned on a row
+     * @return the position of the replica serving the read, or empty if main served it
+     */
+    OptionalLong observedBy(ResultSet read) throws SQLException;
+}
@@ -0,0 +1,195 @@
+package com.atlassian.db.replica.simulation;
+
+import com.atlassian.db.replica.spi.ConnectionProvider;
+
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates a main database and its replica in memory.
+ * <p>
+ * Every write to the main database bumps its version. The replica replays the writes in order,
+ * each one after a replication delay. A query observes the version of the node it runs on.
+ */
+public final class SimulatedCluster {
+    private final Clock clock;
+    private final Distribution replicationDelay;
+    private final Distribution mainLatency;
+    private final Distribution replicaLatency;
+    private final Distribution writeLatency;
+    private final Deque<PendingWrite> replicationQueue = new ArrayDeque<>();
+    private final ThreadLocal<Long> lastWriteOfThread = ThreadLocal.withInitial(() -> 0L);
+    private long mainVersion = 0;
+    private long replicaVersion = 0;
+    private Instant lastReplicatedAt = Instant.MIN;
+
+    private SimulatedCluster(
+        Clock clock,
+        Distribution replicationDelay,
+        Distribution mainLatency,
+        Distribution replicaLatency,
+        Distribution writeLatency
+    ) {
+        this.clock = clock;
+        this.replicationDelay = replicationDelay;
+        this.mainLatency = mainLatency;
+        this.replicaLatency = replicaLatency;
+        this.writeLatency = writeLatency;
+    }
+
+    public enum Node {
+        MAIN,
+        REPLICA
+    }
+
+    /**
+     * @return connections to the simulated nodes
+     */
+    public ConnectionProvider connectionProvider() {
+        return new ConnectionProvider() {
+            @Override
+            public boolean isReplicaAvailable() {
+                return true;
+            }
+
+            @Override
+            public Connection getMainConnection() {
+                return new SimulatedConnection(SimulatedCluster.this, Node.MAIN);
+            }
+
+            @Override
+            public Connection getReplicaConnection() {
+                return new SimulatedConnection(SimulatedCluster.this, Node.REPLICA);
+            }
+        };
+    }
+
+    /**
+     * @return the version of the replica, which served a read, based on the columns of {@link SimulatedResultSet}
+     */
+    public ReplicaPosition replicaPosition() {
+        return read -> Node.valueOf(read.getString("node")) == Node.REPLICA
+            ? OptionalLong.of(read.getLong("version"))
+            : OptionalLong.empty();
+    }
+
+    /**
+     * Commits a write on the main database.
+     *
+     * @return the version of the main database including the write
+     */
+    public synchronized long write() {
+        final Instant now = clock.instant();
+        final Instant replicatedAt = max(lastReplicatedAt, now.plus(replicationDelay.sample()));
+        mainVersion++;
+        replicationQueue.addLast(new PendingWrite(mainVersion, replicatedAt));
+        lastReplicatedAt = replicatedAt;
+        lastWriteOfThread.set(mainVersion);
+        return mainVersion;
+    }
+
+    /**
+     * @return the version of the last write committed by the current thread
+     */
+    public long getLastWriteOfCurrentThread() {
+        return lastWriteOfThread.get();
+    }
+
+    public synchronized long getMainVersion() {
+        return mainVersion;
+    }
+
+    public synchronized long getReplicaVersion() {
+        final Instant now = clock.instant();
+        while (!replicationQueue.isEmpty() && !replicationQueue.peekFirst().replicatedAt.isAfter(now)) {
+            replicaVersion = replicationQueue.pollFirst().version;
+        }
+        return replicaVersion;
+    }
+
+    long getVersion(Node node) {
+        return node == Node.MAIN ? getMainVersion() : getReplicaVersion();
+    }
+
+    void awaitRead(Node node) {
+        await(node == Node.MAIN ? mainLatency : replicaLatency);
+    }
+
+    void awaitWrite() {
+        await(writeLatency);
+    }
+
+    private void await(Distribution latency) {
+        final long nanos = latency.sample().toNanos();
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static final class PendingWrite {
+        private final long version;
+        private final Instant replicatedAt;
+
+        private PendingWrite(long version, Instant replicatedAt) {
+            this.version = version;
+            this.replicatedAt = replicatedAt;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Clock clock = Clock.systemUTC();
+        private Distribution replicationDelay = Distribution.constant(Duration.ofMillis(50));
+        private Distribution mainLatency = Distribution.constant(Duration.ZERO);
+        private Distribution replicaLatency = Distribution.constant(Duration.ZERO);
+        private Distribution writeLatency = Distribution.constant(Duration.ZERO);
+
+        private Builder() {
+        }
+
+        public Builder measureTime(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @param replicationDelay how long it takes a write to reach the replica
+         */
+        public Builder replicationDelay(Distribution replicationDelay) {
+            this.replicationDelay = replicationDelay;
+            return this;
+        }
+
+        public Builder mainLatency(Distribution mainLatency) {
+            this.mainLatency = mainLatency;
+            return this;
+        }
+
+        public Builder replicaLatency(Distribution replicaLatency) {
+            this.replicaLatency = replicaLatency;
+            return this;
+        }
+
+        public Builder writeLatency(Distribution writeLatency) {
+            this.writeLatency = writeLatency;
+            return this;
+        }
+
+        public SimulatedCluster build() {
+            return new SimulatedCluster(clock, replicationDelay, mainLatency, replicaLatency, writeLatency);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.atlassian.db.replica.simulation;
+
+import com.atlassian.db.replica.api.mocks.NoOpConnection;
+
+import java.sql.PreparedStatement;
+
+/**
+ * A connection to one of the {@link SimulatedCluster} nodes.
+ */
+public class SimulatedConnection extends NoOpConnection {
+    private final SimulatedCluster cluster;
+    private final SimulatedCluster.Node node;
+
+    SimulatedConnection(SimulatedCluster cluster, SimulatedCluster.Node node) {
+        this.cluster = cluster;
+        this.node = node;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) {
+        return new SimulatedStatement(this, cluster, node, sql);
+    }
+}
@@ -0,0 +1,71 @@
+package com.atlassian.db.replica.simulation;
+
+import com.atlassian.db.replica.api.mocks.NoOpResultSet;
+
+import java.sql.SQLException;
+
+/**
+ * A single row describing where and when the query was served.
+ * Columns: {@code node}, {@code version} and {@code lsn}.
+ */
+public class SimulatedResultSet extends NoOpResultSet {
+    private final SimulatedCluster.Node node;
+    private final long version;
+    private boolean beforeFirst = true;
+
+    SimulatedResultSet(SimulatedCluster.Node node, long version) {
+        this.node = node;
+        this.version = version;
+    }
+
+    public SimulatedCluster.Node getNode() {
+        return node;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean next() {
+        final boolean hasRow = beforeFirst;
+        beforeFirst = false;
+        return hasRow;
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        switch (columnLabel) {
+            case "node":
+                return node.name();
+            case "version":
+                return Long.toString(version);
+            case "lsn":
+                return String.format("0/%X", version);
+            default:
+                throw new SQLException("The column name " + columnLabel + " was not found in this ResultSet.");
+        }
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        if ("version".equals(columnLabel)) {
+            return version;
+        }
+        throw new SQLException("The column name " + columnLabel + " was not found in this ResultSet.");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        throw new SQLException("Cannot unwrap to " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
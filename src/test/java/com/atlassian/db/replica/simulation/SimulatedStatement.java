@@ -0,0 +1,48 @@
+package com.atlassian.db.replica.simulation;
+
+import com.atlassian.db.replica.api.mocks.NoOpPreparedStatement;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Queries observe the version of the node they run on. Updates bump the version of the main database.
+ * <p>
+ * Understands the LSN query of {@code LsnReplicaConsistency}, so LSN-based strategies can run against the simulation.
+ */
+public class SimulatedStatement extends NoOpPreparedStatement {
+    private final SimulatedCluster cluster;
+    private final SimulatedCluster.Node node;
+    private final String sql;
+
+    SimulatedStatement(Connection connection, SimulatedCluster cluster, SimulatedCluster.Node node, String sql) {
+        super(connection);
+        this.cluster = cluster;
+        this.node = node;
+        this.sql = sql;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        if (isLsnQuery()) {
+            return new SimulatedResultSet(node, cluster.getVersion(node));
+        }
+        cluster.awaitRead(node);
+        return new SimulatedResultSet(node, cluster.getVersion(node));
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        if (node == SimulatedCluster.Node.REPLICA) {
+            throw new SQLException("cannot execute UPDATE in a read-only transaction");
+        }
+        cluster.awaitWrite();
+        cluster.write();
+        return 1;
+    }
+
+    private boolean isLsnQuery() {
+        return sql.contains("pg_current_xlog_location") || sql.contains("pg_last_xlog_replay_location");
+    }
+}
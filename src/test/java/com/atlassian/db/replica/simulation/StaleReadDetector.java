@@ -0,0 +1,66 @@
+package com.atlassian.db.replica.simulation;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies read-your-writes: a replica read must observe at least the version of the last write of the same caller.
+ * <p>
+ * Callers identify themselves with any key, e.g. a user or a thread. Versions are monotonic, e.g. a write counter
+ * or a log sequence number. The {@link ReplicaPosition} tells which version a read observed, so the detector can
+ * check simulated as well as real replicas.
+ */
+public final class StaleReadDetector {
+    private final ReplicaPosition replicaPosition;
+    private final Map<Object, Long> lastWrites = new ConcurrentHashMap<>();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+
+    public StaleReadDetector(ReplicaPosition replicaPosition) {
+        this.replicaPosition = replicaPosition;
+    }
+
+    public void recordWrite(Object caller, long version) {
+        lastWrites.merge(caller, version, Math::max);
+    }
+
+    /**
+     * @return false if the read missed a write of the caller
+     */
+    public boolean checkRead(Object caller, ResultSet read) throws SQLException {
+        final OptionalLong observedVersion = replicaPosition.observedBy(read);
+        if (!observedVersion.isPresent()) {
+            return true;
+        }
+        checks.increment();
+        final Long lastWrite = lastWrites.get(caller);
+        if (lastWrite != null && observedVersion.getAsLong() < lastWrite) {
+            violations.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return how many replica reads were checked
+     */
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    public long getViolations() {
+        return violations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "StaleReadDetector{" +
+            "checks=" + getChecks() +
+            ", violations=" + getViolations() +
+            '}';
+    }
+}
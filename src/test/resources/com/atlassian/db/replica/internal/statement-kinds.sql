@@ -0,0 +1,451 @@
+-- Statements with the kinds StatementKindTest expects. Each one follows a "-- expect: <kind>" line.
+
+-- expect: QUERY
+SELECT 1
+-- expect: QUERY
+select id, summary from jiraissue where project = ? order by id desc limit 10
+-- expect: QUERY
+  SELECT 1;
+-- expect: QUERY
+(SELECT id FROM a) UNION ALL (SELECT id FROM b)
+-- expect: QUERY
+((select 1))
+-- expect: QUERY
+/* com.atlassian.jira.issue.IssueManager */ select * from jiraissue where id = ?
+-- expect: QUERY
+-- a leading line comment
+select count(*) from jiraissue
+-- expect: QUERY
+/*+ db-replica:replica */ select 1
+-- expect: QUERY
+select 'insert into t values (1)' as sql
+-- expect: QUERY
+select 'it''s' as s, 'delete' from dual
+-- expect: QUERY
+select "update", "into", "insert" from "weird"
+-- expect: QUERY
+select $$ delete from t $$ as body
+-- expect: QUERY
+select $fn$ insert into t values (1); $fn$ as body
+-- expect: QUERY
+select * from t where id = $1
+-- expect: QUERY
+select substring(summary from 1 for 10) from jiraissue
+-- expect: QUERY
+select overlay(summary placing 'x' from 2 for 3) from jiraissue
+-- expect: QUERY
+select * from issue_updates
+-- expect: QUERY
+select updated, deleted, inserted from audit
+-- expect: QUERY
+select * from jiraissue where updated > now() - interval '1 day' order by updated
+-- expect: QUERY
+select id /* for update */ from jiraissue
+-- expect: QUERY
+select id from jiraissue -- for update
+-- expect: QUERY
+select * from jiraissue i join project p on p.id = i.project where p.pkey in (select pkey from keys)
+-- expect: QUERY
+select exists (select 1 from jiraissue where id = ?)
+-- expect: QUERY
+select * from generate_series(1, 10) with ordinality
+-- expect: QUERY
+select distinct on (project) id from jiraissue
+-- expect: QUERY
+select * from jiraissue fetch first 5 rows only
+-- expect: QUERY
+select * from jiraissue offset 10 rows fetch next 10 rows with ties
+-- expect: QUERY
+select rank() over (partition by project order by created) from jiraissue
+-- expect: QUERY
+select * from jiraissue window w as (partition by project)
+-- expect: QUERY
+select * from jiraissue tablesample system (10)
+-- expect: QUERY
+select array[1, 2, 3], row(1, 'a')
+-- expect: QUERY
+select case when x then 'insert' else 'delete' end from t
+-- expect: QUERY
+SELECT "ISSUE"."id" FROM "public"."jiraissue" "ISSUE" WHERE "ISSUE"."project" = ?
+-- expect: QUERY
+VALUES (1, 'one'), (2, 'two')
+-- expect: QUERY
+values (1) order by 1
+-- expect: QUERY
+TABLE jiraissue
+-- expect: QUERY
+table only jiraissue
+-- expect: QUERY
+WITH recent AS (SELECT * FROM jiraissue WHERE created > now() - interval '1 day') SELECT * FROM recent
+-- expect: QUERY
+with recursive t(n) as (values (1) union all select n + 1 from t where n < 100) select sum(n) from t
+-- expect: QUERY
+with a as materialized (select 1), b as not materialized (select 2) select * from a, b
+-- expect: QUERY
+with a as (select 1) values (1)
+-- expect: QUERY
+with a as (select 1) table a
+-- expect: QUERY
+with a as (select 1 as update) select update from a
+-- expect: QUERY
+with recursive tree as (
+    select id, parent from node where id = ?
+    union all
+    select n.id, n.parent from node n join tree t on n.parent = t.id
+) search depth first by id set ordercol
+select * from tree order by ordercol
+-- expect: QUERY
+(with a as (select 1) select * from a)
+-- expect: QUERY
+SHOW search_path
+-- expect: QUERY
+show all
+-- expect: QUERY
+EXPLAIN SELECT * FROM jiraissue
+-- expect: QUERY
+explain insert into t values (1)
+-- expect: QUERY
+explain verbose delete from t
+-- expect: QUERY
+explain (costs off, verbose) update t set x = 1
+-- expect: QUERY
+explain (analyze false) delete from t
+-- expect: QUERY
+explain (analyze off, buffers) insert into t values (1)
+-- expect: QUERY
+explain (analyze 0) insert into t values (1)
+-- expect: QUERY
+explain analyze select * from jiraissue
+-- expect: QUERY
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM jiraissue
+-- expect: QUERY
+explain (analyze true) with a as (select 1) select * from a
+-- expect: QUERY
+COPY jiraissue TO STDOUT
+-- expect: QUERY
+copy jiraissue (id, summary) to stdout with (format csv, header)
+-- expect: QUERY
+copy (select * from jiraissue where summary like '%from%') to stdout
+-- expect: QUERY
+COPY (SELECT id FROM a JOIN b USING (id)) TO STDOUT (FORMAT binary)
+
+-- expect: QUERY
+select O_S_PROPERTY_ENTRY.id, O_S_PROPERTY_ENTRY.propertytype
+from public.propertyentry O_S_PROPERTY_ENTRY
+where O_S_PROPERTY_ENTRY.entity_name = ? and O_S_PROPERTY_ENTRY.entity_id = ?
+order by O_S_PROPERTY_ENTRY.id desc
+-- expect: QUERY
+select lower(summary) from jiraissue
+-- expect: QUERY
+select count(*) from jiraissue where resolution is null
+-- expect: QUERY
+select * from jiraissue where summary = E'line\nbreak'
+-- expect: QUERY
+select * from jiraissue where id = any(?::bigint[])
+-- expect: QUERY
+select json_build_object('update', true) from dual
+-- expect: QUERY
+select * from lateral_view, lateral (select 1) l
+-- expect: QUERY
+select 1 where false
+-- expect: QUERY
+SELECT 1 UNION SELECT 2 EXCEPT SELECT 3 INTERSECT SELECT 4
+-- expect: QUERY
+select * from jiraissue where created between ? and ? group by project having count(*) > 1
+-- expect: QUERY
+with a as (select 1), b as (select * from a) select * from b
+-- expect: QUERY
+with cte (id, summary) as (select id, summary from jiraissue) select * from cte
+-- expect: QUERY
+with recursive t as (select 1 as n) cycle n set is_cycle using path select * from t
+-- expect: QUERY
+show transaction isolation level
+-- expect: QUERY
+explain (format json) select * from jiraissue
+-- expect: QUERY
+copy (with a as (select 1) select * from a) to stdout
+
+-- expect: LOCKING_QUERY
+select * from jiraissue where id = ? for update
+-- expect: LOCKING_QUERY
+SELECT * FROM jiraissue WHERE id = ? FOR UPDATE;
+-- expect: LOCKING_QUERY
+select * from jiraissue where id = ? for update nowait
+-- expect: LOCKING_QUERY
+select * from queue order by id limit 1 for update skip locked
+-- expect: LOCKING_QUERY
+select * from jiraissue i, project p where i.project = p.id for update of i
+-- expect: LOCKING_QUERY
+select * from jiraissue for no key update
+-- expect: LOCKING_QUERY
+select * from jiraissue for share
+-- expect: LOCKING_QUERY
+select * from jiraissue for key share
+-- expect: LOCKING_QUERY
+select * from jiraissue where id = ?
+for update
+-- expect: LOCKING_QUERY
+select * from (select * from jiraissue for update) locked
+-- expect: LOCKING_QUERY
+with a as (select * from jiraissue for update) select * from a
+-- expect: LOCKING_QUERY
+(select * from jiraissue where id = 1) union all (select * from jiraissue where id = 2 for update)
+-- expect: LOCKING_QUERY
+explain analyze select * from jiraissue for update
+
+-- expect: SESSION
+SET search_path TO public
+-- expect: SESSION
+set local statement_timeout = 1000
+-- expect: SESSION
+SET SESSION CHARACTERISTICS AS TRANSACTION READ ONLY
+-- expect: SESSION
+set transaction isolation level repeatable read
+-- expect: SESSION
+RESET ALL
+-- expect: SESSION
+reset statement_timeout
+-- expect: SESSION
+DISCARD ALL
+-- expect: SESSION
+load 'auto_explain'
+
+-- expect: DML
+INSERT INTO jiraissue (id, summary) VALUES (?, ?)
+-- expect: DML
+insert into t select * from s
+-- expect: DML
+insert into t values (1) on conflict (id) do update set x = excluded.x returning id
+-- expect: DML
+insert into t default values
+-- expect: DML
+/* com.atlassian.jira.issue.IssueManager */ insert into jiraissue values (1)
+-- expect: DML
+-- dao
+insert into jiraissue values (1)
+-- expect: DML
+(insert into t values (1))
+-- expect: DML
+UPDATE jiraissue SET summary = ? WHERE id = ?
+-- expect: DML
+update only t set x = 1 from s where s.id = t.id returning *
+-- expect: DML
+update t set x = 1 where current of c
+-- expect: DML
+DELETE FROM jiraissue WHERE id = ?
+-- expect: DML
+delete from t using s where s.id = t.id returning t.id
+-- expect: DML
+MERGE INTO t USING s ON t.id = s.id WHEN MATCHED THEN UPDATE SET x = s.x WHEN NOT MATCHED THEN INSERT VALUES (s.id, s.x)
+-- expect: DML
+TRUNCATE jiraissue
+-- expect: DML
+truncate table only a, b restart identity cascade
+-- expect: DML
+COPY jiraissue FROM STDIN
+-- expect: DML
+copy jiraissue (id, summary) from stdin with (format csv)
+-- expect: DML
+copy t from '/tmp/data.csv' (format csv, delimiter ',')
+-- expect: DML
+copy t from program 'cat /tmp/data.csv'
+-- expect: DML
+SELECT * INTO backup FROM jiraissue
+-- expect: DML
+select id, summary into temporary table scratch from jiraissue where project = ?
+-- expect: DML
+select * into unlogged archive from jiraissue
+-- expect: DML
+WITH moved AS (DELETE FROM jiraissue WHERE project = ? RETURNING *) INSERT INTO archive SELECT * FROM moved
+-- expect: DML
+with x as (insert into t values (1) returning id) select * from x
+-- expect: DML
+with x as (update t set y = 1 returning id) select count(*) from x
+-- expect: DML
+with x as (delete from t returning *) select * from x
+-- expect: DML
+with x as materialized (delete from t returning *) select * from x
+-- expect: DML
+with x as not materialized (update t set y = 2 returning *) select * from x
+-- expect: DML
+with a as (select 1), b as (insert into t values (1) returning *) select * from a, b
+-- expect: DML
+WITH x AS (
+    INSERT INTO t VALUES (1)
+    RETURNING id
+)
+SELECT id FROM x
+-- expect: DML
+with x as (/* copy */ insert into t values (1) returning id) select * from x
+-- expect: DML
+with x as (select 1) insert into t select * from x
+-- expect: DML
+with x as (select 1) update t set y = (select * from x)
+-- expect: DML
+with x as (select 1) delete from t where y in (select * from x)
+-- expect: DML
+with x as (select 1) merge into t using x on true when matched then delete
+-- expect: DML
+with recursive x(n) as (values (1)) insert into t select n from x
+-- expect: DML
+with x as (select 1) select * into backup from x
+-- expect: DML
+EXPLAIN ANALYZE INSERT INTO t VALUES (1)
+-- expect: DML
+explain analyse delete from t
+-- expect: DML
+explain analyze verbose update t set x = 1
+-- expect: DML
+explain (analyze, buffers) delete from t
+-- expect: DML
+explain (analyze on) insert into t values (1)
+-- expect: DML
+explain (verbose, analyze true, costs off) update t set x = 1
+-- expect: DML
+explain analyze with x as (delete from t returning *) select * from x
+-- expect: DML
+CALL refresh_caches()
+-- expect: DML
+call public.archive(?, ?)
+-- expect: DML
+DO $$ BEGIN DELETE FROM t; END $$
+-- expect: DML
+do language plpgsql $body$ begin perform 1; end $body$
+
+-- expect: DML
+insert into jiraissue (id, summary) select nextval('seq'), summary from drafts where id in (select id from chosen)
+-- expect: DML
+INSERT INTO "public"."propertyentry" ("id", "entity_name") VALUES (?, ?)
+-- expect: DML
+insert into t (a) values ('select 1') returning id
+-- expect: DML
+update jiraissue set summary = 'from x', updated = now() where id = ?
+-- expect: DML
+delete from jiraissue where id in (select id from archived for update)
+-- expect: DML
+with x as (select 1) select * into temp table t2 from x
+-- expect: DML
+select * into strict_copy from (select 1) s
+
+-- expect: DDL
+CREATE TABLE t (id bigint PRIMARY KEY)
+-- expect: DDL
+create temporary table scratch as select * from jiraissue
+-- expect: DDL
+create unique index concurrently idx_issue_key on jiraissue (issuenum)
+-- expect: DDL
+create or replace function f() returns int as $$ select 1 $$ language sql
+-- expect: DDL
+create materialized view mv as select * from jiraissue
+-- expect: DDL
+create sequence s
+-- expect: DDL
+create extension if not exists pg_trgm
+-- expect: DDL
+create schema audit
+-- expect: DDL
+create role reader
+-- expect: DDL
+ALTER TABLE jiraissue ADD COLUMN archived boolean
+-- expect: DDL
+alter sequence s restart with 100
+-- expect: DDL
+alter system set work_mem = '64MB'
+-- expect: DDL
+alter default privileges grant select on tables to reader
+-- expect: DDL
+DROP TABLE IF EXISTS scratch
+-- expect: DDL
+drop index concurrently idx_issue_key
+-- expect: DDL
+COMMENT ON TABLE jiraissue IS 'issues'
+-- expect: DDL
+GRANT SELECT ON jiraissue TO reader
+-- expect: DDL
+revoke all on jiraissue from public
+-- expect: DDL
+security label for selinux on table t is 'system_u:object_r:sepgsql_table_t:s0'
+-- expect: DDL
+import foreign schema remote from server s into local
+-- expect: DDL
+reassign owned by old_role to new_role
+
+-- expect: DDL
+create view v as with x as (delete from t returning *) select * from x
+-- expect: DDL
+alter table jiraissue drop column archived
+-- expect: DDL
+drop materialized view if exists mv
+
+-- expect: UTILITY
+VACUUM jiraissue
+-- expect: UTILITY
+vacuum (verbose, analyze) jiraissue
+-- expect: UTILITY
+ANALYZE jiraissue
+-- expect: UTILITY
+analyse verbose
+-- expect: UTILITY
+CLUSTER jiraissue USING jiraissue_pkey
+-- expect: UTILITY
+REINDEX TABLE jiraissue
+-- expect: UTILITY
+refresh materialized view concurrently mv
+-- expect: UTILITY
+LOCK TABLE jiraissue IN SHARE MODE
+-- expect: UTILITY
+listen issue_events
+-- expect: UTILITY
+unlisten *
+-- expect: UTILITY
+NOTIFY issue_events, 'created'
+-- expect: UTILITY
+checkpoint
+
+-- expect: TRANSACTION
+BEGIN
+-- expect: TRANSACTION
+begin isolation level serializable
+-- expect: TRANSACTION
+start transaction read only
+-- expect: TRANSACTION
+COMMIT
+-- expect: TRANSACTION
+end
+-- expect: TRANSACTION
+ROLLBACK
+-- expect: TRANSACTION
+abort
+-- expect: TRANSACTION
+savepoint before_update
+-- expect: TRANSACTION
+rollback to savepoint before_update
+-- expect: TRANSACTION
+release savepoint before_update
+-- expect: TRANSACTION
+commit prepared 'tx1'
+
+-- expect: UNKNOWN
+PREPARE fetch_issue (bigint) AS SELECT * FROM jiraissue WHERE id = $1
+-- expect: UNKNOWN
+EXECUTE fetch_issue(1)
+-- expect: UNKNOWN
+deallocate fetch_issue
+-- expect: UNKNOWN
+declare c cursor for select * from jiraissue
+-- expect: UNKNOWN
+fetch 10 from c
+-- expect: UNKNOWN
+move forward 5 in c
+-- expect: UNKNOWN
+close c
+-- expect: UNKNOWN
+selection
+-- expect: UNKNOWN
+;
+-- expect: UNKNOWN
+/* just a comment */
+-- expect: UNKNOWN
+copy
+-- expect: UNKNOWN
+explain analyze